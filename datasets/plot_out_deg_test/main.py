@@ -2,10 +2,14 @@ import matplotlib.pyplot as plt
 import numpy as np
 import os
 import argparse
+import csv
 
 parser = argparse.ArgumentParser()
 parser.add_argument("test_name", nargs="?", default="com-dblp.ungraph", help="Test name")
 parser.add_argument("-p", "--poster", action="store_true", help="Enable poster mode: large font size and no legends")
+parser.add_argument("-d", "--data-dir", default=os.path.join(os.path.dirname(os.path.abspath(__file__)), os.pardir),
+                    help="Directory holding the .outdeg.full.txt and .outdeg.times.txt files (default: the datasets directory)")
+parser.add_argument("-c", "--per-node-csv", help="Per node CSV written by BenchmarkRunner, read instead of the text files")
 args = parser.parse_args()
 test_name = args.test_name
 poster = args.poster
@@ -25,7 +29,7 @@ def generate_file_paths(test_name):
     Returns:
         tuple: (out_deg_path, test_results_path)
     """
-    base_dir = r"C:\Users\Clinten\Documents\Courses\2245\Capstone\RelationStorageTestbed\datasets"
+    base_dir = args.data_dir
     out_deg_path = os.path.join(base_dir, f"{test_name}.outdeg.full.txt")
     test_results_path = os.path.join(base_dir, f"{test_name}.outdeg.times.txt")
     return out_deg_path, test_results_path
@@ -47,41 +51,65 @@ def smooth(data, window_size=10):
 # -------------------------
 ids = []
 out_degrees = []
-
-with open(OUT_DEG, "r") as f:
-    for line in f:
-        line = line.strip()
-        if not line or ":" not in line:
-            continue
-        id_part, degree_part = line.split(":", 1)
-        ids.append(id_part.strip())
-        try:
-            out_degrees.append(int(degree_part.strip()))
-        except ValueError:
-            print(f"Warning: could not convert {degree_part.strip()} to integer.")
-
-# Parse test results file with multiple runs per test
 test_results = {}
-current_test = None
-current_run = []
-
-with open(TEST_RESULTS, "r") as f:
-    for line in f:
-        line = line.strip()
-        if not line:
-            continue
-        if line.isdigit():
-            if current_test is None:
-                print("Error: numeric value encountered before any test name.")
+
+
+def read_per_node_csv(path):
+    """
+    Reads the per node CSV of BenchmarkRunner into the same shape as the text files: the node ids
+    and out degrees in rank order, and for every test a list of runs of per node times. Disk tests
+    get a trailing underscore, as QueryBenchmark writes them.
+    """
+    nodes = {}
+    runs = {}
+    with open(path, newline="") as f:
+        for row in csv.DictReader(f):
+            key = row["name"] + ("_" if row["disk"] == "true" else "")
+            rank = int(row["rank"])
+            nodes[rank] = (row["node"], int(row["out_degree"]))
+            runs.setdefault(key, {}).setdefault(int(row["run"]), {})[rank] = int(row["ns"])
+    ranks = sorted(nodes)
+    results = {key: [[run[rank] for rank in ranks] for _, run in sorted(by_run.items())]
+               for key, by_run in runs.items()}
+    return [nodes[r][0] for r in ranks], [nodes[r][1] for r in ranks], results
+
+
+if args.per_node_csv:
+    ids, out_degrees, test_results = read_per_node_csv(args.per_node_csv)
+else:
+    with open(OUT_DEG, "r") as f:
+        for line in f:
+            line = line.strip()
+            if not line or ":" not in line:
+                continue
+            id_part, degree_part = line.split(":", 1)
+            ids.append(id_part.strip())
+            try:
+                out_degrees.append(int(degree_part.strip()))
+            except ValueError:
+                print(f"Warning: could not convert {degree_part.strip()} to integer.")
+
+    # Parse test results file with multiple runs per test
+    current_test = None
+    current_run = []
+
+    with open(TEST_RESULTS, "r") as f:
+        for line in f:
+            line = line.strip()
+            if not line:
+                continue
+            if line.isdigit():
+                if current_test is None:
+                    print("Error: numeric value encountered before any test name.")
+                else:
+                    current_run.append(int(line))
             else:
-                current_run.append(int(line))
-        else:
-            if current_test is not None and current_run:
-                test_results.setdefault(current_test, []).append(current_run)
-                current_run = []
-            current_test = line
-    if current_test is not None and current_run:
-        test_results.setdefault(current_test, []).append(current_run)
+                if current_test is not None and current_run:
+                    test_results.setdefault(current_test, []).append(current_run)
+                    current_run = []
+                current_test = line
+        if current_test is not None and current_run:
+            test_results.setdefault(current_test, []).append(current_run)
 
 # Filter and average test results as before
 for test_name_key in list(test_results.keys()):
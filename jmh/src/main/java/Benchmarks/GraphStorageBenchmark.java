@@ -0,0 +1,310 @@
+package Benchmarks;
+
+import Exceptions.InvalidNodeAccessException;
+import GML.ParallelTabImporter;
+import Graphs.Disk.AdjacencyList.AdjacencyListDiskGraph;
+import Graphs.Disk.CSR.CSRDiskGraph;
+import Graphs.Disk.EdgeBatch;
+import Graphs.Disk.EdgeListDiskGraph;
+import Graphs.Disk.Neo4j.Neo4jDiskGraph;
+import Graphs.Edge;
+import Graphs.EdgeCursor;
+import Graphs.IGraph;
+import Graphs.Memory.CSRGraph;
+import Graphs.Memory.EdgeListGraph;
+import Graphs.Memory.IntAdjListGraph;
+import Graphs.Memory.IntAdjMatrixGraph;
+import Graphs.Memory.Neo4j.IntNeo4jGraph;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JMH benchmarks of the single node operations of every store, in steady state rather than the
+ * single cold calls {@code QueryBenchmark} times. Reads run against a store loaded once per trial
+ * from the dataset, undirected as {@code QueryBenchmark} loads it, and pick their node at random
+ * from a degree bucket, so low and high degree nodes are reported apart. Writes create a fresh store
+ * inside every call, add a fixed batch and drop the store again, reported per operation. Creating
+ * and dropping the store is measured on its own by {@link #createStore} and
+ * {@link #createStoreWithNodes}, the write times are high by that cost divided by the batch size.
+ * <p>
+ * The dataset is read from the {@code dataset} system property, by default
+ * {@code datasets/email-Eu-core.txt} relative to the working directory. The forks do not inherit
+ * the property, pass it with {@code -jvmArgsAppend -Ddataset=...}.
+ * <p>
+ * Built by {@code jmh/pom.xml}, which compiles {@code src} alongside, and run from the repository
+ * root:
+ * <pre>
+ * mvn -f jmh/pom.xml package
+ * java --enable-preview -jar jmh/target/benchmarks.jar GraphStorageBenchmark
+ * </pre>
+ * <p>
+ * JMH cannot generate code for benchmarks in the unnamed package, so the stores are listed here
+ * rather than through {@code GraphType} and {@code GraphFactory}, and must be kept in step with them.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class GraphStorageBenchmark {
+    public static final int NODE_BATCH = 1_000;
+    public static final int EDGE_BATCH = 10_000;
+
+    public enum Store {
+        NEO4J, ADJ_MATRIX, EDGE_LIST, ADJ_LIST, CSR, EDGE_LIST_DISK, ADJ_LIST_DISK, NEO4J_DISK, CSR_DISK;
+
+        boolean usesDisk() {
+            return ordinal() >= EDGE_LIST_DISK.ordinal();
+        }
+
+        IGraph<Integer> create(File directory) throws IOException {
+            String path = directory == null ? null : directory.getPath();
+            return switch (this) {
+                case NEO4J -> new IntNeo4jGraph();
+                case ADJ_MATRIX -> new IntAdjMatrixGraph();
+                case EDGE_LIST -> new EdgeListGraph<>();
+                case ADJ_LIST -> new IntAdjListGraph();
+                case CSR -> new CSRGraph();
+                case EDGE_LIST_DISK -> new EdgeListDiskGraph(path);
+                case ADJ_LIST_DISK -> new AdjacencyListDiskGraph(path);
+                case NEO4J_DISK -> new Neo4jDiskGraph(path);
+                case CSR_DISK -> new CSRDiskGraph(path);
+            };
+        }
+    }
+
+    /**
+     * Out degree ranges of the nodes read by the read benchmarks.
+     */
+    public enum DegreeBucket {
+        LOW(1, 9), MID(10, 99), HIGH(100, Integer.MAX_VALUE);
+
+        final int min;
+        final int max;
+
+        DegreeBucket(int min, int max) {
+            this.min = min;
+            this.max = max;
+        }
+    }
+
+    /**
+     * An empty store, created and dropped around each use.
+     */
+    private static class OpenStore {
+        IGraph<Integer> graph;
+        File directory;
+
+        void open(Store store) throws IOException {
+            directory = store.usesDisk() ? Files.createTempDirectory("jmh-" + store.name()).toFile() : null;
+            graph = store.create(directory);
+        }
+
+        void close() throws Exception {
+            graph.close();
+            graph = null;
+            if (directory != null) {
+                File[] files = directory.listFiles();
+                if (files != null) {
+                    for (File file : files) {
+                        file.delete();
+                    }
+                }
+                directory.delete();
+                directory = null;
+            }
+        }
+    }
+
+    /**
+     * The relationships of the dataset, in file order, and its node ids.
+     */
+    @State(Scope.Benchmark)
+    public static class Dataset {
+        EdgeBatch edges;
+        int[] nodes;
+
+        @Setup(Level.Trial)
+        public void read() throws IOException {
+            edges = new EdgeBatch();
+            var seen = new BitSet();
+            try (var br = new BufferedReader(new FileReader(path()))) {
+                String line;
+                while ((line = br.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) continue;
+                    String[] tokens = line.split("\\s+");
+                    int source = Integer.parseInt(tokens[0]);
+                    int target = Integer.parseInt(tokens[1]);
+                    edges.add(source, target);
+                    seen.set(source);
+                    seen.set(target);
+                }
+            }
+            nodes = seen.stream().toArray();
+        }
+
+        static String path() {
+            return System.getProperty("dataset", "datasets/email-Eu-core.txt");
+        }
+    }
+
+    /**
+     * A store holding the whole dataset, shared by the read benchmarks of a trial.
+     */
+    @State(Scope.Benchmark)
+    public static class LoadedStore {
+        @Param
+        public Store store;
+
+        final OpenStore open = new OpenStore();
+
+        @Setup(Level.Trial)
+        public void load() throws IOException {
+            open.open(store);
+            ParallelTabImporter.readGraph(Dataset.path(), open.graph, false);
+        }
+
+        @TearDown(Level.Trial)
+        public void close() throws Exception {
+            open.close();
+        }
+    }
+
+    /**
+     * The nodes of the loaded store whose out degree falls in the bucket.
+     */
+    @State(Scope.Benchmark)
+    public static class BucketNodes {
+        @Param
+        public DegreeBucket degree;
+
+        int[] nodes;
+
+        @Setup(Level.Trial)
+        public void pick(LoadedStore loaded, Dataset dataset) throws InvalidNodeAccessException, IOException {
+            var picked = new ArrayList<Integer>();
+            EdgeCursor<Integer> cursor = null;
+            for (int node : dataset.nodes) {
+                if (cursor == null) {
+                    cursor = loaded.open.graph.openEdgeCursor(node);
+                } else {
+                    cursor.reset(node);
+                }
+                int outDegree = 0;
+                while (cursor.next()) {
+                    outDegree++;
+                }
+                if (outDegree >= degree.min && outDegree <= degree.max) picked.add(node);
+            }
+            if (picked.isEmpty()) {
+                throw new IllegalStateException("No nodes with an out degree in " + degree + ".");
+            }
+            nodes = picked.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        int next() {
+            return nodes[ThreadLocalRandom.current().nextInt(nodes.length)];
+        }
+    }
+
+    /**
+     * The store type of the write benchmarks, which create their store inside the call. A setup
+     * at {@code Level.Invocation} has JMH timestamp every call on its own, which is unreliable for
+     * calls this short.
+     */
+    @State(Scope.Benchmark)
+    public static class StoreType {
+        @Param
+        public Store store;
+    }
+
+    @Benchmark
+    public void createStore(StoreType type, Blackhole bh) throws Exception {
+        var open = new OpenStore();
+        open.open(type.store);
+        // Keeps the JIT from dropping an in-memory store that is never used.
+        bh.consume(open.graph);
+        open.close();
+    }
+
+    @Benchmark
+    public void createStoreWithNodes(StoreType type, Dataset dataset) throws Exception {
+        var open = new OpenStore();
+        open.open(type.store);
+        try {
+            addNodes(open.graph, dataset);
+        } finally {
+            open.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(NODE_BATCH)
+    public void addNode(StoreType type) throws Exception {
+        var open = new OpenStore();
+        open.open(type.store);
+        try {
+            var graph = open.graph;
+            for (int node = 0; node < NODE_BATCH; node++) {
+                graph.addNode(node);
+            }
+        } finally {
+            open.close();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EDGE_BATCH)
+    public void addRelationship(StoreType type, Dataset dataset) throws Exception {
+        var open = new OpenStore();
+        open.open(type.store);
+        try {
+            var graph = open.graph;
+            addNodes(graph, dataset);
+            var edges = dataset.edges;
+            for (int i = 0; i < EDGE_BATCH; i++) {
+                int at = i % edges.size();
+                graph.addRelationship("default", edges.source(at), edges.target(at));
+            }
+        } finally {
+            open.close();
+        }
+    }
+
+    @Benchmark
+    public void getRelationships(LoadedStore loaded, BucketNodes bucket, Blackhole bh) throws InvalidNodeAccessException, IOException {
+        for (Iterator<Edge<Integer>> it = loaded.open.graph.getRelationships(bucket.next()); it.hasNext(); ) {
+            bh.consume(it.next());
+        }
+    }
+
+    @Benchmark
+    public Edge<Integer> getRandomRelationship(LoadedStore loaded, BucketNodes bucket) throws InvalidNodeAccessException, IOException {
+        return loaded.open.graph.getRandomRelationship(bucket.next());
+    }
+
+    @Benchmark
+    public void getNodes(LoadedStore loaded, Blackhole bh) throws IOException {
+        for (Iterator<Integer> it = loaded.open.graph.getNodes(); it.hasNext(); ) {
+            bh.consume(it.next());
+        }
+    }
+
+    private static void addNodes(IGraph<Integer> graph, Dataset dataset) throws IOException {
+        for (int node : dataset.nodes) {
+            graph.addNode(node);
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package Algos;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * The merge history of an agglomerative clustering over vertices 0..N-1. Vertex i starts as
+ * community i and merge k joins two live communities into community N + k, so the whole history
+ * is a handful of primitive arrays and any cut of it is rebuilt on demand in O(N).
+ * <p>
+ * Step s is the partition after the first s merges, step 0 being every vertex on its own.
+ */
+public class Dendrogram {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int vertexCount;
+    private int[] community1 = new int[INITIAL_CAPACITY];
+    private int[] community2 = new int[INITIAL_CAPACITY];
+    private double[] deltaSigmas = new double[INITIAL_CAPACITY];
+    // modularities[s] is the modularity of step s, so it holds one more entry than the merges.
+    private double[] modularities = new double[INITIAL_CAPACITY + 1];
+    private int mergeCount = 0;
+
+    public Dendrogram(int vertexCount, double initialModularity) {
+        this.vertexCount = vertexCount;
+        modularities[0] = initialModularity;
+    }
+
+    /**
+     * Records the next merge.
+     *
+     * @param c1         the first community merged.
+     * @param c2         the second community merged.
+     * @param deltaSigma the delta sigma of the merge.
+     * @param modularity the modularity of the partition after the merge.
+     * @return the id of the merged community.
+     */
+    public int addMerge(int c1, int c2, double deltaSigma, double modularity) {
+        if (mergeCount == community1.length) {
+            int newLength = mergeCount * 2;
+            community1 = Arrays.copyOf(community1, newLength);
+            community2 = Arrays.copyOf(community2, newLength);
+            deltaSigmas = Arrays.copyOf(deltaSigmas, newLength);
+            modularities = Arrays.copyOf(modularities, newLength + 1);
+        }
+        community1[mergeCount] = c1;
+        community2[mergeCount] = c2;
+        deltaSigmas[mergeCount] = deltaSigma;
+        modularities[mergeCount + 1] = modularity;
+        return vertexCount + mergeCount++;
+    }
+
+    public int vertexCount() {
+        return vertexCount;
+    }
+
+    public int mergeCount() {
+        return mergeCount;
+    }
+
+    public int community1(int merge) {
+        return community1[merge];
+    }
+
+    public int community2(int merge) {
+        return community2[merge];
+    }
+
+    public int mergedCommunity(int merge) {
+        return vertexCount + merge;
+    }
+
+    public double deltaSigma(int merge) {
+        return deltaSigmas[merge];
+    }
+
+    /**
+     * Returns the modularity of the partition after the given number of merges.
+     */
+    public double modularity(int step) {
+        return modularities[step];
+    }
+
+    /**
+     * Returns the step with the highest modularity, the earliest one on ties.
+     */
+    public int bestStep() {
+        int best = 0;
+        for (int step = 1; step <= mergeCount; step++) {
+            if (modularities[step] > modularities[best]) {
+                best = step;
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the ids of the communities alive after the given number of merges.
+     */
+    public Set<Integer> partition(int step) {
+        boolean[] merged = new boolean[vertexCount + step];
+        for (int k = 0; k < step; k++) {
+            merged[community1[k]] = true;
+            merged[community2[k]] = true;
+        }
+        Set<Integer> partition = new HashSet<>();
+        for (int id = 0; id < merged.length; id++) {
+            if (!merged[id]) partition.add(id);
+        }
+        return partition;
+    }
+
+    /**
+     * Returns the community of every vertex after the given number of merges.
+     *
+     * @param step the number of merges to apply.
+     * @return an array holding the community id of each vertex.
+     */
+    public int[] assignment(int step) {
+        // Each community points at the community it was merged into, roots are still alive.
+        int[] parent = new int[vertexCount + step];
+        for (int id = 0; id < parent.length; id++) {
+            parent[id] = id;
+        }
+        for (int k = 0; k < step; k++) {
+            parent[community1[k]] = vertexCount + k;
+            parent[community2[k]] = vertexCount + k;
+        }
+
+        int[] assignment = new int[vertexCount];
+        for (int v = 0; v < vertexCount; v++) {
+            int root = v;
+            while (parent[root] != root) {
+                root = parent[root];
+            }
+            // Point the walked path straight at the root, so later vertices stop early.
+            for (int id = v; parent[id] != root && id != root; ) {
+                int next = parent[id];
+                parent[id] = root;
+                id = next;
+            }
+            assignment[v] = root;
+        }
+        return assignment;
+    }
+}
@@ -0,0 +1,39 @@
+package Algos;
+
+/**
+ * A probability vector holding an entry for every vertex.
+ */
+public class DenseProbabilityVector implements ProbabilityVector {
+    private final double[] values;
+
+    public DenseProbabilityVector(double[] values) {
+        this.values = values;
+    }
+
+    @Override
+    public double weightedDistance(ProbabilityVector other, double[] weights) {
+        double[] otherValues = ((DenseProbabilityVector) other).values;
+        double sumSq = 0.0;
+        for (int j = 0; j < values.length; j++) {
+            double diff = weights[j] * values[j] - weights[j] * otherValues[j];
+            sumSq += diff * diff;
+        }
+        return sumSq;
+    }
+
+    @Override
+    public ProbabilityVector merge(int size, ProbabilityVector other, int otherSize) {
+        double[] otherValues = ((DenseProbabilityVector) other).values;
+        int mergedSize = size + otherSize;
+        double[] merged = new double[values.length];
+        for (int j = 0; j < values.length; j++) {
+            merged[j] = (size * values[j] + otherSize * otherValues[j]) / mergedSize;
+        }
+        return new DenseProbabilityVector(merged);
+    }
+
+    @Override
+    public int storedEntries() {
+        return values.length;
+    }
+}
@@ -0,0 +1,28 @@
+package Algos;
+
+/**
+ * The weighted distance loop of {@link DenseFloatProbabilityVector}, for an implementation on the
+ * incubating Vector API. That implementation lives outside {@code src}, in {@code vector/}, so the
+ * rest of the tree builds without {@code jdk.incubator.vector}, and is only found at run time.
+ */
+interface FloatDistanceKernel {
+    String VECTOR_KERNEL = "Algos.VectorFloatDistance";
+
+    /**
+     * Returns the sum over j of (w[j] * (a[j] - b[j]))^2.
+     */
+    double weightedDistance(float[] a, float[] b, float[] w);
+
+    /**
+     * Loads the Vector API kernel.
+     *
+     * @return the kernel, or null if it is not on the class path or the module is not added.
+     */
+    static FloatDistanceKernel loadVectorKernel() {
+        try {
+            return (FloatDistanceKernel) Class.forName(VECTOR_KERNEL).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
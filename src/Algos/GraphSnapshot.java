@@ -0,0 +1,119 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.EdgeCursor;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * A read-only copy of a graph's structure for the algorithms, with nodes numbered 0..N-1 and the
+ * neighbors of each node held as a sorted, duplicate free run of an int array (CSR layout). Memory
+ * is O(N + E) and the graph is only read once, whatever store it lives in.
+ * <p>
+ * Nodes are numbered in the iteration order of a HashSet of the nodes.
+ *
+ * @param <T> the type of nodes in the graph.
+ */
+public class GraphSnapshot<T> {
+    private final List<T> nodes;
+    private final Map<T, Integer> nodeToIndex;
+    private final int[] offsets;
+    private final int[] targets;
+
+    public GraphSnapshot(IGraph<T> graph) throws InvalidNodeAccessException, IOException {
+        Set<T> nodeSet = new HashSet<>();
+        for (Iterator<T> it = graph.getNodes(); it.hasNext(); ) {
+            nodeSet.add(it.next());
+        }
+        nodes = new ArrayList<>(nodeSet);
+        nodeToIndex = new HashMap<>();
+        for (int i = 0; i < nodes.size(); i++) {
+            nodeToIndex.put(nodes.get(i), i);
+        }
+
+        int n = nodes.size();
+        offsets = new int[n + 1];
+        int[] row = new int[16];
+        int[] all = new int[16];
+        EdgeCursor<T> cursor = null;
+        for (int i = 0; i < n; i++) {
+            T u = nodes.get(i);
+            if (cursor == null) {
+                cursor = graph.openEdgeCursor(u);
+            } else {
+                cursor.reset(u);
+            }
+            int len = 0;
+            while (cursor.next()) {
+                if (len == row.length) row = Arrays.copyOf(row, len * 2);
+                row[len++] = nodeToIndex.get(cursor.target());
+            }
+
+            // Parallel relationships collapse into one neighbor.
+            Arrays.sort(row, 0, len);
+            int start = offsets[i];
+            if (start + len > all.length) {
+                all = Arrays.copyOf(all, Math.max(start + len, all.length * 2));
+            }
+            int end = start;
+            for (int k = 0; k < len; k++) {
+                if (k == 0 || row[k] != row[k - 1]) {
+                    all[end++] = row[k];
+                }
+            }
+            offsets[i + 1] = end;
+        }
+        targets = Arrays.copyOf(all, offsets[n]);
+    }
+
+    /**
+     * Returns the number of nodes.
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Returns the number of distinct (source, target) pairs.
+     */
+    public int edgeCount() {
+        return targets.length;
+    }
+
+    public T node(int index) {
+        return nodes.get(index);
+    }
+
+    /**
+     * Returns the index of a node, or -1 if it is not in the snapshot.
+     */
+    public int indexOf(T node) {
+        Integer index = nodeToIndex.get(node);
+        return index == null ? -1 : index;
+    }
+
+    public int degree(int index) {
+        return offsets[index + 1] - offsets[index];
+    }
+
+    /**
+     * Returns the offset in {@link #targets()} of the first neighbor of a node, the neighbors of
+     * node i are {@code targets()[offset(i)]} up to {@code targets()[offset(i + 1)]}.
+     */
+    public int offset(int index) {
+        return offsets[index];
+    }
+
+    /**
+     * Returns the shared neighbor array, which must not be modified.
+     */
+    public int[] targets() {
+        return targets;
+    }
+
+    public boolean hasEdge(int source, int target) {
+        return Arrays.binarySearch(targets, offsets[source], offsets[source + 1], target) >= 0;
+    }
+}
@@ -0,0 +1,237 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Asynchronous label propagation (Raghavan, Albert and Kumara, 2007). Every node starts with a
+ * label of its own and repeatedly takes the label most common among its neighbors, so each
+ * iteration costs O(E) and dense groups settle on one label within a few iterations. Relationships
+ * are followed in both directions.
+ * <p>
+ * Labels are updated in place while other nodes are visited, also by other threads, so with more
+ * than one thread the result depends on the scheduling. Nodes are visited in a shuffled order that
+ * is fixed per run, and a node keeps its label when it is among the most common. Other ties go to
+ * the label ranked first by a hash of the label, the node and the iteration, as always taking the
+ * smallest label lets one label sweep over loosely connected groups.
+ *
+ * @param <T> the type of nodes in the graph.
+ */
+public class LabelPropagation<T> {
+    private final IGraph<T> graph;
+    private final boolean verbose;
+    private long seed = 8675309;
+    private double minChangeFraction = 0.001;
+    private int maxIterations = 100;
+    private ForkJoinPool pool = null;
+    private int threads = 1;
+
+    public LabelPropagation(IGraph<T> graph, boolean verbose) {
+        this.graph = graph;
+        this.verbose = verbose;
+    }
+
+    /**
+     * Stops once an iteration changes the labels of fewer than this fraction of the nodes.
+     *
+     * @param minChangeFraction the fraction of changed labels below which to stop, 0 runs until
+     *                          no label changes.
+     */
+    public void setMinChangeFraction(double minChangeFraction) {
+        this.minChangeFraction = minChangeFraction;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Seeds the node order and tie breaking, every run with the same seed gives the same labels
+     * when run sequentially.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the iterations on the given pool, see {@link ParallelRanges#withPool}.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the iterations on a pool of the given number of threads, see
+     * {@link ParallelRanges#withPool}.
+     *
+     * @param threads the number of threads, 1 runs sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public LabelPropagationResult run() throws InvalidNodeAccessException, IOException {
+        return ParallelRanges.withPool(pool, threads, this::runLabelPropagation);
+    }
+
+    private LabelPropagationResult runLabelPropagation(ForkJoinPool activePool)
+            throws InvalidNodeAccessException, IOException {
+        GraphSnapshot<T> snapshot = new GraphSnapshot<>(graph);
+        int n = snapshot.size();
+        int[] offsets = new int[n + 1];
+        int[] targets = undirectedNeighbors(snapshot, offsets);
+
+        Random rand = new Random(seed);
+        int[] labels = new int[n];
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            labels[i] = i;
+            order[i] = i;
+        }
+        for (int i = n - 1; i > 0; i--) {
+            int j = rand.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+
+        ThreadLocal<int[]> counts = ThreadLocal.withInitial(() -> new int[n]);
+        ThreadLocal<int[]> touched = ThreadLocal.withInitial(() -> new int[n]);
+        int iterations = 0;
+        while (iterations < maxIterations) {
+            AtomicInteger changed = new AtomicInteger();
+            int salt = rand.nextInt();
+            ParallelRanges.forEach(activePool, n, (from, to) -> {
+                int[] count = counts.get();
+                int[] seen = touched.get();
+                int rangeChanged = 0;
+                for (int a = from; a < to; a++) {
+                    int u = order[a];
+                    int seenCount = 0;
+                    for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+                        int v = targets[e];
+                        if (v == u) continue;
+                        int label = labels[v];
+                        if (count[label]++ == 0) seen[seenCount++] = label;
+                    }
+                    if (seenCount == 0) continue;
+
+                    int current = labels[u];
+                    int nodeSalt = salt ^ (u * 0x85EBCA6B);
+                    int best = current;
+                    int bestCount = count[current];
+                    for (int s = 0; s < seenCount; s++) {
+                        int label = seen[s];
+                        if (count[label] > bestCount || (count[label] == bestCount && best != current
+                                && tieRank(label, nodeSalt) < tieRank(best, nodeSalt))) {
+                            best = label;
+                            bestCount = count[label];
+                        }
+                        count[label] = 0;
+                    }
+                    if (best != current) {
+                        labels[u] = best;
+                        rangeChanged++;
+                    }
+                }
+                changed.addAndGet(rangeChanged);
+            });
+            iterations++;
+            if (verbose) {
+                System.out.println("Iteration " + iterations + ": " + changed.get() + " labels changed");
+            }
+            if (changed.get() == 0 || changed.get() < minChangeFraction * n) break;
+        }
+
+        // Renumber the labels 0..K-1 in node order.
+        int[] newLabel = new int[n];
+        Arrays.fill(newLabel, -1);
+        int communityCount = 0;
+        for (int i = 0; i < n; i++) {
+            if (newLabel[labels[i]] == -1) newLabel[labels[i]] = communityCount++;
+            labels[i] = newLabel[labels[i]];
+        }
+        return new LabelPropagationResult(labels, communityCount, iterations, snapshot);
+    }
+
+    /**
+     * Returns the neighbors of every node over relationships in either direction, sorted and
+     * without duplicates, with the offset of each node's run filled into {@code offsets}.
+     */
+    private static int[] undirectedNeighbors(GraphSnapshot<?> snapshot, int[] offsets) {
+        int n = snapshot.size();
+        int[] directed = snapshot.targets();
+        int[] starts = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                starts[i + 1]++;
+                starts[directed[e] + 1]++;
+            }
+        }
+        for (int i = 0; i < n; i++) {
+            starts[i + 1] += starts[i];
+        }
+        int[] both = new int[starts[n]];
+        int[] fill = Arrays.copyOf(starts, n);
+        for (int i = 0; i < n; i++) {
+            for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                both[fill[i]++] = directed[e];
+                both[fill[directed[e]]++] = i;
+            }
+        }
+
+        int out = 0;
+        for (int i = 0; i < n; i++) {
+            Arrays.sort(both, starts[i], starts[i + 1]);
+            offsets[i] = out;
+            for (int a = starts[i]; a < starts[i + 1]; a++) {
+                if (a == starts[i] || both[a] != both[a - 1]) both[out++] = both[a];
+            }
+        }
+        offsets[n] = out;
+        return Arrays.copyOf(both, out);
+    }
+
+    private static int tieRank(int label, int salt) {
+        int h = (label ^ salt) * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    public class LabelPropagationResult {
+        private final int[] communityOf;
+        private final int communityCount;
+        public final int iterations;
+        private final GraphSnapshot<T> snapshot;
+
+        public LabelPropagationResult(int[] communityOf, int communityCount, int iterations,
+                                      GraphSnapshot<T> snapshot) {
+            this.communityOf = communityOf;
+            this.communityCount = communityCount;
+            this.iterations = iterations;
+            this.snapshot = snapshot;
+        }
+
+        public int communityCount() {
+            return communityCount;
+        }
+
+        /**
+         * Returns the community of every node, in the same form as
+         * {@link Walktrap.WalktrapResult#bestAssignment()}.
+         */
+        public Map<T, Integer> bestAssignment() {
+            Map<T, Integer> assignment = new HashMap<>();
+            for (int v = 0; v < communityOf.length; v++) {
+                assignment.put(snapshot.node(v), communityOf[v]);
+            }
+            return assignment;
+        }
+    }
+}
@@ -0,0 +1,564 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Louvain community detection (Blondel et al., 2008) with the refinement step of Leiden (Traag
+ * et al., 2019). Each level moves nodes between communities while modularity improves, refines
+ * every community into well-connected subcommunities and aggregates the subcommunities into the
+ * nodes of the next level, until a level merges nothing.
+ * <p>
+ * The graph is treated as undirected and unweighted, parallel relationships counting once. Moves
+ * are proposed in parallel against the state at the start of a round and applied in node order,
+ * each one checked again against the live state, and refinement runs per community in parallel, so
+ * the result is the same for any number of threads.
+ *
+ * @param <T> the type of nodes in the graph.
+ */
+public class Louvain<T> {
+    private static final int MAX_LEVELS = 64;
+    private static final int MAX_ROUNDS = 100;
+    // Rounds stop once the modularity gained by a round falls below this.
+    private static final double MIN_GAIN = 1e-7;
+
+    private final IGraph<T> graph;
+    private final boolean verbose;
+    private double resolution = 1.0;
+    private boolean refine = true;
+    private ForkJoinPool pool = null;
+    private int threads = 1;
+
+    private ForkJoinPool activePool;
+    // Kept per thread across ranges, rounds and levels, as every range would otherwise allocate
+    // three arrays of n.
+    private final ThreadLocal<MoveWorkspace> workspaces = new ThreadLocal<>();
+
+    public Louvain(IGraph<T> graph, boolean verbose) {
+        this.graph = graph;
+        this.verbose = verbose;
+    }
+
+    /**
+     * Sets the resolution of the modularity, higher values giving smaller communities.
+     *
+     * @param resolution the resolution, 1 for the standard modularity.
+     */
+    public void setResolution(double resolution) {
+        this.resolution = resolution;
+    }
+
+    /**
+     * Turns the Leiden refinement on or off. Without it this is plain Louvain, which may leave
+     * communities that are internally disconnected.
+     *
+     * @param refine whether to refine communities before aggregating them.
+     */
+    public void setRefine(boolean refine) {
+        this.refine = refine;
+    }
+
+    /**
+     * Runs the parallel phases on the given pool, see {@link ParallelRanges#withPool}.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the parallel phases on a pool of the given number of threads, see
+     * {@link ParallelRanges#withPool}.
+     *
+     * @param threads the number of threads, 1 runs sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public LouvainResult run() throws InvalidNodeAccessException, IOException {
+        return ParallelRanges.withPool(pool, threads, runPool -> {
+            activePool = runPool;
+            try {
+                return runLouvain();
+            } finally {
+                activePool = null;
+            }
+        });
+    }
+
+    private LouvainResult runLouvain() throws InvalidNodeAccessException, IOException {
+        GraphSnapshot<T> snapshot = new GraphSnapshot<>(graph);
+        Level original = Level.of(snapshot);
+        Level level = original;
+
+        // membership maps each vertex to its node in the current level.
+        int[] membership = identity(original.n);
+        int[] communities = identity(level.n);
+        int levels = 0;
+        while (levels < MAX_LEVELS) {
+            int moves = moveNodes(level, communities);
+            int communityCount = relabel(communities);
+            levels++;
+            if (verbose) {
+                System.out.println("Level " + levels + ": " + level.n + " nodes, " + moves + " moves, "
+                        + communityCount + " communities");
+            }
+            if (communityCount == level.n) break;
+
+            // The next level is built from the refined subcommunities, which start out in the
+            // community that holds them, or straight from the communities without refinement.
+            int[] aggregateOf;
+            int aggregateCount;
+            int[] nextCommunities;
+            if (refine) {
+                aggregateOf = refine(level, communities, communityCount);
+                aggregateCount = relabel(aggregateOf);
+                nextCommunities = new int[aggregateCount];
+                for (int i = 0; i < level.n; i++) {
+                    nextCommunities[aggregateOf[i]] = communities[i];
+                }
+            } else {
+                aggregateOf = communities;
+                aggregateCount = communityCount;
+                nextCommunities = identity(aggregateCount);
+            }
+            if (aggregateCount == level.n) break;
+
+            level = aggregate(level, aggregateOf, aggregateCount);
+            for (int v = 0; v < membership.length; v++) {
+                membership[v] = aggregateOf[membership[v]];
+            }
+            communities = nextCommunities;
+        }
+
+        int[] communityOf = new int[original.n];
+        for (int v = 0; v < communityOf.length; v++) {
+            communityOf[v] = communities[membership[v]];
+        }
+        int communityCount = relabel(communityOf);
+        return new LouvainResult(communityOf, communityCount, modularity(original, communityOf, communityCount),
+                levels, snapshot);
+    }
+
+    /**
+     * Moves nodes to the neighboring community with the best modularity gain until a round gains
+     * too little.
+     *
+     * @param level       the graph of the level.
+     * @param communities the community of each node, updated in place.
+     * @return the number of moves made.
+     */
+    private int moveNodes(Level level, int[] communities) {
+        int n = level.n;
+        double[] totals = new double[n];
+        for (int i = 0; i < n; i++) {
+            totals[communities[i]] += level.strength[i];
+        }
+
+        int[] proposals = new int[n];
+        MoveWorkspace workspace = new MoveWorkspace(n);
+        int totalMoves = 0;
+        for (int round = 0; round < MAX_ROUNDS; round++) {
+            ParallelRanges.forEach(activePool, n, (from, to) -> {
+                MoveWorkspace ws = workspace(n);
+                for (int i = from; i < to; i++) {
+                    proposals[i] = bestCommunity(level, communities, totals, i, ws);
+                }
+            });
+
+            int moves = 0;
+            double gain = 0.0;
+            for (int i = 0; i < n; i++) {
+                if (proposals[i] == communities[i]) continue;
+                // Earlier moves this round may have changed the picture, so ask again.
+                int best = bestCommunity(level, communities, totals, i, workspace);
+                if (best == communities[i]) continue;
+                totals[communities[i]] -= level.strength[i];
+                totals[best] += level.strength[i];
+                communities[i] = best;
+                gain += workspace.gain;
+                moves++;
+            }
+            totalMoves += moves;
+            if (moves == 0 || 2 * gain / level.totalWeight < MIN_GAIN) break;
+        }
+        return totalMoves;
+    }
+
+    /**
+     * Returns the community node i gains the most modularity by moving to, its own when no move
+     * gains anything. Ties go to the smallest community id. The gain is left in the workspace.
+     */
+    private int bestCommunity(Level level, int[] communities, double[] totals, int i, MoveWorkspace ws) {
+        int touchedCount = 0;
+        for (int e = level.offsets[i]; e < level.offsets[i + 1]; e++) {
+            int j = level.targets[e];
+            if (j == i) continue;
+            int c = communities[j];
+            if (!ws.seen[c]) {
+                ws.seen[c] = true;
+                ws.touched[touchedCount++] = c;
+            }
+            ws.weightTo[c] += level.weights[e];
+        }
+
+        int own = communities[i];
+        double k = level.strength[i];
+        double scale = resolution * k / level.totalWeight;
+        double stayGain = ws.weightTo[own] - scale * (totals[own] - k);
+        int best = own;
+        double bestGain = stayGain;
+        for (int a = 0; a < touchedCount; a++) {
+            int c = ws.touched[a];
+            ws.seen[c] = false;
+            if (c != own) {
+                double g = ws.weightTo[c] - scale * totals[c];
+                if (g > bestGain || (g == bestGain && best != own && c < best)) {
+                    best = c;
+                    bestGain = g;
+                }
+            }
+        }
+        for (int a = 0; a < touchedCount; a++) {
+            ws.weightTo[ws.touched[a]] = 0.0;
+        }
+        ws.gain = bestGain - stayGain;
+        return best;
+    }
+
+    /**
+     * Splits every community into subcommunities, starting from singletons and merging a singleton
+     * node into the subcommunity of its community it gains the most from. Only nodes and
+     * subcommunities well connected to the rest of their community take part, so every
+     * subcommunity is connected.
+     *
+     * @return the subcommunity of each node, named after one of its nodes.
+     */
+    private int[] refine(Level level, int[] communities, int communityCount) {
+        int n = level.n;
+        double[] totals = new double[communityCount];
+        int[] memberOffsets = new int[communityCount + 1];
+        for (int i = 0; i < n; i++) {
+            totals[communities[i]] += level.strength[i];
+            memberOffsets[communities[i] + 1]++;
+        }
+        for (int c = 0; c < communityCount; c++) {
+            memberOffsets[c + 1] += memberOffsets[c];
+        }
+        int[] members = new int[n];
+        int[] fill = Arrays.copyOf(memberOffsets, communityCount);
+        for (int i = 0; i < n; i++) {
+            members[fill[communities[i]]++] = i;
+        }
+
+        int[] refined = identity(n);
+        double[] subTotals = level.strength.clone();
+        // The weight from a subcommunity to the rest of its community.
+        double[] subExternal = new double[n];
+        boolean[] singleton = new boolean[n];
+        Arrays.fill(singleton, true);
+
+        // Communities share no nodes, so each one is refined by a single thread.
+        ParallelRanges.forEach(activePool, communityCount, (from, to) -> {
+            MoveWorkspace ws = workspace(n);
+            for (int c = from; c < to; c++) {
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    int i = members[m];
+                    for (int e = level.offsets[i]; e < level.offsets[i + 1]; e++) {
+                        int j = level.targets[e];
+                        if (j != i && communities[j] == c) subExternal[i] += level.weights[e];
+                    }
+                }
+
+                double total = totals[c];
+                double scale = resolution / level.totalWeight;
+                for (int m = memberOffsets[c]; m < memberOffsets[c + 1]; m++) {
+                    int i = members[m];
+                    double k = level.strength[i];
+                    if (!singleton[i] || subExternal[i] < scale * k * (total - k)) continue;
+
+                    int touchedCount = 0;
+                    for (int e = level.offsets[i]; e < level.offsets[i + 1]; e++) {
+                        int j = level.targets[e];
+                        if (j == i || communities[j] != c) continue;
+                        int r = refined[j];
+                        if (!ws.seen[r]) {
+                            ws.seen[r] = true;
+                            ws.touched[touchedCount++] = r;
+                        }
+                        ws.weightTo[r] += level.weights[e];
+                    }
+
+                    int best = -1;
+                    double bestGain = 0.0;
+                    for (int a = 0; a < touchedCount; a++) {
+                        int r = ws.touched[a];
+                        ws.seen[r] = false;
+                        if (subExternal[r] < scale * subTotals[r] * (total - subTotals[r])) continue;
+                        double g = ws.weightTo[r] - scale * k * subTotals[r];
+                        if (g >= 0 && (best == -1 || g > bestGain || (g == bestGain && r < best))) {
+                            best = r;
+                            bestGain = g;
+                        }
+                    }
+                    if (best != -1) {
+                        refined[i] = best;
+                        subTotals[best] += k;
+                        subExternal[best] += subExternal[i] - 2 * ws.weightTo[best];
+                        singleton[i] = false;
+                        singleton[best] = false;
+                    }
+                    for (int a = 0; a < touchedCount; a++) {
+                        ws.weightTo[ws.touched[a]] = 0.0;
+                    }
+                }
+            }
+        });
+        return refined;
+    }
+
+    /**
+     * Builds the next level, with one node per group and the weight between two nodes the sum of
+     * the weights between their groups. The weight inside a group becomes a self loop.
+     */
+    private Level aggregate(Level level, int[] groupOf, int groupCount) {
+        int[] memberOffsets = new int[groupCount + 1];
+        for (int i = 0; i < level.n; i++) {
+            memberOffsets[groupOf[i] + 1]++;
+        }
+        for (int g = 0; g < groupCount; g++) {
+            memberOffsets[g + 1] += memberOffsets[g];
+        }
+        int[] members = new int[level.n];
+        int[] fill = Arrays.copyOf(memberOffsets, groupCount);
+        for (int i = 0; i < level.n; i++) {
+            members[fill[groupOf[i]]++] = i;
+        }
+
+        int[][] rowTargets = new int[groupCount][];
+        double[][] rowWeights = new double[groupCount][];
+        ParallelRanges.forEach(activePool, groupCount, (from, to) -> {
+            MoveWorkspace ws = workspace(groupCount);
+            for (int g = from; g < to; g++) {
+                int touchedCount = 0;
+                for (int m = memberOffsets[g]; m < memberOffsets[g + 1]; m++) {
+                    int i = members[m];
+                    for (int e = level.offsets[i]; e < level.offsets[i + 1]; e++) {
+                        int h = groupOf[level.targets[e]];
+                        if (!ws.seen[h]) {
+                            ws.seen[h] = true;
+                            ws.touched[touchedCount++] = h;
+                        }
+                        ws.weightTo[h] += level.weights[e];
+                    }
+                }
+                Arrays.sort(ws.touched, 0, touchedCount);
+                rowTargets[g] = Arrays.copyOf(ws.touched, touchedCount);
+                rowWeights[g] = new double[touchedCount];
+                for (int a = 0; a < touchedCount; a++) {
+                    int h = ws.touched[a];
+                    rowWeights[g][a] = ws.weightTo[h];
+                    ws.weightTo[h] = 0.0;
+                    ws.seen[h] = false;
+                }
+            }
+        });
+
+        int[] offsets = new int[groupCount + 1];
+        for (int g = 0; g < groupCount; g++) {
+            offsets[g + 1] = offsets[g] + rowTargets[g].length;
+        }
+        int[] targets = new int[offsets[groupCount]];
+        double[] weights = new double[targets.length];
+        for (int g = 0; g < groupCount; g++) {
+            System.arraycopy(rowTargets[g], 0, targets, offsets[g], rowTargets[g].length);
+            System.arraycopy(rowWeights[g], 0, weights, offsets[g], rowWeights[g].length);
+        }
+        return new Level(groupCount, offsets, targets, weights);
+    }
+
+    private double modularity(Level level, int[] communityOf, int communityCount) {
+        double[] internal = new double[communityCount];
+        double[] totals = new double[communityCount];
+        for (int i = 0; i < level.n; i++) {
+            int c = communityOf[i];
+            totals[c] += level.strength[i];
+            for (int e = level.offsets[i]; e < level.offsets[i + 1]; e++) {
+                if (communityOf[level.targets[e]] == c) internal[c] += level.weights[e];
+            }
+        }
+        double q = 0.0;
+        for (int c = 0; c < communityCount; c++) {
+            double share = totals[c] / level.totalWeight;
+            q += internal[c] / level.totalWeight - resolution * share * share;
+        }
+        return q;
+    }
+
+    private static int[] identity(int n) {
+        int[] ids = new int[n];
+        for (int i = 0; i < n; i++) {
+            ids[i] = i;
+        }
+        return ids;
+    }
+
+    /**
+     * Renumbers ids below {@code ids.length} to 0..K-1 in order of first appearance.
+     *
+     * @return K, the number of distinct ids.
+     */
+    private static int relabel(int[] ids) {
+        int[] newId = new int[ids.length];
+        Arrays.fill(newId, -1);
+        int count = 0;
+        for (int i = 0; i < ids.length; i++) {
+            if (newId[ids[i]] == -1) newId[ids[i]] = count++;
+            ids[i] = newId[ids[i]];
+        }
+        return count;
+    }
+
+    /**
+     * The weighted, symmetric graph of one level in CSR layout.
+     */
+    private static class Level {
+        final int n;
+        final int[] offsets;
+        final int[] targets;
+        final double[] weights;
+        // The weighted degree of each node, a self loop counting once.
+        final double[] strength;
+        // The sum of all strengths, twice the total edge weight.
+        final double totalWeight;
+
+        Level(int n, int[] offsets, int[] targets, double[] weights) {
+            this.n = n;
+            this.offsets = offsets;
+            this.targets = targets;
+            this.weights = weights;
+            this.strength = new double[n];
+            double total = 0.0;
+            for (int i = 0; i < n; i++) {
+                for (int e = offsets[i]; e < offsets[i + 1]; e++) {
+                    strength[i] += weights[e];
+                }
+                total += strength[i];
+            }
+            this.totalWeight = total;
+        }
+
+        /**
+         * Builds the first level from a snapshot, adding the reverse of every relationship so a
+         * directed store gives a symmetric graph. An edge stored in both directions gets weight 1.
+         */
+        static Level of(GraphSnapshot<?> snapshot) {
+            int n = snapshot.size();
+            int[] snapshotTargets = snapshot.targets();
+            // Every relationship adds half a unit at both ends, a self loop adds both halves at once.
+            int[] offsets = new int[n + 1];
+            for (int i = 0; i < n; i++) {
+                for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                    offsets[i + 1]++;
+                    offsets[snapshotTargets[e] + 1]++;
+                }
+            }
+            for (int i = 0; i < n; i++) {
+                offsets[i + 1] += offsets[i];
+            }
+            int[] halves = new int[offsets[n]];
+            int[] fill = Arrays.copyOf(offsets, n);
+            for (int i = 0; i < n; i++) {
+                for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                    halves[fill[i]++] = snapshotTargets[e];
+                    halves[fill[snapshotTargets[e]]++] = i;
+                }
+            }
+
+            int[] levelOffsets = new int[n + 1];
+            int[] targets = new int[halves.length];
+            double[] weights = new double[halves.length];
+            int out = 0;
+            for (int i = 0; i < n; i++) {
+                Arrays.sort(halves, offsets[i], offsets[i + 1]);
+                for (int a = offsets[i]; a < offsets[i + 1]; a++) {
+                    if (a > offsets[i] && halves[a] == halves[a - 1]) {
+                        weights[out - 1] += 0.5;
+                    } else {
+                        targets[out] = halves[a];
+                        weights[out++] = 0.5;
+                    }
+                }
+                levelOffsets[i + 1] = out;
+            }
+            return new Level(n, levelOffsets, Arrays.copyOf(targets, out), Arrays.copyOf(weights, out));
+        }
+    }
+
+    /**
+     * Returns the calling thread's workspace, grown to hold at least n entries. Every use resets
+     * the entries it touched, so a larger workspace from an earlier level serves as well.
+     */
+    private MoveWorkspace workspace(int n) {
+        MoveWorkspace ws = workspaces.get();
+        if (ws == null || ws.seen.length < n) {
+            ws = new MoveWorkspace(n);
+            workspaces.set(ws);
+        }
+        return ws;
+    }
+
+    /**
+     * Scratch space for summing weights per neighboring community, reset after each use.
+     */
+    private static class MoveWorkspace {
+        final double[] weightTo;
+        final boolean[] seen;
+        final int[] touched;
+        double gain;
+
+        MoveWorkspace(int n) {
+            weightTo = new double[n];
+            seen = new boolean[n];
+            touched = new int[n];
+        }
+    }
+
+    public class LouvainResult {
+        private final int[] communityOf;
+        private final int communityCount;
+        public final double modularity;
+        public final int levels;
+        private final GraphSnapshot<T> snapshot;
+
+        public LouvainResult(int[] communityOf, int communityCount, double modularity, int levels,
+                             GraphSnapshot<T> snapshot) {
+            this.communityOf = communityOf;
+            this.communityCount = communityCount;
+            this.modularity = modularity;
+            this.levels = levels;
+            this.snapshot = snapshot;
+        }
+
+        public int communityCount() {
+            return communityCount;
+        }
+
+        /**
+         * Returns the community of every node, numbered from 0.
+         */
+        public Map<T, Integer> assignment() {
+            Map<T, Integer> assignment = new HashMap<>();
+            for (int v = 0; v < communityOf.length; v++) {
+                assignment.put(snapshot.node(v), communityOf[v]);
+            }
+            return assignment;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package Algos;
+
+/**
+ * A sparse probability vector kept in a {@link ScratchVectorStore}. Its entries are loaded from the
+ * store for every operation and merges are written back to it, so only the store's working set of
+ * vectors is in memory at a time. Results are the same as for {@link SparseProbabilityVector}.
+ */
+public class MappedProbabilityVector implements ProbabilityVector {
+    private final ScratchVectorStore store;
+    private final long handle;
+    private final int storedEntries;
+
+    MappedProbabilityVector(ScratchVectorStore store, long handle, int storedEntries) {
+        this.store = store;
+        this.handle = handle;
+        this.storedEntries = storedEntries;
+    }
+
+    @Override
+    public double weightedDistance(ProbabilityVector other, double[] weights) {
+        var o = (MappedProbabilityVector) other;
+        return store.load(handle).weightedDistance(store.load(o.handle), weights);
+    }
+
+    @Override
+    public ProbabilityVector merge(int size, ProbabilityVector other, int otherSize) {
+        var o = (MappedProbabilityVector) other;
+        var merged = (SparseProbabilityVector) store.load(handle).merge(size, store.load(o.handle), otherSize);
+        return store.add(merged);
+    }
+
+    /**
+     * Gives the vector's slot back to the store, for when the vector is no longer needed.
+     */
+    void release() {
+        store.release(handle, storedEntries);
+    }
+
+    @Override
+    public int storedEntries() {
+        return storedEntries;
+    }
+}
@@ -0,0 +1,215 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * PageRank over a snapshot of the graph. Every iteration pulls the rank of each node from its
+ * in-neighbors, so each node is written by one thread only and the iterations split across a
+ * fork-join pool without locking. The rank of nodes without relationships is spread over all nodes.
+ * The results are the same for any number of threads.
+ * <p>
+ * {@link #personalizedPageRank} instead answers a single source query straight from the graph with
+ * Monte Carlo walks over {@link IGraph#getRandomRelationship}.
+ *
+ * @param <T> the type of nodes in the graph.
+ */
+public class PageRank<T> {
+    private final IGraph<T> graph;
+    private double damping = 0.85;
+    private double tolerance = 1e-9;
+    private int maxIterations = 100;
+    private ForkJoinPool pool = null;
+    private int threads = 1;
+    private long seed = 8675309;
+
+    public PageRank(IGraph<T> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Sets the probability of following a relationship rather than jumping to a random node.
+     *
+     * @param damping the damping factor, 0.85 by default.
+     */
+    public void setDamping(double damping) {
+        this.damping = damping;
+    }
+
+    /**
+     * Stops once the L1 distance between the ranks of two iterations falls below the tolerance.
+     *
+     * @param tolerance the L1 change below which to stop.
+     */
+    public void setTolerance(double tolerance) {
+        this.tolerance = tolerance;
+    }
+
+    public void setMaxIterations(int maxIterations) {
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * Seeds when the walks of {@link #personalizedPageRank} stop. Every call starts from the seed,
+     * the relationships followed are picked by the graph.
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the iterations on the given pool, see {@link ParallelRanges#withPool}.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the iterations on a pool of the given number of threads, see
+     * {@link ParallelRanges#withPool}.
+     *
+     * @param threads the number of threads, 1 runs sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    public PageRankResult run() throws InvalidNodeAccessException, IOException {
+        return ParallelRanges.withPool(pool, threads, this::runPageRank);
+    }
+
+    private PageRankResult runPageRank(ForkJoinPool activePool) throws InvalidNodeAccessException, IOException {
+        GraphSnapshot<T> snapshot = new GraphSnapshot<>(graph);
+        int n = snapshot.size();
+        int[] targets = snapshot.targets();
+
+        // The snapshot lists out-neighbors, the pull needs them reversed.
+        int[] inOffsets = new int[n + 1];
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            inOffsets[v + 1] += inOffsets[v];
+        }
+        int[] sources = new int[targets.length];
+        int[] fill = Arrays.copyOf(inOffsets, n);
+        for (int u = 0; u < n; u++) {
+            for (int e = snapshot.offset(u); e < snapshot.offset(u + 1); e++) {
+                sources[fill[targets[e]]++] = u;
+            }
+        }
+
+        double[] ranks = new double[n];
+        double[] next = new double[n];
+        double[] contributions = new double[n];
+        double[] changes = new double[n];
+        Arrays.fill(ranks, 1.0 / n);
+
+        int iterations = 0;
+        double residual = Double.POSITIVE_INFINITY;
+        while (iterations < maxIterations && residual >= tolerance) {
+            double[] current = ranks;
+            double dangling = 0.0;
+            for (int u = 0; u < n; u++) {
+                int degree = snapshot.degree(u);
+                if (degree == 0) {
+                    dangling += current[u];
+                    contributions[u] = 0.0;
+                } else {
+                    contributions[u] = current[u] / degree;
+                }
+            }
+
+            double base = (1.0 - damping) / n + damping * dangling / n;
+            double[] updated = next;
+            ParallelRanges.forEach(activePool, n, (from, to) -> {
+                for (int v = from; v < to; v++) {
+                    double sum = 0.0;
+                    for (int e = inOffsets[v]; e < inOffsets[v + 1]; e++) {
+                        sum += contributions[sources[e]];
+                    }
+                    updated[v] = base + damping * sum;
+                    changes[v] = Math.abs(updated[v] - current[v]);
+                }
+            });
+
+            // Summed in node order, so the residual does not depend on how the ranges were split.
+            residual = 0.0;
+            for (int v = 0; v < n; v++) {
+                residual += changes[v];
+            }
+            next = ranks;
+            ranks = updated;
+            iterations++;
+        }
+        return new PageRankResult(ranks, iterations, residual, snapshot);
+    }
+
+    /**
+     * Estimates the personalized PageRank of the source by Monte Carlo: every walk starts at the
+     * source, follows a random relationship with probability {@code damping} and otherwise stops,
+     * and the share of walks ending at a node estimates its rank. A walk also stops at a node
+     * without relationships. The walks read the graph directly, one random relationship per step.
+     *
+     * @param source the node the walks start from.
+     * @param walks  the number of walks, the error shrinks with its square root.
+     * @return the estimated rank of every node some walk ended at.
+     */
+    public Map<T, Double> personalizedPageRank(T source, int walks) throws InvalidNodeAccessException, IOException {
+        Random rand = new Random(seed);
+        Map<T, Integer> ends = new HashMap<>();
+        for (int w = 0; w < walks; w++) {
+            T node = source;
+            while (rand.nextDouble() < damping) {
+                Edge<T> edge = graph.getRandomRelationship(node);
+                if (edge == null) break;
+                node = edge.getTarget();
+            }
+            ends.merge(node, 1, Integer::sum);
+        }
+
+        Map<T, Double> ranks = new HashMap<>();
+        for (Map.Entry<T, Integer> entry : ends.entrySet()) {
+            ranks.put(entry.getKey(), entry.getValue() / (double) walks);
+        }
+        return ranks;
+    }
+
+    public class PageRankResult {
+        private final double[] ranks;
+        public final int iterations;
+        // The L1 change of the last iteration.
+        public final double residual;
+        private final GraphSnapshot<T> snapshot;
+
+        public PageRankResult(double[] ranks, int iterations, double residual, GraphSnapshot<T> snapshot) {
+            this.ranks = ranks;
+            this.iterations = iterations;
+            this.residual = residual;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the rank of a node, or 0 if it is not in the graph.
+         */
+        public double rank(T node) {
+            int index = snapshot.indexOf(node);
+            return index == -1 ? 0.0 : ranks[index];
+        }
+
+        public Map<T, Double> ranks() {
+            Map<T, Double> byNode = new HashMap<>();
+            for (int v = 0; v < ranks.length; v++) {
+                byNode.put(snapshot.node(v), ranks[v]);
+            }
+            return byNode;
+        }
+    }
+}
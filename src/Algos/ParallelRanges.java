@@ -0,0 +1,84 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Splits a loop over [0, n) into ranges run on a fork-join pool, shared by the algorithms that
+ * parallelise over vertices. Each range is run by one thread in ascending order.
+ */
+class ParallelRanges {
+    interface Body {
+        void run(int from, int to);
+    }
+
+    interface Work<R> {
+        R run(ForkJoinPool pool) throws InvalidNodeAccessException, IOException;
+    }
+
+    private ParallelRanges() {
+    }
+
+    /**
+     * Runs the work with the pool an algorithm was configured with. This is what the setPool and
+     * setThreads of every algorithm mean: a pool that is set is used as it is and left running, and
+     * without one a pool of the given number of threads is created for the call and shut down after
+     * it. With no pool and a single thread the work gets null and runs sequentially.
+     *
+     * @param pool    the caller's pool, or null.
+     * @param threads the number of threads of the pool to create when there is none.
+     */
+    static <R> R withPool(ForkJoinPool pool, int threads, Work<R> work) throws InvalidNodeAccessException, IOException {
+        if (pool != null || threads <= 1) {
+            return work.run(pool);
+        }
+        var owned = new ForkJoinPool(threads);
+        try {
+            return work.run(owned);
+        } finally {
+            owned.shutdown();
+        }
+    }
+
+    /**
+     * Runs the body over [0, n), split into ranges on the pool, or in one go when the pool is null.
+     */
+    static void forEach(ForkJoinPool pool, int n, Body body) {
+        if (pool == null) {
+            body.run(0, n);
+            return;
+        }
+        // A few ranges per thread balance the load without a workspace per vertex.
+        int grain = Math.max(1, n / (pool.getParallelism() * 8));
+        pool.invoke(new RangeTask(body, 0, n, grain));
+    }
+
+    // Tasks are never serialized, the body need not be serializable.
+    @SuppressWarnings("serial")
+    private static class RangeTask extends RecursiveAction {
+        private final Body body;
+        private final int from;
+        private final int to;
+        private final int grain;
+
+        RangeTask(Body body, int from, int to, int grain) {
+            this.body = body;
+            this.from = from;
+            this.to = to;
+            this.grain = grain;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= grain) {
+                body.run(from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new RangeTask(body, from, mid, grain), new RangeTask(body, mid, to, grain));
+        }
+    }
+}
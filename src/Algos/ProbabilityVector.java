@@ -0,0 +1,31 @@
+package Algos;
+
+/**
+ * The probabilities of a random walk (or a community's average of them) being at each vertex,
+ * as used by {@link Walktrap}. All vectors taking part in one run share the same implementation.
+ */
+public interface ProbabilityVector {
+    /**
+     * Returns the squared distance {@code sum_j (w_j * this_j - w_j * other_j)^2}.
+     *
+     * @param other   the vector to compare against.
+     * @param weights the weight of each vertex.
+     * @return the weighted squared distance.
+     */
+    double weightedDistance(ProbabilityVector other, double[] weights);
+
+    /**
+     * Returns the size weighted average {@code (size * this + otherSize * other) / (size + otherSize)}.
+     *
+     * @param size      the weight of this vector.
+     * @param other     the vector to merge with.
+     * @param otherSize the weight of the other vector.
+     * @return the merged vector.
+     */
+    ProbabilityVector merge(int size, ProbabilityVector other, int otherSize);
+
+    /**
+     * Returns the number of stored entries.
+     */
+    int storedEntries();
+}
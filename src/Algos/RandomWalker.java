@@ -0,0 +1,224 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.IGraph;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Runs batches of random walks over a snapshot of the graph and streams them to a binary file, as
+ * used to build DeepWalk and node2vec corpora. Every node starts {@code walksPerNode} walks.
+ * <p>
+ * The walks of a batch advance one step at a time. Before each step the live walks are sorted by
+ * the node they are at, so the threads read the adjacency in node order and walks sharing a node
+ * share the cache lines of its neighbors. Each walk and step draws from its own seeded random
+ * stream, so the walks are the same for any number of threads.
+ * <p>
+ * With node2vec biases (Grover and Leskovec, 2016) the next node is drawn by rejection: a uniform
+ * neighbor x of the current node is accepted with probability proportional to 1/p if x is the
+ * previous node, 1 if x is a neighbor of the previous node and 1/q otherwise. This needs no
+ * per-edge alias tables.
+ * <p>
+ * The file holds one record per walk, in order of start round then start node: the number of
+ * nodes in the walk as an int, followed by the node ids as ints, big endian.
+ */
+public class RandomWalker {
+    private final IGraph<Integer> graph;
+    private int walkLength = 80;
+    private int walksPerNode = 10;
+    private double restartProbability = 0.0;
+    private double returnParameter = 1.0;
+    private double inOutParameter = 1.0;
+    private int batchSize = 1 << 16;
+    private long seed = 8675309;
+    private ForkJoinPool pool = null;
+    private int threads = 1;
+
+    public RandomWalker(IGraph<Integer> graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * @param walkLength the number of steps of a walk, a walk that reaches a node without
+     *                   relationships ends early.
+     */
+    public void setWalkLength(int walkLength) {
+        this.walkLength = walkLength;
+    }
+
+    public void setWalksPerNode(int walksPerNode) {
+        this.walksPerNode = walksPerNode;
+    }
+
+    /**
+     * Sets the probability of jumping back to the start node instead of taking a step.
+     *
+     * @param restartProbability the restart probability, 0 by default.
+     */
+    public void setRestartProbability(double restartProbability) {
+        this.restartProbability = restartProbability;
+    }
+
+    /**
+     * Sets the node2vec biases, both 1 giving uniform first order walks.
+     *
+     * @param returnParameter the return parameter p, higher values make going back less likely.
+     * @param inOutParameter  the in-out parameter q, higher values keep the walk local.
+     */
+    public void setBiases(double returnParameter, double inOutParameter) {
+        this.returnParameter = returnParameter;
+        this.inOutParameter = inOutParameter;
+    }
+
+    /**
+     * @param batchSize the number of walks kept in memory and advanced together.
+     */
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the steps on the given pool, see {@link ParallelRanges#withPool}.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the steps on a pool of the given number of threads, see {@link ParallelRanges#withPool}.
+     *
+     * @param threads the number of threads, 1 runs sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Runs all the walks and writes them to the file.
+     *
+     * @param filename the file to write the walks to.
+     * @return the number of walks written.
+     */
+    public long run(String filename) throws InvalidNodeAccessException, IOException {
+        return ParallelRanges.withPool(pool, threads, activePool -> {
+            try (var out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(filename), 1 << 20))) {
+                return runWalks(activePool, out);
+            }
+        });
+    }
+
+    private long runWalks(ForkJoinPool activePool, DataOutputStream out) throws InvalidNodeAccessException, IOException {
+        GraphSnapshot<Integer> snapshot = new GraphSnapshot<>(graph);
+        int n = snapshot.size();
+        long walkCount = (long) n * walksPerNode;
+        int stride = walkLength + 1;
+        boolean biased = returnParameter != 1.0 || inOutParameter != 1.0;
+        double returnWeight = 1.0 / returnParameter;
+        double outWeight = 1.0 / inOutParameter;
+        double maxWeight = Math.max(1.0, Math.max(returnWeight, outWeight));
+
+        int capacity = (int) Math.min(batchSize, walkCount);
+        int[] paths = new int[capacity * stride];
+        int[] lengths = new int[capacity];
+        long[] order = new long[capacity];
+
+        for (long first = 0; first < walkCount; first += capacity) {
+            int size = (int) Math.min(capacity, walkCount - first);
+            long batchStart = first;
+            for (int w = 0; w < size; w++) {
+                paths[w * stride] = (int) ((batchStart + w) % n);
+                lengths[w] = 1;
+            }
+
+            int live = size;
+            for (int step = 0; step < walkLength && live > 0; step++) {
+                // Sorted by current node, with the walk index in the low bits.
+                int count = 0;
+                for (int w = 0; w < size; w++) {
+                    if (lengths[w] == step + 1) {
+                        order[count++] = ((long) paths[w * stride + step] << 32) | w;
+                    }
+                }
+                Arrays.sort(order, 0, count);
+
+                int currentStep = step;
+                ParallelRanges.forEach(activePool, count, (from, to) -> {
+                    int[] targets = snapshot.targets();
+                    for (int a = from; a < to; a++) {
+                        int w = (int) order[a];
+                        int base = w * stride;
+                        int current = paths[base + currentStep];
+                        long state = mix(seed ^ mix(batchStart + w) ^ (currentStep * 0xD1B54A32D192ED03L));
+
+                        state = next(state);
+                        if (restartProbability > 0 && toDouble(state) < restartProbability) {
+                            paths[base + currentStep + 1] = paths[base];
+                            lengths[w]++;
+                            continue;
+                        }
+                        int degree = snapshot.degree(current);
+                        if (degree == 0) continue;
+
+                        int offset = snapshot.offset(current);
+                        int chosen;
+                        if (!biased || currentStep == 0) {
+                            state = next(state);
+                            chosen = targets[offset + (int) ((state >>> 1) % degree)];
+                        } else {
+                            int previous = paths[base + currentStep - 1];
+                            while (true) {
+                                state = next(state);
+                                int candidate = targets[offset + (int) ((state >>> 1) % degree)];
+                                double weight = candidate == previous ? returnWeight
+                                        : snapshot.hasEdge(previous, candidate) ? 1.0 : outWeight;
+                                state = next(state);
+                                if (toDouble(state) * maxWeight < weight) {
+                                    chosen = candidate;
+                                    break;
+                                }
+                            }
+                        }
+                        paths[base + currentStep + 1] = chosen;
+                        lengths[w]++;
+                    }
+                });
+
+                live = 0;
+                for (int w = 0; w < size; w++) {
+                    if (lengths[w] == step + 2) live++;
+                }
+            }
+
+            for (int w = 0; w < size; w++) {
+                out.writeInt(lengths[w]);
+                for (int s = 0; s < lengths[w]; s++) {
+                    out.writeInt(snapshot.node(paths[w * stride + s]));
+                }
+            }
+        }
+        return walkCount;
+    }
+
+    // SplitMix64 finaliser, spreading the walk and step numbers over the seed.
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    private static long next(long state) {
+        return mix(state + 0x9E3779B97F4A7C15L);
+    }
+
+    private static double toDouble(long state) {
+        return (state >>> 11) * 0x1.0p-53;
+    }
+}
@@ -0,0 +1,254 @@
+package Algos;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.foreign.Arena;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Keeps sparse probability vectors in a memory-mapped scratch file instead of the heap, with the
+ * most recently used ones held decoded in a working set of bounded size. Released vectors leave
+ * their slots on a free list, merged with the free slots right before and after them, and a new
+ * vector goes into the smallest free slot it fits before the file is grown. The file is unmapped
+ * and deleted when the store is closed.
+ * <p>
+ * A vector is stored as its entry count, its indices and its values, starting on an 8 byte
+ * boundary. The file is mapped in segments of 64 MiB, or one larger segment for a vector that does
+ * not fit, and a vector never straddles two segments.
+ */
+public class ScratchVectorStore implements AutoCloseable {
+    private static final int SEGMENT_SIZE = 64 << 20;
+
+    private final Path file;
+    private final FileChannel channel;
+    private final long workingSetBytes;
+    // Owns the mappings, closing it unmaps them so the file can be deleted on every platform.
+    private final Arena arena = Arena.ofShared();
+    private ByteBuffer[] segments = new ByteBuffer[0];
+    private long fileLength = 0;
+    private int writeOffset = 0;
+
+    // Handles of released slots by their length in bytes, and their lengths by handle to find the
+    // neighbors of a slot. Adjacent free slots are always merged.
+    private final TreeMap<Integer, TreeSet<Long>> freeSlots = new TreeMap<>();
+    private final TreeMap<Long, Integer> freeByHandle = new TreeMap<>();
+    private long freeBytes = 0;
+    private boolean closed = false;
+
+    // Vectors by handle in access order, the eldest are dropped once over the byte budget.
+    private final LinkedHashMap<Long, SparseProbabilityVector> workingSet = new LinkedHashMap<>(16, 0.75f, true);
+    private long workingSetUsed = 0;
+
+    /**
+     * @param directory       the directory to create the scratch file in.
+     * @param workingSetBytes the approximate number of bytes of decoded vectors to keep in memory.
+     * @throws IOException if the scratch file cannot be created.
+     */
+    public ScratchVectorStore(Path directory, long workingSetBytes) throws IOException {
+        this.file = Files.createTempFile(directory, "walktrap", ".vectors");
+        this.channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.workingSetBytes = workingSetBytes;
+    }
+
+    /**
+     * Writes a vector to the scratch file, in a released slot if one is large enough.
+     *
+     * @param vector the vector to store.
+     * @return a vector reading its entries back from this store.
+     * @throws UncheckedIOException if the scratch file cannot be grown.
+     */
+    public ProbabilityVector add(SparseProbabilityVector vector) {
+        int[] indices = vector.indices();
+        double[] values = vector.values();
+        int count = indices.length;
+        int length = recordLength(count);
+
+        ByteBuffer record;
+        long handle;
+        synchronized (this) {
+            Long free = takeFreeSlot(length);
+            handle = free != null ? free : append(length);
+            record = segments[(int) (handle >>> 32)].slice((int) handle, length).order(ByteOrder.nativeOrder());
+        }
+
+        // The space is reserved, so the copy itself needs no lock.
+        record.putInt(0, count);
+        record.slice(8, count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer().put(indices);
+        record.slice(valuesOffset(count), count * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer().put(values);
+        return new MappedProbabilityVector(this, handle, count);
+    }
+
+    /**
+     * Gives the slot of a vector back to the store, the vector must not be read afterwards.
+     */
+    synchronized void release(long handle, int storedEntries) {
+        SparseProbabilityVector cached = workingSet.remove(handle);
+        if (cached != null) {
+            workingSetUsed -= recordLength(storedEntries);
+        }
+        addFreeSlot(handle, recordLength(storedEntries));
+    }
+
+    /**
+     * Takes the smallest free slot of at least the length, putting back what the record leaves over.
+     */
+    private Long takeFreeSlot(int length) {
+        Map.Entry<Integer, TreeSet<Long>> entry = freeSlots.ceilingEntry(length);
+        if (entry == null) return null;
+        int capacity = entry.getKey();
+        long handle = entry.getValue().first();
+        removeFreeSlot(handle, capacity);
+        // Record lengths are multiples of 8, so the rest still starts on an 8 byte boundary. The
+        // slot after it was not free, or the two would have been merged.
+        if (capacity > length) {
+            putFreeSlot(handle + length, capacity - length);
+        }
+        return handle;
+    }
+
+    /**
+     * Frees the slot, merged with the free slots right before and after it. A handle is the segment
+     * in the high and the offset in the low 32 bits, so slots are adjacent exactly when one's handle
+     * plus its length is the other's handle.
+     */
+    private void addFreeSlot(long handle, int capacity) {
+        Map.Entry<Long, Integer> before = freeByHandle.lowerEntry(handle);
+        if (before != null && before.getKey() + before.getValue() == handle) {
+            removeFreeSlot(before.getKey(), before.getValue());
+            handle = before.getKey();
+            capacity += before.getValue();
+        }
+        Integer after = freeByHandle.get(handle + capacity);
+        if (after != null) {
+            removeFreeSlot(handle + capacity, after);
+            capacity += after;
+        }
+        putFreeSlot(handle, capacity);
+    }
+
+    private void putFreeSlot(long handle, int capacity) {
+        freeSlots.computeIfAbsent(capacity, key -> new TreeSet<>()).add(handle);
+        freeByHandle.put(handle, capacity);
+        freeBytes += capacity;
+    }
+
+    private void removeFreeSlot(long handle, int capacity) {
+        TreeSet<Long> handles = freeSlots.get(capacity);
+        handles.remove(handle);
+        if (handles.isEmpty()) {
+            freeSlots.remove(capacity);
+        }
+        freeByHandle.remove(handle);
+        freeBytes -= capacity;
+    }
+
+    /**
+     * Reserves the length at the end of the file, mapping a new segment if the last one is full.
+     */
+    private long append(int length) {
+        if (segments.length == 0 || writeOffset + length > segments[segments.length - 1].capacity()) {
+            int size = Math.max(SEGMENT_SIZE, length);
+            ByteBuffer segment;
+            try {
+                segment = channel.map(FileChannel.MapMode.READ_WRITE, fileLength, size, arena).asByteBuffer();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segment.order(ByteOrder.nativeOrder());
+            segments = Arrays.copyOf(segments, segments.length + 1);
+            segments[segments.length - 1] = segment;
+            fileLength += size;
+            writeOffset = 0;
+        }
+        long handle = ((long) (segments.length - 1) << 32) | writeOffset;
+        writeOffset += length;
+        return handle;
+    }
+
+    /**
+     * Returns the vector stored under the handle, from the working set if it is there.
+     */
+    SparseProbabilityVector load(long handle) {
+        ByteBuffer segment;
+        synchronized (this) {
+            SparseProbabilityVector cached = workingSet.get(handle);
+            if (cached != null) return cached;
+            segment = segments[(int) (handle >>> 32)];
+        }
+
+        int offset = (int) handle;
+        int count = segment.getInt(offset);
+        int[] indices = new int[count];
+        double[] values = new double[count];
+        segment.slice(offset + 8, count * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer().get(indices);
+        segment.slice(offset + valuesOffset(count), count * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer().get(values);
+        var vector = new SparseProbabilityVector(indices, values);
+
+        synchronized (this) {
+            if (workingSet.put(handle, vector) == null) {
+                workingSetUsed += recordLength(count);
+            }
+            Iterator<Map.Entry<Long, SparseProbabilityVector>> eldest = workingSet.entrySet().iterator();
+            while (workingSetUsed > workingSetBytes && eldest.hasNext()) {
+                workingSetUsed -= recordLength(eldest.next().getValue().storedEntries());
+                eldest.remove();
+            }
+        }
+        return vector;
+    }
+
+    /**
+     * Returns the number of bytes written to the scratch file, including released slots.
+     */
+    public synchronized long bytesWritten() {
+        return segments.length == 0 ? 0 : fileLength - segments[segments.length - 1].capacity() + writeOffset;
+    }
+
+    /**
+     * Returns the number of bytes in released slots that are not yet reused.
+     */
+    public synchronized long bytesFree() {
+        return freeBytes;
+    }
+
+    /**
+     * Unmaps and deletes the scratch file. Vectors of the store must not be read afterwards, and
+     * none may be read while it closes.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (closed) return;
+            closed = true;
+            workingSet.clear();
+            freeSlots.clear();
+            freeByHandle.clear();
+            freeBytes = 0;
+            segments = new ByteBuffer[0];
+        }
+        // Unmapped first, as a mapped file cannot be deleted on Windows.
+        arena.close();
+        channel.close();
+        Files.deleteIfExists(file);
+    }
+
+    private static int valuesOffset(int count) {
+        // The count and the indices, padded so the doubles stay 8 byte aligned.
+        return (8 + count * Integer.BYTES + 7) & ~7;
+    }
+
+    private static int recordLength(int count) {
+        return valuesOffset(count) + count * Double.BYTES;
+    }
+}
@@ -0,0 +1,87 @@
+package Algos;
+
+import java.util.Arrays;
+
+/**
+ * A probability vector holding only its non-zero entries, as ascending vertex indices with their
+ * values. Operations walk the two index lists together, visiting vertices in the same ascending
+ * order a {@link DenseProbabilityVector} does, so both give the same results for the same entries.
+ */
+public class SparseProbabilityVector implements ProbabilityVector {
+    private final int[] indices;
+    private final double[] values;
+
+    /**
+     * @param indices the vertices with a stored entry, in ascending order.
+     * @param values  the value of each stored vertex.
+     */
+    public SparseProbabilityVector(int[] indices, double[] values) {
+        this.indices = indices;
+        this.values = values;
+    }
+
+    int[] indices() {
+        return indices;
+    }
+
+    double[] values() {
+        return values;
+    }
+
+    @Override
+    public double weightedDistance(ProbabilityVector other, double[] weights) {
+        var o = (SparseProbabilityVector) other;
+        double sumSq = 0.0;
+        int a = 0;
+        int b = 0;
+        while (a < indices.length || b < o.indices.length) {
+            int ja = a < indices.length ? indices[a] : Integer.MAX_VALUE;
+            int jb = b < o.indices.length ? o.indices[b] : Integer.MAX_VALUE;
+            double diff;
+            if (ja == jb) {
+                diff = weights[ja] * values[a++] - weights[jb] * o.values[b++];
+            } else if (ja < jb) {
+                diff = weights[ja] * values[a++];
+            } else {
+                diff = -(weights[jb] * o.values[b++]);
+            }
+            sumSq += diff * diff;
+        }
+        return sumSq;
+    }
+
+    @Override
+    public ProbabilityVector merge(int size, ProbabilityVector other, int otherSize) {
+        var o = (SparseProbabilityVector) other;
+        int mergedSize = size + otherSize;
+        int[] mergedIndices = new int[indices.length + o.indices.length];
+        double[] mergedValues = new double[mergedIndices.length];
+        int a = 0;
+        int b = 0;
+        int m = 0;
+        while (a < indices.length || b < o.indices.length) {
+            int ja = a < indices.length ? indices[a] : Integer.MAX_VALUE;
+            int jb = b < o.indices.length ? o.indices[b] : Integer.MAX_VALUE;
+            if (ja == jb) {
+                mergedIndices[m] = ja;
+                mergedValues[m++] = (size * values[a++] + otherSize * o.values[b++]) / mergedSize;
+            } else if (ja < jb) {
+                mergedIndices[m] = ja;
+                mergedValues[m++] = size * values[a++] / mergedSize;
+            } else {
+                mergedIndices[m] = jb;
+                mergedValues[m++] = otherSize * o.values[b++] / mergedSize;
+            }
+        }
+        if (m < mergedIndices.length) {
+            mergedIndices = Arrays.copyOf(mergedIndices, m);
+            mergedValues = Arrays.copyOf(mergedValues, m);
+        }
+        return new SparseProbabilityVector(mergedIndices, mergedValues);
+    }
+
+    @Override
+    public int storedEntries() {
+        return indices.length;
+    }
+}
@@ -0,0 +1,261 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.EdgeCursor;
+import Graphs.IGraph;
+import Graphs.IntList;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Breadth-first traversal queries run straight against the graph: BFS distances, k-hop
+ * neighborhoods and reachability. Frontiers and the visited set are bitsets indexed by node id.
+ * <p>
+ * The search is direction-optimizing (Beamer, Asanović and Patterson, 2012). Small frontiers step
+ * top-down, scanning the relationships of every frontier node. Once the frontier holds more than
+ * 1/alpha of the unvisited nodes the search steps bottom-up instead, each unvisited node scanning
+ * its incoming relationships until one comes from the frontier, and it goes back top-down when the
+ * frontier shrinks below 1/beta of all nodes. Bottom-up steps read
+ * {@link IGraph#getIncomingRelationships}, so they are only taken on graphs that
+ * {@link IGraph#hasIncomingIndex index} incoming relationships; graphs that scan for them always
+ * step top-down.
+ * <p>
+ * Steps can split their nodes over a fork-join pool, which needs a graph that can be read by
+ * several threads at once. Nodes found are merged in a fixed order, so the results are the same for
+ * any number of threads.
+ */
+public class Traversal {
+    private final IGraph<Integer> graph;
+    private final boolean canStepBottomUp;
+    private final int[] nodes;
+    private final int idBound;
+    private int alpha = 14;
+    private int beta = 24;
+    private ForkJoinPool pool = null;
+
+    private int topDownSteps;
+    private int bottomUpSteps;
+
+    /**
+     * Reads the node ids of the graph, which must not gain nodes while queries run.
+     */
+    public Traversal(IGraph<Integer> graph) throws IOException {
+        this.graph = graph;
+        this.canStepBottomUp = graph.hasIncomingIndex();
+        var ids = new ArrayList<Integer>();
+        for (Iterator<Integer> it = graph.getNodes(); it.hasNext(); ) {
+            ids.add(it.next());
+        }
+        nodes = ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+        idBound = nodes.length == 0 ? 0 : nodes[nodes.length - 1] + 1;
+    }
+
+    /**
+     * Sets the direction switching thresholds.
+     *
+     * @param alpha bottom-up once the frontier exceeds 1/alpha of the unvisited nodes, 14 by default.
+     * @param beta  top-down again once the frontier is below 1/beta of all nodes, 24 by default.
+     */
+    public void setThresholds(int alpha, int beta) {
+        this.alpha = alpha;
+        this.beta = beta;
+    }
+
+    /**
+     * Runs the steps on the given pool.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Returns the number of top-down steps taken by the last query.
+     */
+    public int getTopDownSteps() {
+        return topDownSteps;
+    }
+
+    /**
+     * Returns the number of bottom-up steps taken by the last query.
+     */
+    public int getBottomUpSteps() {
+        return bottomUpSteps;
+    }
+
+    /**
+     * Returns the hop distance from the source to every node it reaches.
+     *
+     * @param source the node to start from.
+     * @return the distance of every reached node, the source at 0.
+     */
+    public Map<Integer, Integer> distances(int source) throws InvalidNodeAccessException, IOException {
+        Map<Integer, Integer> distances = new HashMap<>();
+        search(source, Integer.MAX_VALUE, -1, (node, depth) -> distances.put(node, depth));
+        return distances;
+    }
+
+    /**
+     * Returns the nodes at most k hops from the source, the source included.
+     *
+     * @param source the node to start from.
+     * @param k      the largest number of hops.
+     * @return the ids of the nodes within k hops.
+     */
+    public BitSet kHop(int source, int k) throws InvalidNodeAccessException, IOException {
+        return search(source, k, -1, null);
+    }
+
+    /**
+     * Returns whether a path leads from the source to the target, stopping as soon as one does.
+     */
+    public boolean reachable(int source, int target) throws InvalidNodeAccessException, IOException {
+        return search(source, Integer.MAX_VALUE, target, null).get(target);
+    }
+
+    private interface Visitor {
+        void visit(int node, int depth);
+    }
+
+    /**
+     * Runs the BFS until the frontier empties, maxDepth is reached or the target is found.
+     *
+     * @return the visited nodes.
+     */
+    private BitSet search(int source, int maxDepth, int target, Visitor visitor)
+            throws InvalidNodeAccessException, IOException {
+        topDownSteps = 0;
+        bottomUpSteps = 0;
+        BitSet visited = new BitSet(idBound);
+        BitSet frontier = new BitSet(idBound);
+        visited.set(source);
+        frontier.set(source);
+        if (visitor != null) visitor.visit(source, 0);
+        int frontierSize = 1;
+        int unvisited = nodes.length - 1;
+        boolean bottomUp = false;
+
+        for (int depth = 1; depth <= maxDepth && frontierSize > 0; depth++) {
+            if (target != -1 && visited.get(target)) break;
+            if (canStepBottomUp) {
+                if (!bottomUp && frontierSize > unvisited / alpha) {
+                    bottomUp = true;
+                } else if (bottomUp && frontierSize < nodes.length / beta) {
+                    bottomUp = false;
+                }
+            }
+
+            int[] found = bottomUp ? bottomUpStep(frontier, visited) : topDownStep(frontier, visited);
+            if (bottomUp) bottomUpSteps++;
+            else topDownSteps++;
+
+            frontier = new BitSet(idBound);
+            for (int node : found) {
+                // Top-down steps may report a node from several frontier nodes.
+                if (visited.get(node)) continue;
+                visited.set(node);
+                frontier.set(node);
+                if (visitor != null) visitor.visit(node, depth);
+            }
+            frontierSize = frontier.cardinality();
+            unvisited -= frontierSize;
+        }
+        return visited;
+    }
+
+    private int[] topDownStep(BitSet frontier, BitSet visited) throws InvalidNodeAccessException, IOException {
+        int[] sources = frontier.stream().toArray();
+        int[][] found = new int[sources.length][];
+        run(sources.length, (from, to) -> {
+            EdgeCursor<Integer> cursor = null;
+            for (int a = from; a < to; a++) {
+                if (cursor == null) {
+                    cursor = graph.openEdgeCursor(sources[a]);
+                } else {
+                    cursor.reset(sources[a]);
+                }
+                var targets = new IntList();
+                while (cursor.next()) {
+                    int node = cursor.target();
+                    if (!visited.get(node)) targets.add(node);
+                }
+                found[a] = targets.toArray();
+            }
+        });
+        return concat(found);
+    }
+
+    private int[] bottomUpStep(BitSet frontier, BitSet visited) throws InvalidNodeAccessException, IOException {
+        int[] candidates = new int[nodes.length];
+        int count = 0;
+        for (int node : nodes) {
+            if (!visited.get(node)) candidates[count++] = node;
+        }
+        int candidateCount = count;
+        boolean[] reached = new boolean[candidateCount];
+        run(candidateCount, (from, to) -> {
+            for (int a = from; a < to; a++) {
+                for (Iterator<Edge<Integer>> it = graph.getIncomingRelationships(candidates[a]); it.hasNext(); ) {
+                    if (frontier.get(it.next().getSource())) {
+                        reached[a] = true;
+                        break;
+                    }
+                }
+            }
+        });
+
+        var found = new IntList();
+        for (int a = 0; a < candidateCount; a++) {
+            if (reached[a]) found.add(candidates[a]);
+        }
+        return found.toArray();
+    }
+
+    private interface StepBody {
+        void run(int from, int to) throws InvalidNodeAccessException, IOException;
+    }
+
+    /**
+     * Runs a step over [0, n) on the pool, passing checked exceptions of the graph back out.
+     */
+    private void run(int n, StepBody body) throws InvalidNodeAccessException, IOException {
+        try {
+            ParallelRanges.forEach(pool, n, (from, to) -> {
+                try {
+                    body.run(from, to);
+                } catch (InvalidNodeAccessException | IOException e) {
+                    throw new StepException(e);
+                }
+            });
+        } catch (StepException e) {
+            if (e.getCause() instanceof InvalidNodeAccessException invalid) throw invalid;
+            throw (IOException) e.getCause();
+        }
+    }
+
+    private static class StepException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        StepException(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private static int[] concat(int[][] parts) {
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] all = new int[total];
+        int at = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, all, at, part.length);
+            at += part.length;
+        }
+        return all;
+    }
+}
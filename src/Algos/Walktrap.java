@@ -1,12 +1,14 @@
 package Algos;
 
 import Exceptions.InvalidNodeAccessException;
-import Graphs.Edge;
 import Graphs.IGraph;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
 import java.util.*;
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * A java implementation of: <a href="https://github.com/jancio/Computing-Communities-in-Large-Networks-Using-Random-Walks">Jancio's Walktrap Implementation</a>
@@ -18,13 +20,25 @@ public class Walktrap<T> {
     private final int t;
     private final boolean addSelfEdges;
     private final boolean verbose;
+    private boolean sparse = false;
+    private double truncationThreshold = 0.0;
+    private ForkJoinPool pool = null;
+    private int threads = 1;
+    private boolean singlePrecision = false;
+    private FloatDistanceKernel floatKernel = null;
+    private Path scratchDirectory = null;
+    private long workingSetBytes = 0;
 
     private int N;
-    private double[][] A;
-    private double[][] P;
-    private double[][] P_t;
+    private ForkJoinPool activePool;
+    private ScratchVectorStore vectorStore;
+    private GraphSnapshot<T> snapshot;
+    private double[] transition;
     private double[] Dx;
+    private float[] DxFloat;
     private double G_total_weight;
+    // The vertices of a community are linked from its first vertex, -1 ends the list.
+    private int[] nextVertex;
 
     public Walktrap(IGraph<T> graph, int t, boolean addSelfEdges, boolean verbose) {
         this.graph = graph;
@@ -33,7 +47,124 @@ public class Walktrap<T> {
         this.verbose = verbose;
     }
 
+    /**
+     * Keeps the walk probabilities as sparse vectors of their non-zero entries instead of dense
+     * rows of N entries, so memory grows with the reach of the walks rather than N^2.
+     *
+     * @param sparse whether to use sparse probability vectors.
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * Drops walk probabilities below the threshold after every step of a sparse walk, the
+     * approximation suggested by Pons and Latapy for large graphs. The default of 0 keeps every
+     * probability, which gives exactly the dense results.
+     *
+     * @param truncationThreshold the smallest probability kept.
+     */
+    public void setTruncationThreshold(double truncationThreshold) {
+        this.truncationThreshold = truncationThreshold;
+    }
+
+    /**
+     * Stores dense probability vectors as float32 instead of double, halving their memory. Delta
+     * sigmas then agree with the double path to about 6 significant digits, so merges of nearly
+     * equal delta sigma may come out in another order. Sparse and scratch file vectors are always
+     * double.
+     * <p>
+     * This saves memory, not time. The walks are still computed in double, and without
+     * {@link #setVectorKernel the vector kernel} the float distance loop gains little over the
+     * double one, so a run can be slower overall.
+     *
+     * @param singlePrecision whether to store dense vectors as floats.
+     */
+    public void setSinglePrecision(boolean singlePrecision) {
+        this.singlePrecision = singlePrecision;
+    }
+
+    /**
+     * Computes the distances of single precision vectors on the incubating Vector API. The kernel
+     * is in {@code vector/} and needs {@code --add-modules jdk.incubator.vector} to build and run.
+     * It has no effect unless {@link #setSinglePrecision single precision} is on.
+     * <p>
+     * The kernel runs the distance loop several times faster than the double one, but that loop is
+     * only a few percent of a run where the walks dominate, as on email-Eu-core, so check the gain
+     * with {@link WalktrapPrecisionTest} before relying on it.
+     *
+     * @param vectorKernel whether to use the Vector API kernel.
+     * @throws IllegalStateException if the kernel is not on the class path or the module is missing.
+     */
+    public void setVectorKernel(boolean vectorKernel) {
+        if (!vectorKernel) {
+            this.floatKernel = null;
+            return;
+        }
+        this.floatKernel = FloatDistanceKernel.loadVectorKernel();
+        if (floatKernel == null) {
+            throw new IllegalStateException("The Vector API kernel needs " + FloatDistanceKernel.VECTOR_KERNEL
+                    + " on the class path and --add-modules jdk.incubator.vector.");
+        }
+    }
+
+    /**
+     * Runs the walks and the initial delta sigmas on the given pool, see
+     * {@link ParallelRanges#withPool}. The results are the same bit for bit as a sequential run,
+     * as every value is still computed by one thread in the same order and the heap is filled
+     * sequentially afterwards.
+     *
+     * @param pool the pool to use, or null to run sequentially.
+     */
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * Runs the walks and the initial delta sigmas on a pool of the given number of threads, see
+     * {@link ParallelRanges#withPool}.
+     *
+     * @param threads the number of threads, 1 runs sequentially.
+     */
+    public void setThreads(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Keeps the probability vectors of the vertices and communities in a memory-mapped scratch
+     * file in the given directory rather than on the heap, with a working set of the most recently
+     * used vectors held in memory. The walks are sparse in this mode and the results are the same
+     * as for {@link #setSparse sparse} vectors. The scratch file is deleted at the end of the run.
+     *
+     * @param scratchDirectory the directory for the scratch file, or null to keep vectors on the heap.
+     * @param workingSetBytes  the approximate number of bytes of vectors to keep in memory.
+     */
+    public void setScratchDirectory(Path scratchDirectory, long workingSetBytes) {
+        this.scratchDirectory = scratchDirectory;
+        this.workingSetBytes = workingSetBytes;
+    }
+
     public WalktrapResult run() throws InvalidNodeAccessException, IOException {
+        return ParallelRanges.withPool(pool, threads, runPool -> {
+            activePool = runPool;
+            try {
+                if (scratchDirectory == null) {
+                    return runWalktrap();
+                }
+                try (var store = new ScratchVectorStore(scratchDirectory, workingSetBytes)) {
+                    vectorStore = store;
+                    return runWalktrap();
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            } finally {
+                activePool = null;
+                vectorStore = null;
+            }
+        });
+    }
+
+    private WalktrapResult runWalktrap() throws InvalidNodeAccessException, IOException {
         if (addSelfEdges) {
             for (Iterator<T> it = graph.getNodes(); it.hasNext(); ) {
                 T v = it.next();
@@ -41,197 +172,269 @@ public class Walktrap<T> {
             }
         }
 
-        Set<T> nodes = new HashSet<>();
-        for (Iterator<T> it = graph.getNodes(); it.hasNext(); ) {
-            T v = it.next();
-            nodes.add(v);
-        }
-        N = nodes.size();
-        Map<T, Integer> nodeToIndex = new HashMap<>();
-        int idx = 0;
-        for (T node : nodes) {
-            nodeToIndex.put(node, idx);
-            idx++;
-        }
-
-        A = new double[N][N];
-        for (T u : nodes) {
-            int i = nodeToIndex.get(u);
-            for (Iterator<Edge<T>> it = graph.getRelationships(u); it.hasNext(); ) {
-                Edge<T> v = it.next();
-                int j = nodeToIndex.get(v.getTarget());
-                A[i][j] = 1.0;
-            }
-        }
-
-        P = new double[N][N];
+        // A is the 0/1 adjacency of the snapshot, P = A / degree.
+        snapshot = new GraphSnapshot<>(graph);
+        N = snapshot.size();
+        transition = new double[N];
         Dx = new double[N];
         for (int i = 0; i < N; i++) {
-            double degree = 0.0;
-            for (int j = 0; j < N; j++) {
-                degree += A[i][j];
-            }
+            double degree = snapshot.degree(i);
             if (degree == 0) degree = 1.0;
-            for (int j = 0; j < N; j++) {
-                P[i][j] = A[i][j] / degree;
-            }
+            transition[i] = 1.0 / degree;
             Dx[i] = Math.pow(degree, -0.5);
         }
-
-        P_t = matrixPower(P, t);
-
-        double sumA = 0.0;
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                sumA += A[i][j];
+        if (singlePrecision && !sparseWalks()) {
+            DxFloat = new float[N];
+            for (int i = 0; i < N; i++) {
+                DxFloat[i] = (float) Dx[i];
             }
+        } else {
+            DxFloat = null;
         }
+
+        double sumA = snapshot.edgeCount();
         G_total_weight = (sumA - N) / 2.0;
 
+        ProbabilityVector[] rows = new ProbabilityVector[N];
+        ParallelRanges.forEach(activePool, N, (from, to) -> {
+            WalkWorkspace workspace = new WalkWorkspace();
+            for (int i = from; i < to; i++) {
+                rows[i] = vectorStore == null
+                        ? walk(i, workspace)
+                        : vectorStore.add((SparseProbabilityVector) walk(i, workspace));
+            }
+        });
+
         Map<Integer, Community> communities = new HashMap<>();
         int communityCount = N;
+        nextVertex = new int[N];
+        Arrays.fill(nextVertex, -1);
         for (int i = 0; i < N; i++) {
-            communities.put(i, new Community(i));
+            communities.put(i, new Community(i, rows[i]));
         }
 
-        PriorityQueue<MergeCandidate> minHeap = new PriorityQueue<>();
-        for (int i = 0; i < N; i++) {
-            for (int j = 0; j < N; j++) {
-                if (i != j && A[i][j] == 1.0) {
-                    double ds = computeDeltaSigma(i, j);
-                    minHeap.add(new MergeCandidate(i, j, ds));
-                    communities.get(i).adjComs.put(j, ds);
-                    communities.get(j).adjComs.put(i, ds);
+        // The delta sigma of every edge is computed up front, the heap is then filled in edge order.
+        int[] targets = snapshot.targets();
+        double[] edgeDeltaSigmas = new double[targets.length];
+        ParallelRanges.forEach(activePool, N, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                    int j = targets[e];
+                    if (i != j) {
+                        edgeDeltaSigmas[e] = computeDeltaSigma(rows[i], rows[j]);
+                    }
                 }
             }
-        }
-
-        List<Set<Integer>> partitions = new ArrayList<>();
-        List<Double> deltaSigmas = new ArrayList<>();
-        List<Double> modularities = new ArrayList<>();
+        });
 
-        Set<Integer> initialPartition = new HashSet<>();
+        CandidateHeap minHeap = new CandidateHeap();
         for (int i = 0; i < N; i++) {
-            initialPartition.add(i);
+            for (int e = snapshot.offset(i); e < snapshot.offset(i + 1); e++) {
+                int j = targets[e];
+                if (i != j) {
+                    double ds = edgeDeltaSigmas[e];
+                    Neighbor toJ = communities.get(i).adjComs.computeIfAbsent(j, key -> new Neighbor());
+                    Neighbor fromJ = communities.get(j).adjComs.computeIfAbsent(i, key -> new Neighbor());
+                    toJ.deltaSigma = ds;
+                    toJ.edgesTo += 1.0;
+                    fromJ.deltaSigma = ds;
+                    // One candidate per pair, shared by both sides so either can take it off the heap.
+                    if (toJ.candidate == null) {
+                        var candidate = new MergeCandidate(i, j, ds);
+                        minHeap.add(candidate);
+                        toJ.candidate = candidate;
+                        fromJ.candidate = candidate;
+                    }
+                }
+            }
         }
-        partitions.add(initialPartition);
 
-        double mod0 = 0.0;
-        for (int cid : initialPartition) {
-            mod0 += communities.get(cid).modularity();
+        double mod = 0.0;
+        for (int cid = 0; cid < N; cid++) {
+            mod += communities.get(cid).modularity();
         }
-        modularities.add(mod0);
+        Dendrogram dendrogram = new Dendrogram(N, mod);
         if (verbose) {
-            System.out.println("Partition 0: " + initialPartition);
-            System.out.println("Q(0) = " + mod0);
+            System.out.println("Partition 0: " + communities.keySet());
+            System.out.println("Q(0) = " + mod);
         }
 
+        // Only live communities are kept in the map and only pairs of them in the heap, the
+        // candidates of merged communities are taken out as they merge.
         for (int k = 1; k < N; k++) {
-            Set<Integer> currentPartition = partitions.get(k - 1);
-            MergeCandidate candidate = null;
-            while (!minHeap.isEmpty()) {
-                candidate = minHeap.poll();
-                if (currentPartition.contains(candidate.comm1) && currentPartition.contains(candidate.comm2)) {
-                    break;
-                }
-                candidate = null;
-            }
-            if (candidate == null) break;
-
-            deltaSigmas.add(candidate.deltaSigma);
+            if (minHeap.isEmpty()) break;
+            MergeCandidate candidate = minHeap.poll();
 
             int newCommId = communityCount++;
-            Community newCommunity = new Community(newCommId, communities.get(candidate.comm1), communities.get(candidate.comm2));
+            Community c1 = communities.remove(candidate.comm1);
+            Community c2 = communities.remove(candidate.comm2);
+            Community newCommunity = new Community(newCommId, c1, c2);
             communities.put(newCommId, newCommunity);
-
-            Set<Integer> newPartition = new HashSet<>(currentPartition);
-            newPartition.remove(candidate.comm1);
-            newPartition.remove(candidate.comm2);
-            newPartition.add(newCommId);
-            partitions.add(newPartition);
-
-            for (Integer other : newCommunity.adjComs.keySet()) {
-                if (!newPartition.contains(other)) continue;
-                double ds;
-                if (communities.get(candidate.comm1).adjComs.containsKey(other) &&
-                        communities.get(candidate.comm2).adjComs.containsKey(other)) {
-                    double ds1 = communities.get(candidate.comm1).adjComs.get(other);
-                    double ds2 = communities.get(candidate.comm2).adjComs.get(other);
-                    ds = ((communities.get(candidate.comm1).size + communities.get(other).size) * ds1 +
-                            (communities.get(candidate.comm2).size + communities.get(other).size) * ds2 -
-                            communities.get(other).size * candidate.deltaSigma)
-                            / (newCommunity.size + communities.get(other).size);
-                } else {
-                    ds = computeDeltaSigmaForCommunities(newCommunity, communities.get(other));
-                }
-                minHeap.add(new MergeCandidate(newCommId, other, ds));
-                newCommunity.adjComs.put(other, ds);
-                communities.get(other).adjComs.put(newCommId, ds);
+            mergeNeighbors(newCommunity, c1, c2, candidate.deltaSigma, communities, minHeap);
+            if (vectorStore != null) {
+                // The merged communities are gone, their slots take later merges.
+                ((MappedProbabilityVector) c1.P_c).release();
+                ((MappedProbabilityVector) c2.P_c).release();
             }
 
-            double mod = 0.0;
-            for (int cid : newPartition) {
-                mod += communities.get(cid).modularity();
-            }
-            modularities.add(mod);
+            // Only the two merged communities and the new one change their share of Q.
+            mod += newCommunity.modularity() - c1.modularity() - c2.modularity();
+            dendrogram.addMerge(candidate.comm1, candidate.comm2, candidate.deltaSigma, mod);
             if (verbose) {
-                System.out.println("Partition " + k + ": " + newPartition);
+                System.out.println("Partition " + k + ": " + communities.keySet());
                 System.out.println("\tMerging " + candidate.comm1 + " + " + candidate.comm2 + " --> " + newCommId);
                 System.out.println("\tQ(" + k + ") = " + mod);
                 System.out.println("\tdelta_sigma = " + candidate.deltaSigma);
             }
         }
 
-        return new WalktrapResult(partitions, communities, deltaSigmas, modularities);
+        return new WalktrapResult(dendrogram, snapshot);
     }
 
-    private double[][] matrixPower(double[][] M, int p) {
-        int n = M.length;
-        double[][] result = identityMatrix(n);
-        for (int i = 0; i < p; i++) {
-            result = multiplyMatrices(result, M);
+    /**
+     * Gives the merged community the neighbors of C1 and C2 and every neighbor its new delta sigma.
+     * The larger of the two neighbor maps is reused and the smaller one folded into it, and the
+     * neighbors drop their entries for C1 and C2, so the maps only ever hold live communities.
+     * Likewise the candidates of C1 and C2 leave the heap and those of the merged community join it.
+     */
+    private void mergeNeighbors(Community merged, Community C1, Community C2, double deltaSigma,
+                                Map<Integer, Community> communities, CandidateHeap minHeap) {
+        for (Neighbor neighbor : C1.adjComs.values()) {
+            minHeap.remove(neighbor.candidate);
+        }
+        for (Neighbor neighbor : C2.adjComs.values()) {
+            minHeap.remove(neighbor.candidate);
+        }
+        Community big = C1.adjComs.size() >= C2.adjComs.size() ? C1 : C2;
+        Community small = big == C1 ? C2 : C1;
+        Map<Integer, Neighbor> neighbors = big.adjComs;
+        neighbors.remove(small.id);
+        for (Map.Entry<Integer, Neighbor> entry : small.adjComs.entrySet()) {
+            int other = entry.getKey();
+            if (other == big.id) continue;
+            Neighbor fromSmall = entry.getValue();
+            Neighbor fromBig = neighbors.get(other);
+            if (fromBig == null) {
+                neighbors.put(other, fromSmall);
+                continue;
+            }
+            // Adjacent to both, so the new delta sigma follows from the two old ones (Lance-Williams).
+            Community otherCommunity = communities.get(other);
+            fromBig.mergedDeltaSigma = ((big.size + otherCommunity.size) * fromBig.deltaSigma +
+                    (small.size + otherCommunity.size) * fromSmall.deltaSigma -
+                    otherCommunity.size * deltaSigma)
+                    / (merged.size + otherCommunity.size);
+            fromBig.sharedByBoth = true;
+            fromBig.edgesTo += fromSmall.edgesTo;
+        }
+        merged.adjComs = neighbors;
+
+        for (Map.Entry<Integer, Neighbor> entry : neighbors.entrySet()) {
+            int other = entry.getKey();
+            Neighbor toOther = entry.getValue();
+            Community otherCommunity = communities.get(other);
+            double ds = toOther.sharedByBoth
+                    ? toOther.mergedDeltaSigma
+                    : computeDeltaSigmaForCommunities(merged, otherCommunity);
+            var candidate = new MergeCandidate(merged.id, other, ds);
+            minHeap.add(candidate);
+            toOther.deltaSigma = ds;
+            toOther.sharedByBoth = false;
+            toOther.candidate = candidate;
+
+            Neighbor fromOther = new Neighbor();
+            fromOther.deltaSigma = ds;
+            fromOther.candidate = candidate;
+            Neighbor toC1 = otherCommunity.adjComs.remove(C1.id);
+            Neighbor toC2 = otherCommunity.adjComs.remove(C2.id);
+            if (toC1 != null) fromOther.edgesTo += toC1.edgesTo;
+            if (toC2 != null) fromOther.edgesTo += toC2.edgesTo;
+            otherCommunity.adjComs.put(merged.id, fromOther);
         }
-        return result;
     }
 
-    private double[][] identityMatrix(int n) {
-        double[][] I = new double[n][n];
-        for (int i = 0; i < n; i++) {
-            I[i][i] = 1.0;
-        }
-        return I;
+    /**
+     * Scratch space for {@link #walk}, reused across the walks of one thread.
+     */
+    private class WalkWorkspace {
+        final double[] acc = new double[N];
+        final boolean[] touched = new boolean[N];
+        int[] touchedList = new int[16];
+    }
+
+    private boolean sparseWalks() {
+        return sparse || vectorStore != null;
     }
 
-    private double[][] multiplyMatrices(double[][] X, double[][] Y) {
-        int n = X.length;
-        double[][] Z = new double[n][n];
-        for (int i = 0; i < n; i++) {
-            for (int j = 0; j < n; j++) {
-                double sum = 0.0;
-                for (int k = 0; k < n; k++) {
-                    sum += X[i][k] * Y[k][j];
+    /**
+     * Computes row u of P^t with t sparse vector-matrix steps over the adjacency lists. Each step
+     * adds the contributions to a vertex in ascending order of their source, the order a dense
+     * matrix product sums them in, so the dense and sparse rows hold the same values.
+     */
+    private ProbabilityVector walk(int u, WalkWorkspace ws) {
+        int[] targets = snapshot.targets();
+        int[] indices = {u};
+        double[] values = {1.0};
+        for (int step = 0; step < t; step++) {
+            int touchedCount = 0;
+            for (int a = 0; a < indices.length; a++) {
+                int k = indices[a];
+                double contribution = values[a] * transition[k];
+                for (int e = snapshot.offset(k); e < snapshot.offset(k + 1); e++) {
+                    int j = targets[e];
+                    if (!ws.touched[j]) {
+                        ws.touched[j] = true;
+                        if (touchedCount == ws.touchedList.length) {
+                            ws.touchedList = Arrays.copyOf(ws.touchedList, touchedCount * 2);
+                        }
+                        ws.touchedList[touchedCount++] = j;
+                    }
+                    ws.acc[j] += contribution;
                 }
-                Z[i][j] = sum;
+            }
+
+            Arrays.sort(ws.touchedList, 0, touchedCount);
+            int kept = 0;
+            indices = new int[touchedCount];
+            values = new double[touchedCount];
+            for (int a = 0; a < touchedCount; a++) {
+                int j = ws.touchedList[a];
+                double value = ws.acc[j];
+                ws.acc[j] = 0.0;
+                ws.touched[j] = false;
+                if (sparseWalks() && value < truncationThreshold) continue;
+                indices[kept] = j;
+                values[kept++] = value;
+            }
+            if (kept < touchedCount) {
+                indices = Arrays.copyOf(indices, kept);
+                values = Arrays.copyOf(values, kept);
             }
         }
-        return Z;
-    }
 
-    private double computeDeltaSigma(int u, int v) {
-        double sumSq = 0.0;
-        for (int j = 0; j < N; j++) {
-            double diff = Dx[j] * P_t[u][j] - Dx[j] * P_t[v][j];
-            sumSq += diff * diff;
+        if (sparseWalks()) {
+            return new SparseProbabilityVector(indices, values);
+        }
+        if (DxFloat != null) {
+            float[] row = new float[N];
+            for (int a = 0; a < indices.length; a++) {
+                row[indices[a]] = (float) values[a];
+            }
+            return new DenseFloatProbabilityVector(row, DxFloat, floatKernel);
+        }
+        double[] row = new double[N];
+        for (int a = 0; a < indices.length; a++) {
+            row[indices[a]] = values[a];
         }
-        return (0.5 / N) * sumSq;
+        return new DenseProbabilityVector(row);
+    }
+
+    private double computeDeltaSigma(ProbabilityVector u, ProbabilityVector v) {
+        return (0.5 / N) * u.weightedDistance(v, Dx);
     }
 
     private double computeDeltaSigmaForCommunities(Community C1, Community C2) {
-        double sumSq = 0.0;
-        for (int j = 0; j < N; j++) {
-            double diff = Dx[j] * C1.P_c[j] - Dx[j] * C2.P_c[j];
-            sumSq += diff * diff;
-        }
+        double sumSq = C1.P_c.weightedDistance(C2.P_c, Dx);
         return sumSq * (C1.size * C2.size) / ((C1.size + C2.size) * N);
     }
 
@@ -239,6 +442,8 @@ public class Walktrap<T> {
         int comm1;
         int comm2;
         double deltaSigma;
+        // The position in the CandidateHeap, -1 when not in it.
+        int heapIndex = -1;
 
         public MergeCandidate(int comm1, int comm2, double deltaSigma) {
             this.comm1 = comm1;
@@ -246,80 +451,189 @@ public class Walktrap<T> {
             this.deltaSigma = deltaSigma;
         }
 
+        /**
+         * Orders by delta sigma, then by the smaller and the larger community id of the pair, so
+         * ties merge in the same order on every run.
+         */
         @Override
         public int compareTo(MergeCandidate other) {
-            return Double.compare(this.deltaSigma, other.deltaSigma);
+            int cmp = Double.compare(this.deltaSigma, other.deltaSigma);
+            if (cmp != 0) return cmp;
+            cmp = Integer.compare(Math.min(comm1, comm2), Math.min(other.comm1, other.comm2));
+            if (cmp != 0) return cmp;
+            return Integer.compare(Math.max(comm1, comm2), Math.max(other.comm1, other.comm2));
+        }
+    }
+
+    /**
+     * A binary min-heap of merge candidates that keeps each candidate's position in it, so a
+     * candidate can be removed in O(log n) once one of its communities merges.
+     */
+    private static class CandidateHeap {
+        private MergeCandidate[] heap = new MergeCandidate[16];
+        private int size = 0;
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        void add(MergeCandidate candidate) {
+            if (size == heap.length) {
+                heap = Arrays.copyOf(heap, size * 2);
+            }
+            heap[size] = candidate;
+            candidate.heapIndex = size;
+            siftUp(size++);
+        }
+
+        MergeCandidate poll() {
+            MergeCandidate top = heap[0];
+            remove(top);
+            return top;
+        }
+
+        /**
+         * Removes the candidate if it is in the heap.
+         */
+        void remove(MergeCandidate candidate) {
+            int index = candidate.heapIndex;
+            if (index < 0) return;
+            candidate.heapIndex = -1;
+            MergeCandidate last = heap[--size];
+            heap[size] = null;
+            if (index == size) return;
+            heap[index] = last;
+            last.heapIndex = index;
+            siftDown(index);
+            siftUp(last.heapIndex);
+        }
+
+        private void siftUp(int index) {
+            MergeCandidate candidate = heap[index];
+            while (index > 0) {
+                int parent = (index - 1) >>> 1;
+                if (heap[parent].compareTo(candidate) <= 0) break;
+                heap[index] = heap[parent];
+                heap[index].heapIndex = index;
+                index = parent;
+            }
+            heap[index] = candidate;
+            candidate.heapIndex = index;
+        }
+
+        private void siftDown(int index) {
+            MergeCandidate candidate = heap[index];
+            int half = size >>> 1;
+            while (index < half) {
+                int child = 2 * index + 1;
+                if (child + 1 < size && heap[child + 1].compareTo(heap[child]) < 0) child++;
+                if (candidate.compareTo(heap[child]) <= 0) break;
+                heap[index] = heap[child];
+                heap[index].heapIndex = index;
+                index = child;
+            }
+            heap[index] = candidate;
+            candidate.heapIndex = index;
         }
     }
 
+    /**
+     * What a community knows about an adjacent community: the delta sigma of merging the two and
+     * the number of edges from the community to the adjacent one.
+     */
+    private static class Neighbor {
+        double deltaSigma;
+        double edgesTo;
+        // The heap entry for the pair, shared with the adjacent community's Neighbor.
+        MergeCandidate candidate;
+        // Only used while merging, when both merged communities were adjacent to this one.
+        boolean sharedByBoth;
+        double mergedDeltaSigma;
+    }
+
     public class Community {
         int id;
         int size;
-        double[] P_c;
-        Map<Integer, Double> adjComs;
-        public Set<Integer> vertices;
+        ProbabilityVector P_c;
+        Map<Integer, Neighbor> adjComs;
+        int firstVertex;
+        int lastVertex;
         double internalWeight;
         double totalWeight;
 
-        public Community(int id) {
+        public Community(int id, ProbabilityVector P_c) {
             this.id = id;
             this.size = 1;
-            this.P_c = Arrays.copyOf(P_t[id], N);
+            this.P_c = P_c;
             this.adjComs = new HashMap<>();
-            this.vertices = new HashSet<>();
-            this.vertices.add(id);
+            this.firstVertex = id;
+            this.lastVertex = id;
             this.internalWeight = 0.0;
-            int count = 0;
-            for (int j = 0; j < N; j++) {
-                if (j != id && A[id][j] == 1.0) count++;
-            }
+            int count = snapshot.degree(id);
+            if (snapshot.hasEdge(id, id)) count--;
             this.totalWeight = count / 2.0;
         }
 
+        /**
+         * Creates the merge of C1 and C2. The neighbor maps are left to
+         * {@link #mergeNeighbors}, the vertex lists are joined in O(1).
+         */
         public Community(int newId, Community C1, Community C2) {
             this.id = newId;
             this.size = C1.size + C2.size;
-            this.P_c = new double[N];
-            for (int j = 0; j < N; j++) {
-                this.P_c[j] = (C1.size * C1.P_c[j] + C2.size * C2.P_c[j]) / this.size;
-            }
-            this.adjComs = new HashMap<>();
-            this.adjComs.putAll(C1.adjComs);
-            this.adjComs.putAll(C2.adjComs);
-            this.adjComs.remove(C1.id);
-            this.adjComs.remove(C2.id);
-            this.vertices = new HashSet<>();
-            this.vertices.addAll(C1.vertices);
-            this.vertices.addAll(C2.vertices);
-            double weightBetween = 0.0;
-            for (int v1 : C1.vertices) {
-                for (int j = 0; j < N; j++) {
-                    if (A[v1][j] == 1.0 && C2.vertices.contains(j)) {
-                        weightBetween += 1.0;
-                    }
-                }
-            }
+            this.P_c = C1.P_c.merge(C1.size, C2.P_c, C2.size);
+            nextVertex[C1.lastVertex] = C2.firstVertex;
+            this.firstVertex = C1.firstVertex;
+            this.lastVertex = C2.lastVertex;
+            Neighbor between = C1.adjComs.get(C2.id);
+            double weightBetween = between == null ? 0.0 : between.edgesTo;
             this.internalWeight = C1.internalWeight + C2.internalWeight + weightBetween;
             this.totalWeight = C1.totalWeight + C2.totalWeight;
         }
 
+        public List<Integer> vertices() {
+            var vertices = new ArrayList<Integer>(size);
+            for (int v = firstVertex; v != -1; v = nextVertex[v]) {
+                vertices.add(v);
+            }
+            return vertices;
+        }
+
         public double modularity() {
             return (internalWeight - (totalWeight * totalWeight / G_total_weight)) / G_total_weight;
         }
     }
 
+    /**
+     * The merges of a run as a {@link Dendrogram} over the snapshot's vertex indices, with any cut
+     * of it mapped back to the graph's nodes on demand.
+     */
     public class WalktrapResult {
-        public final List<Set<Integer>> partitions;
-        public final Map<Integer, Community> communities;
-        public final List<Double> deltaSigmas;
-        public final List<Double> modularities;
-
-        public WalktrapResult(List<Set<Integer>> partitions, Map<Integer, Community> communities,
-                              List<Double> deltaSigmas, List<Double> modularities) {
-            this.partitions = partitions;
-            this.communities = communities;
-            this.deltaSigmas = deltaSigmas;
-            this.modularities = modularities;
+        public final Dendrogram dendrogram;
+        private final GraphSnapshot<T> snapshot;
+
+        public WalktrapResult(Dendrogram dendrogram, GraphSnapshot<T> snapshot) {
+            this.dendrogram = dendrogram;
+            this.snapshot = snapshot;
+        }
+
+        /**
+         * Returns the community of every node after the given number of merges.
+         */
+        public Map<T, Integer> assignment(int step) {
+            int[] communityOf = dendrogram.assignment(step);
+            Map<T, Integer> assignment = new HashMap<>();
+            for (int v = 0; v < communityOf.length; v++) {
+                assignment.put(snapshot.node(v), communityOf[v]);
+            }
+            return assignment;
+        }
+
+        /**
+         * Returns the community of every node in the partition with the highest modularity.
+         */
+        public Map<T, Integer> bestAssignment() {
+            return assignment(dendrogram.bestStep());
         }
     }
 }
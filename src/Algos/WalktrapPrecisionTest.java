@@ -0,0 +1,78 @@
+package Algos;
+
+import Exceptions.InvalidNodeAccessException;
+import GML.GMLReader;
+import GML.TabImporter;
+import Graphs.IGraph;
+import Graphs.Memory.AdjListGraph;
+
+import java.io.IOException;
+
+/**
+ * Runs Walktrap with double and with float32 dense vectors on the same graph and checks that the
+ * two agree within a tolerance, printing the time of each so the precision can be picked per run.
+ * When the Vector API kernel is on the class path, the float run is repeated with it and checked
+ * the same way.
+ * <p>
+ * Usage: {@code WalktrapPrecisionTest [graph file (.gml or edge list)]}
+ */
+public class WalktrapPrecisionTest {
+    private static final double DELTA_SIGMA_TOLERANCE = 1e-4;
+    private static final double MODULARITY_TOLERANCE = 1e-3;
+
+    public static void main(String[] args) throws IOException, InvalidNodeAccessException {
+        String path = args.length > 0 ? args[0] : "datasets/football.gml";
+
+        Dendrogram scalar = runWalktrap(path, false, false);
+        boolean passed = compare(scalar, runWalktrap(path, true, false));
+        if (FloatDistanceKernel.loadVectorKernel() != null) {
+            passed &= compare(scalar, runWalktrap(path, true, true));
+        }
+        System.out.println(passed ? "PASSED" : "FAILED");
+        if (!passed) System.exit(1);
+    }
+
+    private static boolean compare(Dendrogram scalar, Dendrogram single) {
+        // Merges are compared until the two runs pick different pairs, after that the delta
+        // sigmas belong to different communities.
+        int agreeing = 0;
+        double maxRelativeError = 0.0;
+        while (agreeing < Math.min(scalar.mergeCount(), single.mergeCount())
+                && scalar.community1(agreeing) == single.community1(agreeing)
+                && scalar.community2(agreeing) == single.community2(agreeing)) {
+            double expected = scalar.deltaSigma(agreeing);
+            double error = Math.abs(single.deltaSigma(agreeing) - expected) / Math.max(Math.abs(expected), 1e-300);
+            maxRelativeError = Math.max(maxRelativeError, error);
+            agreeing++;
+        }
+        double scalarBest = scalar.modularity(scalar.bestStep());
+        double singleBest = single.modularity(single.bestStep());
+
+        System.out.println("Identical merges: " + agreeing + " of " + scalar.mergeCount());
+        System.out.println("Max relative delta sigma error: " + maxRelativeError);
+        System.out.println("Best Q: double " + scalarBest + ", float " + singleBest);
+
+        return maxRelativeError <= DELTA_SIGMA_TOLERANCE
+                && Math.abs(scalarBest - singleBest) <= MODULARITY_TOLERANCE;
+    }
+
+    private static Dendrogram runWalktrap(String path, boolean singlePrecision, boolean vectorKernel)
+            throws IOException, InvalidNodeAccessException {
+        IGraph<Integer> graph = new AdjListGraph<>();
+        if (path.endsWith(".gml")) {
+            GMLReader.readGML(path, graph);
+        } else {
+            TabImporter.readGraph(path, graph, false);
+        }
+
+        var walktrap = new Walktrap<>(graph, 10, true, false);
+        walktrap.setSinglePrecision(singlePrecision);
+        walktrap.setVectorKernel(vectorKernel);
+
+        long startTime = System.nanoTime();
+        var result = walktrap.run();
+        long endTime = System.nanoTime();
+        System.out.println((singlePrecision ? vectorKernel ? "float, vector kernel" : "float" : "double") + ": " + (endTime - startTime) / (long) 1e6 + " ms");
+        return result.dendrogram;
+    }
+}
@@ -14,7 +14,7 @@ public class WalktrapTest {
 
         IGraph<Integer> graph = new AdjListGraph<>();
         GMLReader.readGML(
-            "C:\\Users\\Clinten\\Documents\\Courses\\2245\\Capstone\\RelationStorageTestbed\\datasets\\football.gml",
+            "datasets" + File.separator + "football.gml",
             graph
         );
 
@@ -25,25 +25,7 @@ public class WalktrapTest {
         long endTime = System.nanoTime();
         System.out.println(endTime - startTime);
 
-        List<Double> mods = result.modularities;
-        int bestIndex = 0;
-        double bestMod = mods.getFirst();
-        for (int i = 1; i < mods.size(); i++) {
-            if (mods.get(i) > bestMod) {
-                bestMod = mods.get(i);
-                bestIndex = i;
-            }
-        }
-
-        Set<Integer> bestPartition = result.partitions.get(bestIndex);
-
-        Map<Integer, Integer> bestAssignment = new HashMap<>();
-        for (Integer commId : bestPartition) {
-            Set<Integer> vertices = result.communities.get(commId).vertices;
-            for (Integer v : vertices) {
-                bestAssignment.put(v, commId);
-            }
-        }
+        Map<Integer, Integer> bestAssignment = result.bestAssignment();
 
         try (PrintWriter pw = new PrintWriter("best_partition.csv")) {
             pw.println("node,community");
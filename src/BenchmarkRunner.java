@@ -0,0 +1,525 @@
+import Exceptions.InvalidNodeAccessException;
+import GML.ParallelTabImporter;
+import Graphs.Disk.CachingGraph;
+import Graphs.Edge;
+import Graphs.EdgeCursor;
+import Graphs.IGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/**
+ * Runs the query benchmark from the command line and writes the results in machine-readable form.
+ * Every graph type is loaded from the dataset once per run, then each query is issued against random
+ * nodes and timed on its own into a {@link LatencyHistogram}, merged over the measured runs. The
+ * first runs of each type are warmup and are not recorded.
+ * <p>
+ * Besides the latency summary the runner times {@code getRandomRelationship} on every node, in
+ * order of falling out degree, as {@code QueryBenchmark} does for the out degree plots. Both go to
+ * the output directory, named after the dataset:
+ * <ul>
+ *     <li>{@code <dataset>.summary.json} and {@code .summary.csv}, one row per type and query with
+ *     the count, min, mean, p50, p90, p99, p999 and max in nanoseconds.</li>
+ *     <li>{@code <dataset>.per_node.json} and {@code .per_node.csv}, the mean time of a call on each
+ *     node for each measured run.</li>
+ * </ul>
+ * With {@code --cache-bytes} the disk stores are read through a {@link CachingGraph}, and the
+ * summary also counts the cache hits and misses of each query over the measured runs.
+ */
+public class BenchmarkRunner {
+    private static final String USAGE = """
+            Usage: BenchmarkRunner [options]
+              --dataset <path>         edge list to load (default datasets/email-Eu-core.txt)
+              --types <list>           comma separated graph types, or all (default all)
+              --runs <n>               measured runs of each type (default 5)
+              --warmup <n>             unrecorded runs before them (default 1)
+              --queries <n>            queries of each kind per run (default 10000)
+              --per-node <n>           getRandomRelationship calls averaged per node (default 50, 0 to skip)
+              --out <dir>              directory for the results (default results)
+              --data-dir <dir>         directory for the disk stores' files (default a temp directory)
+              --format <json|csv|all>  result formats to write (default all)
+              --directed               load the dataset as directed (default undirected)
+              --cache-bytes <n>        cache up to n bytes of the disk stores' neighbor lists (default 0, no cache)
+            Graph types:\s""" + Arrays.toString(GraphType.values());
+
+    private static final long SEED = 8675309;
+
+    /**
+     * The operations timed by every run.
+     */
+    enum Operation {
+        IMPORT("import"),
+        RANDOM_NODE("random_node"),
+        RELATIONSHIPS("relationships"),
+        RANDOM_RELATIONSHIP("random_relationship"),
+        INCOMING_RELATIONSHIPS("incoming_relationships"),
+        IN_DEGREE("in_degree");
+
+        final String key;
+
+        Operation(String key) {
+            this.key = key;
+        }
+    }
+
+    private String dataset = Path.of("datasets", "email-Eu-core.txt").toString();
+    private List<GraphType> types = List.of(GraphType.values());
+    private int runs = 5;
+    private int warmup = 1;
+    private int queries = 10_000;
+    private int perNode = 50;
+    private Path outDir = Path.of("results");
+    private Path dataDir = null;
+    private boolean writeJson = true;
+    private boolean writeCsv = true;
+    private boolean directed = false;
+    private long cacheBytes = 0;
+
+    private final Map<GraphType, EnumMap<Operation, LatencyHistogram>> latencies = new LinkedHashMap<>();
+    private final Map<GraphType, PerNodeTimes> perNodeTimes = new LinkedHashMap<>();
+    // Cache hits and misses of each query over the measured runs, for the cached types.
+    private final Map<GraphType, EnumMap<Operation, long[]>> cacheCounts = new LinkedHashMap<>();
+
+    /**
+     * The per node times of one type, nodes in order of falling out degree.
+     */
+    private static class PerNodeTimes {
+        final int[] nodes;
+        final int[] outDegrees;
+        final List<long[]> runs = new ArrayList<>();
+
+        PerNodeTimes(int[] nodes, int[] outDegrees) {
+            this.nodes = nodes;
+            this.outDegrees = outDegrees;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        var runner = new BenchmarkRunner();
+        try {
+            runner.parseArgs(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(2);
+        }
+        runner.run();
+    }
+
+    private void parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String arg = args[i];
+            switch (arg) {
+                case "--help", "-h" -> {
+                    System.out.println(USAGE);
+                    System.exit(0);
+                }
+                case "--directed" -> directed = true;
+                case "--dataset" -> dataset = value(args, ++i, arg);
+                case "--types" -> types = parseTypes(value(args, ++i, arg));
+                case "--runs" -> runs = parseCount(value(args, ++i, arg), arg, 1);
+                case "--warmup" -> warmup = parseCount(value(args, ++i, arg), arg, 0);
+                case "--queries" -> queries = parseCount(value(args, ++i, arg), arg, 0);
+                case "--per-node" -> perNode = parseCount(value(args, ++i, arg), arg, 0);
+                case "--out" -> outDir = Path.of(value(args, ++i, arg));
+                case "--data-dir" -> dataDir = Path.of(value(args, ++i, arg));
+                case "--cache-bytes" -> cacheBytes = parseBytes(value(args, ++i, arg), arg);
+                case "--format" -> {
+                    String format = value(args, ++i, arg);
+                    if (!format.equals("json") && !format.equals("csv") && !format.equals("all")) {
+                        throw new IllegalArgumentException("Unknown format: " + format);
+                    }
+                    writeJson = !format.equals("csv");
+                    writeCsv = !format.equals("json");
+                }
+                default -> throw new IllegalArgumentException("Unknown option: " + arg);
+            }
+        }
+        if (!new File(dataset).isFile()) {
+            throw new IllegalArgumentException("The dataset does not exist: " + dataset);
+        }
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) {
+            throw new IllegalArgumentException(option + " needs a value.");
+        }
+        return args[i];
+    }
+
+    private static int parseCount(String value, String option, int min) {
+        try {
+            int count = Integer.parseInt(value);
+            if (count >= min) return count;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(option + " needs a whole number of at least " + min + ": " + value);
+    }
+
+    private static long parseBytes(String value, String option) {
+        try {
+            long bytes = Long.parseLong(value);
+            if (bytes >= 0) return bytes;
+        } catch (NumberFormatException ignored) {
+        }
+        throw new IllegalArgumentException(option + " needs a byte count of at least 0: " + value);
+    }
+
+    private static List<GraphType> parseTypes(String value) {
+        if (value.equalsIgnoreCase("all")) return List.of(GraphType.values());
+        var parsed = new ArrayList<GraphType>();
+        for (String name : value.split(",")) {
+            try {
+                parsed.add(GraphType.valueOf(name.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Unknown graph type: " + name);
+            }
+        }
+        return parsed;
+    }
+
+    private void run() throws IOException {
+        Files.createDirectories(outDir);
+        Path storeRoot = dataDir != null ? Files.createDirectories(dataDir) : Files.createTempDirectory("benchmark");
+
+        for (GraphType type : types) {
+            for (int run = 0; run < warmup + runs; run++) {
+                boolean measured = run >= warmup;
+                System.out.println(type.name() + (measured ? " (" + (run - warmup) + "):" : " (warmup):"));
+                Path directory = Files.createDirectories(storeRoot.resolve(type.name()));
+                try (var graph = GraphFactory.createCachingGraph(type, directory.toString(), "nodes.dat", "edges.dat", cacheBytes)) {
+                    runOnce(type, graph, measured);
+                } catch (Exception e) {
+                    System.out.flush();
+                    System.out.println("\tTest failed due to: " + e.getMessage());
+                }
+                deleteFiles(directory);
+            }
+        }
+        if (dataDir == null) deleteFiles(storeRoot);
+
+        String name = datasetName();
+        if (writeJson) {
+            writeSummaryJson(outDir.resolve(name + ".summary.json"));
+            if (perNode > 0) writePerNodeJson(outDir.resolve(name + ".per_node.json"));
+        }
+        if (writeCsv) {
+            writeSummaryCsv(outDir.resolve(name + ".summary.csv"));
+            if (perNode > 0) writePerNodeCsv(outDir.resolve(name + ".per_node.csv"));
+        }
+        System.out.println("Results written to " + outDir.toAbsolutePath());
+    }
+
+    /**
+     * Loads the dataset into the empty graph and times every operation, recording the times if the
+     * run is measured.
+     */
+    private void runOnce(GraphType type, IGraph<Integer> graph, boolean measured) throws Exception {
+        var histograms = new EnumMap<Operation, LatencyHistogram>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            histograms.put(operation, new LatencyHistogram());
+        }
+
+        long startTime = System.nanoTime();
+        ParallelTabImporter.readGraph(dataset, graph, directed);
+        histograms.get(Operation.IMPORT).record(System.nanoTime() - startTime);
+
+        int[] nodes = readNodes(graph);
+        if (nodes.length == 0) {
+            throw new IOException("No nodes available in the graph.");
+        }
+
+        // The same nodes in every run, so runs and types are comparable.
+        var rand = new Random(SEED);
+        var cache = graph instanceof CachingGraph c ? c : null;
+        var counts = new EnumMap<Operation, long[]>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            if (operation == Operation.IMPORT) continue;
+            var histogram = histograms.get(operation);
+            long hits = cache != null ? cache.getCacheHits() : 0;
+            long misses = cache != null ? cache.getCacheMisses() : 0;
+            for (int i = 0; i < queries; i++) {
+                int node = nodes[rand.nextInt(nodes.length)];
+                startTime = System.nanoTime();
+                query(graph, operation, node);
+                histogram.record(System.nanoTime() - startTime);
+            }
+            if (cache != null) {
+                counts.put(operation, new long[]{cache.getCacheHits() - hits, cache.getCacheMisses() - misses});
+            }
+        }
+
+        long[] times = null;
+        if (perNode > 0) {
+            var perNodeOrder = perNodeTimes.get(type);
+            if (perNodeOrder == null) {
+                perNodeOrder = sortByOutDegree(graph, nodes);
+                perNodeTimes.put(type, perNodeOrder);
+            }
+            times = new long[perNodeOrder.nodes.length];
+            for (int i = 0; i < times.length; i++) {
+                int node = perNodeOrder.nodes[i];
+                startTime = System.nanoTime();
+                for (int call = 0; call < perNode; call++) {
+                    graph.getRandomRelationship(node);
+                }
+                times[i] = (System.nanoTime() - startTime) / perNode;
+            }
+        }
+
+        for (Operation operation : Operation.values()) {
+            var histogram = histograms.get(operation);
+            System.out.println(outputString(operation, histogram) + cacheString(counts.get(operation)));
+        }
+        if (!measured) return;
+
+        var merged = latencies.computeIfAbsent(type, t -> {
+            var empty = new EnumMap<Operation, LatencyHistogram>(Operation.class);
+            for (Operation operation : Operation.values()) {
+                empty.put(operation, new LatencyHistogram());
+            }
+            return empty;
+        });
+        for (Operation operation : Operation.values()) {
+            merged.get(operation).merge(histograms.get(operation));
+        }
+        if (times != null) perNodeTimes.get(type).runs.add(times);
+        if (cache != null) {
+            var mergedCounts = cacheCounts.computeIfAbsent(type, t -> new EnumMap<>(Operation.class));
+            for (var entry : counts.entrySet()) {
+                long[] total = mergedCounts.computeIfAbsent(entry.getKey(), o -> new long[2]);
+                total[0] += entry.getValue()[0];
+                total[1] += entry.getValue()[1];
+            }
+        }
+    }
+
+    private static void query(IGraph<Integer> graph, Operation operation, int node)
+            throws InvalidNodeAccessException, IOException {
+        switch (operation) {
+            case RANDOM_NODE -> graph.getRandomNode();
+            case RELATIONSHIPS -> {
+                for (Iterator<Edge<Integer>> it = graph.getRelationships(node); it.hasNext(); ) {
+                    it.next();
+                }
+            }
+            case RANDOM_RELATIONSHIP -> graph.getRandomRelationship(node);
+            case INCOMING_RELATIONSHIPS -> {
+                for (Iterator<Edge<Integer>> it = graph.getIncomingRelationships(node); it.hasNext(); ) {
+                    it.next();
+                }
+            }
+            case IN_DEGREE -> graph.inDegree(node);
+            default -> throw new IllegalArgumentException("Not a query: " + operation);
+        }
+    }
+
+    private static int[] readNodes(IGraph<Integer> graph) throws IOException {
+        var ids = new ArrayList<Integer>();
+        for (Iterator<Integer> it = graph.getNodes(); it.hasNext(); ) {
+            ids.add(it.next());
+        }
+        return ids.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
+    }
+
+    /**
+     * Orders the nodes by falling out degree, ties by id.
+     */
+    private static PerNodeTimes sortByOutDegree(IGraph<Integer> graph, int[] nodes)
+            throws InvalidNodeAccessException, IOException {
+        var degrees = new HashMap<Integer, Integer>();
+        EdgeCursor<Integer> cursor = null;
+        for (int node : nodes) {
+            if (cursor == null) {
+                cursor = graph.openEdgeCursor(node);
+            } else {
+                cursor.reset(node);
+            }
+            int degree = 0;
+            while (cursor.next()) {
+                degree++;
+            }
+            degrees.put(node, degree);
+        }
+        Integer[] order = Arrays.stream(nodes).boxed().toArray(Integer[]::new);
+        Arrays.sort(order, Comparator.comparing((Integer node) -> degrees.get(node)).reversed()
+                .thenComparing(Comparator.naturalOrder()));
+
+        int[] sorted = new int[order.length];
+        int[] outDegrees = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sorted[i] = order[i];
+            outDegrees[i] = degrees.get(order[i]);
+        }
+        return new PerNodeTimes(sorted, outDegrees);
+    }
+
+    private String datasetName() {
+        String name = Path.of(dataset).getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return dot > 0 ? name.substring(0, dot) : name;
+    }
+
+    private void writeSummaryJson(Path path) throws IOException {
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("{");
+            writer.println("  \"dataset\": " + jsonString(dataset) + ",");
+            writer.println("  \"directed\": " + directed + ",");
+            writer.println("  \"runs\": " + runs + ",");
+            writer.println("  \"warmup\": " + warmup + ",");
+            writer.println("  \"queries\": " + queries + ",");
+            writer.println("  \"cache_bytes\": " + cacheBytes + ",");
+            writer.println("  \"results\": [");
+            var rows = new ArrayList<String>();
+            for (var typeEntry : latencies.entrySet()) {
+                GraphType type = typeEntry.getKey();
+                for (var entry : typeEntry.getValue().entrySet()) {
+                    LatencyHistogram histogram = entry.getValue();
+                    long[] cache = cacheCounts(type, entry.getKey());
+                    rows.add("    {\"type\": " + jsonString(type.name()) +
+                            ", \"name\": " + jsonString(type.name) +
+                            ", \"disk\": " + type.usesDisk +
+                            ", \"query\": " + jsonString(entry.getKey().key) +
+                            ", \"count\": " + histogram.getTotalCount() +
+                            ", \"min_ns\": " + histogram.getMin() +
+                            ", \"mean_ns\": " + String.format(Locale.ROOT, "%.1f", histogram.getMean()) +
+                            ", \"p50_ns\": " + histogram.getValueAtPercentile(50) +
+                            ", \"p90_ns\": " + histogram.getValueAtPercentile(90) +
+                            ", \"p99_ns\": " + histogram.getValueAtPercentile(99) +
+                            ", \"p999_ns\": " + histogram.getValueAtPercentile(99.9) +
+                            ", \"max_ns\": " + histogram.getMax() +
+                            ", \"cache_hits\": " + cache[0] +
+                            ", \"cache_misses\": " + cache[1] + "}");
+                }
+            }
+            writer.println(String.join(",\n", rows));
+            writer.println("  ]");
+            writer.println("}");
+        }
+    }
+
+    private void writeSummaryCsv(Path path) throws IOException {
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("type,name,disk,query,count,min_ns,mean_ns,p50_ns,p90_ns,p99_ns,p999_ns,max_ns,cache_hits,cache_misses");
+            for (var typeEntry : latencies.entrySet()) {
+                GraphType type = typeEntry.getKey();
+                for (var entry : typeEntry.getValue().entrySet()) {
+                    LatencyHistogram histogram = entry.getValue();
+                    long[] cache = cacheCounts(type, entry.getKey());
+                    writer.println(type.name() + "," + type.name + "," + type.usesDisk + "," +
+                            entry.getKey().key + "," +
+                            histogram.getTotalCount() + "," +
+                            histogram.getMin() + "," +
+                            String.format(Locale.ROOT, "%.1f", histogram.getMean()) + "," +
+                            histogram.getValueAtPercentile(50) + "," +
+                            histogram.getValueAtPercentile(90) + "," +
+                            histogram.getValueAtPercentile(99) + "," +
+                            histogram.getValueAtPercentile(99.9) + "," +
+                            histogram.getMax() + "," +
+                            cache[0] + "," +
+                            cache[1]);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the cache hits and misses of a query over the measured runs, both 0 for an uncached
+     * type.
+     */
+    private long[] cacheCounts(GraphType type, Operation operation) {
+        var counts = cacheCounts.get(type);
+        long[] total = counts != null ? counts.get(operation) : null;
+        return total != null ? total : new long[2];
+    }
+
+    private void writePerNodeJson(Path path) throws IOException {
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("{");
+            writer.println("  \"dataset\": " + jsonString(dataset) + ",");
+            writer.println("  \"calls_per_node\": " + perNode + ",");
+            writer.println("  \"results\": [");
+            var rows = new ArrayList<String>();
+            for (var entry : perNodeTimes.entrySet()) {
+                GraphType type = entry.getKey();
+                PerNodeTimes times = entry.getValue();
+                var runArrays = new ArrayList<String>();
+                for (long[] run : times.runs) {
+                    runArrays.add(Arrays.toString(run));
+                }
+                rows.add("    {\"type\": " + jsonString(type.name()) +
+                        ", \"name\": " + jsonString(type.name) +
+                        ", \"disk\": " + type.usesDisk +
+                        ",\n     \"nodes\": " + Arrays.toString(times.nodes) +
+                        ",\n     \"out_degrees\": " + Arrays.toString(times.outDegrees) +
+                        ",\n     \"runs_ns\": [" + String.join(", ", runArrays) + "]}");
+            }
+            writer.println(String.join(",\n", rows));
+            writer.println("  ]");
+            writer.println("}");
+        }
+    }
+
+    private void writePerNodeCsv(Path path) throws IOException {
+        try (var writer = new PrintWriter(Files.newBufferedWriter(path))) {
+            writer.println("type,name,disk,run,rank,node,out_degree,ns");
+            for (var entry : perNodeTimes.entrySet()) {
+                GraphType type = entry.getKey();
+                PerNodeTimes times = entry.getValue();
+                for (int run = 0; run < times.runs.size(); run++) {
+                    long[] runTimes = times.runs.get(run);
+                    for (int i = 0; i < runTimes.length; i++) {
+                        writer.println(type.name() + "," + type.name + "," + type.usesDisk + "," +
+                                run + "," + i + "," + times.nodes[i] + "," + times.outDegrees[i] + "," +
+                                runTimes[i]);
+                    }
+                }
+            }
+        }
+    }
+
+    private static String jsonString(String value) {
+        var sb = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            switch (c) {
+                case '"' -> sb.append("\\\"");
+                case '\\' -> sb.append("\\\\");
+                case '\n' -> sb.append("\\n");
+                case '\r' -> sb.append("\\r");
+                case '\t' -> sb.append("\\t");
+                default -> {
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+                }
+            }
+        }
+        return sb.append('"').toString();
+    }
+
+    private static void deleteFiles(Path directory) throws IOException {
+        if (!Files.isDirectory(directory)) return;
+        try (var paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(path);
+            }
+        }
+    }
+
+    private static String cacheString(long[] counts) {
+        return counts != null ? ", cache hits " + counts[0] + ", misses " + counts[1] : "";
+    }
+
+    private String outputString(Operation operation, LatencyHistogram histogram) {
+        return String.format(Locale.ROOT, "\tQuery: %s (%d) p50 %d ns, p99 %d ns, p999 %d ns, max %d ns",
+                operation.key,
+                histogram.getTotalCount(),
+                histogram.getValueAtPercentile(50),
+                histogram.getValueAtPercentile(99),
+                histogram.getValueAtPercentile(99.9),
+                histogram.getMax());
+    }
+}
@@ -1,7 +1,7 @@
 package GML;
 
 import Exceptions.InvalidNodeAccessException;
-import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
 import java.io.FileWriter;
@@ -59,11 +59,16 @@ public class GraphMLExporter {
         // Write edges.
         // Since IGraph does not provide a method for all edges, iterate over nodes and their neighbors.
         Set<String> seenEdges = new HashSet<>();
+        EdgeCursor<Integer> cursor = null;
         for (Iterator<Integer> nodsIter = graph.getNodes(); nodsIter.hasNext(); ) {
             var sourceId = nodsIter.next();
-            for (Iterator<Edge<Integer>> edgesIter = graph.getRelationships(sourceId); edgesIter.hasNext(); ) {
-                var target = edgesIter.next();
-                int targetId = target.getTarget();
+            if (cursor == null) {
+                cursor = graph.openEdgeCursor(sourceId);
+            } else {
+                cursor.reset(sourceId);
+            }
+            while (cursor.next()) {
+                int targetId = cursor.target();
                 String edgeKey = sourceId <= targetId ? sourceId + "_" + targetId : targetId + "_" + sourceId;
                 if (seenEdges.contains(edgeKey)) continue;
                 seenEdges.add(edgeKey);
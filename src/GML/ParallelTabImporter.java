@@ -0,0 +1,217 @@
+package GML;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.BulkLoadable;
+import Graphs.Disk.EdgeBatch;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Reads the same whitespace separated edge lists as {@link TabImporter}, but memory maps the file,
+ * splits it into newline aligned chunks and parses the ints straight from the bytes on a fork-join
+ * pool. Each chunk is fed to the graph as soon as it and every chunk before it are parsed, so
+ * insertion overlaps parsing and the graph ends up exactly as {@link TabImporter} would have built
+ * it.
+ */
+public class ParallelTabImporter {
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+    private static final long MAX_CHUNK_SIZE = 1L << 28;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    public static void readGraph(String filename, IGraph<Integer> graph, boolean directed) throws IOException {
+        readGraph(filename, graph, directed, ForkJoinPool.commonPool());
+    }
+
+    public static void readGraph(String filename, IGraph<Integer> graph, boolean directed, ForkJoinPool pool) throws IOException {
+        List<MappedByteBuffer> chunks;
+        try (FileChannel channel = FileChannel.open(Path.of(filename), StandardOpenOption.READ)) {
+            chunks = mapChunks(channel, pool.getParallelism());
+        }
+
+        // At most this many chunks are parsed ahead of the one being inserted, so only a window of
+        // the file's relationships is held in memory at once.
+        int window = pool.getParallelism() * 2;
+        var pending = new ArrayDeque<ForkJoinTask<EdgeBatch>>();
+        int next = 0;
+        try {
+            if (graph instanceof BulkLoadable bulkGraph) {
+                // A bulk load writes the store's final layout in one pass, which needs every
+                // relationship up front, so the chunks are still gathered into a single batch.
+                EdgeBatch edges = new EdgeBatch();
+                for (MappedByteBuffer chunk : chunks) {
+                    pending.add(pool.submit(parseTask(chunk, directed)));
+                }
+                while (!pending.isEmpty()) {
+                    edges.addAll(pending.poll().join());
+                }
+                bulkGraph.addRelationships(edges);
+                return;
+            }
+            // Each chunk is inserted as soon as it and every earlier chunk are parsed, while the
+            // pool parses the chunks after it.
+            while (next < chunks.size() || !pending.isEmpty()) {
+                while (next < chunks.size() && pending.size() < window) {
+                    pending.add(pool.submit(parseTask(chunks.get(next++), directed)));
+                }
+                insert(pending.poll().join(), graph, directed);
+            }
+        } catch (InvalidNodeAccessException e) {
+            throw new RuntimeException(e);
+        } finally {
+            for (ForkJoinTask<EdgeBatch> task : pending) {
+                task.cancel(false);
+            }
+        }
+    }
+
+    private static Callable<EdgeBatch> parseTask(MappedByteBuffer chunk, boolean directed) {
+        return () -> parse(chunk, directed);
+    }
+
+    private static void insert(EdgeBatch edges, IGraph<Integer> graph, boolean directed) throws InvalidNodeAccessException, IOException {
+        // An undirected line was parsed into a relationship and its reverse, which are added
+        // together after their nodes, the same calls TabImporter makes for the line.
+        int step = directed ? 1 : 2;
+        for (int i = 0; i < edges.size(); i += step) {
+            int fromId = edges.source(i);
+            int toId = edges.target(i);
+            graph.addNode(fromId);
+            graph.addNode(toId);
+            graph.addRelationship("default", fromId, toId);
+            if (!directed) graph.addRelationship("default", toId, fromId);
+        }
+    }
+
+    /**
+     * Maps the file as a list of chunks that each end just past a newline (or at the end of the
+     * file), so no line is split between two chunks.
+     */
+    private static List<MappedByteBuffer> mapChunks(FileChannel channel, int parallelism) throws IOException {
+        long size = channel.size();
+        long chunkSize = Math.clamp(size / ((long) parallelism * CHUNKS_PER_THREAD), MIN_CHUNK_SIZE, MAX_CHUNK_SIZE);
+
+        var chunks = new ArrayList<MappedByteBuffer>();
+        long start = 0;
+        while (start < size) {
+            long end = Math.min(start + chunkSize, size);
+            if (end < size) {
+                end = nextLineStart(channel, end, size);
+            }
+            chunks.add(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start));
+            start = end;
+        }
+        return chunks;
+    }
+
+    private static long nextLineStart(FileChannel channel, long pos, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        while (pos < size) {
+            buffer.clear();
+            int read = channel.read(buffer, pos);
+            if (read < 0) break;
+            for (int i = 0; i < read; i++) {
+                if (buffer.get(i) == '\n') {
+                    return pos + i + 1;
+                }
+            }
+            pos += read;
+        }
+        return size;
+    }
+
+    /**
+     * Parses every line of a chunk. Like {@link TabImporter}, blank lines and lines starting with
+     * '#' are skipped, the first two whitespace separated tokens are the source and target and any
+     * line without two valid ints is reported and skipped.
+     */
+    private static EdgeBatch parse(MappedByteBuffer chunk, boolean directed) {
+        int limit = chunk.limit();
+        var edges = new EdgeBatch((int) Math.min(limit / 8L + 16, Integer.MAX_VALUE - 8));
+        int[] pos = new int[1];
+
+        int lineStart = 0;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && chunk.get(lineEnd) != '\n') {
+                lineEnd++;
+            }
+
+            pos[0] = skipWhitespace(chunk, lineStart, lineEnd);
+            if (pos[0] < lineEnd && chunk.get(pos[0]) != '#') {
+                long fromId = parseInt(chunk, pos, lineEnd);
+                pos[0] = skipWhitespace(chunk, pos[0], lineEnd);
+                long toId = parseInt(chunk, pos, lineEnd);
+                if (fromId == Long.MIN_VALUE || toId == Long.MIN_VALUE) {
+                    System.err.println("Skipping invalid line: " + line(chunk, lineStart, lineEnd));
+                } else {
+                    edges.add((int) fromId, (int) toId);
+                    if (!directed) edges.add((int) toId, (int) fromId);
+                }
+            }
+            lineStart = lineEnd + 1;
+        }
+        return edges;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        // String.trim and \s both treat these as blanks.
+        return b == ' ' || b == '\t' || b == '\r' || b == '\f' || b == 0x0B;
+    }
+
+    private static int skipWhitespace(MappedByteBuffer chunk, int pos, int end) {
+        while (pos < end && isWhitespace(chunk.get(pos))) {
+            pos++;
+        }
+        return pos;
+    }
+
+    /**
+     * Parses the token at {@code pos[0]} as an int and moves {@code pos[0]} past it.
+     *
+     * @return the value, or Long.MIN_VALUE if the token is missing or is not a valid int.
+     */
+    private static long parseInt(MappedByteBuffer chunk, int[] pos, int end) {
+        int p = pos[0];
+        int tokenEnd = p;
+        while (tokenEnd < end && !isWhitespace(chunk.get(tokenEnd))) {
+            tokenEnd++;
+        }
+        pos[0] = tokenEnd;
+
+        boolean negative = false;
+        if (p < tokenEnd && (chunk.get(p) == '-' || chunk.get(p) == '+')) {
+            negative = chunk.get(p) == '-';
+            p++;
+        }
+        if (p == tokenEnd) return Long.MIN_VALUE;
+
+        long value = 0;
+        for (; p < tokenEnd; p++) {
+            int digit = chunk.get(p) - '0';
+            if (digit < 0 || digit > 9) return Long.MIN_VALUE;
+            value = value * 10 + digit;
+            if (value > Integer.MAX_VALUE + 1L) return Long.MIN_VALUE;
+        }
+        value = negative ? -value : value;
+        return value > Integer.MAX_VALUE ? Long.MIN_VALUE : value;
+    }
+
+    private static String line(MappedByteBuffer chunk, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        chunk.get(start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8).trim();
+    }
+}
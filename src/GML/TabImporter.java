@@ -1,6 +1,8 @@
 package GML;
 
 import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.BulkLoadable;
+import Graphs.Disk.EdgeBatch;
 import Graphs.IGraph;
 
 import java.io.BufferedReader;
@@ -10,6 +12,8 @@ import java.io.IOException;
 public class TabImporter {
 
     public static void readGraph(String filename, IGraph<Integer> graph, boolean directed) throws IOException {
+        // Stores that can take a batch get the whole file at once rather than an edge at a time.
+        EdgeBatch batch = graph instanceof BulkLoadable ? new EdgeBatch() : null;
         BufferedReader br = new BufferedReader(new FileReader(filename));
         String line;
         while ((line = br.readLine()) != null) {
@@ -27,6 +31,11 @@ public class TabImporter {
             try {
                 int fromId = Integer.parseInt(tokens[0]);
                 int toId = Integer.parseInt(tokens[1]);
+                if (batch != null) {
+                    batch.add(fromId, toId);
+                    if (!directed) batch.add(toId, fromId);
+                    continue;
+                }
                 graph.addNode(fromId);
                 graph.addNode(toId);
                 graph.addRelationship("default", fromId, toId);
@@ -38,5 +47,13 @@ public class TabImporter {
             }
         }
         br.close();
+
+        if (batch != null) {
+            try {
+                ((BulkLoadable) graph).addRelationships(batch);
+            } catch (InvalidNodeAccessException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 }
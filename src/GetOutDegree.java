@@ -1,15 +1,17 @@
 import Exceptions.InvalidNodeAccessException;
 import GML.TabImporter;
-import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
+import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.*;
 
 public class GetOutDegree {
-    private static final String BASE_PATH = "C:\\Users\\Clinten\\Documents\\Courses\\2245\\Capstone\\RelationStorageTestbed\\datasets\\";
+    // Relative to the working directory, the repository root.
+    private static final String BASE_PATH = "datasets" + File.separator;
 //    private static final String EU_GML_LOC = BASE_PATH + "email-Eu-core.txt";
 //    private static final String EU_OUT_DEG_LOC = BASE_PATH + "email-Eu-core.outdeg.txt";
 //    private static final String EU_OUT_DEG_FULL_LOC = BASE_PATH + "email-Eu-core.outdeg.full.txt";
@@ -24,11 +26,16 @@ public class GetOutDegree {
         IGraph<Integer> graph = GraphFactory.createGraph(GraphType.ADJ_LIST);
         TabImporter.readGraph(EU_GML_LOC, graph, true);
         var outDegrees = new HashMap<Integer, Integer>();
+        EdgeCursor<Integer> cursor = null;
         for (Iterator<Integer> it = graph.getNodes(); it.hasNext(); ) {
             var node = it.next();
             var r_cnt = 0;
-            for (Iterator<Edge<Integer>> iter = graph.getRelationships(node); iter.hasNext(); ) {
-                Edge<Integer> _ = iter.next();
+            if (cursor == null) {
+                cursor = graph.openEdgeCursor(node);
+            } else {
+                cursor.reset(node);
+            }
+            while (cursor.next()) {
                 r_cnt++;
             }
             outDegrees.put(node, r_cnt);
@@ -1,38 +1,61 @@
 import Graphs.*;
+import Graphs.Disk.CachingGraph;
 import Graphs.Disk.EdgeListDiskGraph;
 import Graphs.Disk.AdjacencyList.AdjacencyListDiskGraph;
+import Graphs.Disk.CSR.CSRDiskGraph;
 import Graphs.Disk.Neo4j.Neo4jDiskGraph;
-import Graphs.Memory.AdjMatrixGraph;
+import Graphs.Memory.CSRGraph;
 import Graphs.Memory.EdgeListGraph;
-import Graphs.Memory.AdjListGraph;
-import Graphs.Memory.Neo4j.Neo4jGraph;
+import Graphs.Memory.IntAdjListGraph;
+import Graphs.Memory.IntAdjMatrixGraph;
+import Graphs.Memory.Neo4j.IntNeo4jGraph;
 
 import java.io.IOException;
+import java.nio.file.Files;
 
 public class GraphFactory {
+    /**
+     * Creates an empty graph of the given type. Disk graphs keep their files in a new temporary
+     * directory.
+     */
     public static IGraph<Integer> createGraph(GraphType type) throws IOException {
+        String directoryPath = type.usesDisk ? Files.createTempDirectory(type.name()).toString() : null;
         return switch (type) {
-            case NEO4J -> new Neo4jGraph<>();
-            case ADJ_MATRIX -> new AdjMatrixGraph<>();
+            case NEO4J -> new IntNeo4jGraph();
+            case ADJ_MATRIX -> new IntAdjMatrixGraph();
             case EDGE_LIST -> new EdgeListGraph<>();
-            case ADJ_LIST -> new AdjListGraph<>();
-            case ADJ_LIST_DISK -> new AdjacencyListDiskGraph("C:\\");
-            case EDGE_LIST_DISK -> new EdgeListDiskGraph("C:\\");
-            case NEO4J_DISK -> new Neo4jDiskGraph("C:\\");
+            case ADJ_LIST -> new IntAdjListGraph();
+            case CSR -> new CSRGraph();
+            case ADJ_LIST_DISK -> new AdjacencyListDiskGraph(directoryPath);
+            case EDGE_LIST_DISK -> new EdgeListDiskGraph(directoryPath);
+            case NEO4J_DISK -> new Neo4jDiskGraph(directoryPath);
+            case CSR_DISK -> new CSRDiskGraph(directoryPath);
             default -> throw new IllegalArgumentException("Unsupported graph type: " + type);
         };
     }
 
     public static IGraph<Integer> createGraph(GraphType type, String directoryPath, String nodeOutputName, String edgeOutputName) throws IOException {
         return switch (type) {
-            case NEO4J -> new Neo4jGraph<>();
-            case ADJ_MATRIX -> new AdjMatrixGraph<>();
+            case NEO4J -> new IntNeo4jGraph();
+            case ADJ_MATRIX -> new IntAdjMatrixGraph();
             case EDGE_LIST -> new EdgeListGraph<>();
-            case ADJ_LIST -> new AdjListGraph<>();
+            case ADJ_LIST -> new IntAdjListGraph();
+            case CSR -> new CSRGraph();
             case ADJ_LIST_DISK -> new AdjacencyListDiskGraph(directoryPath, nodeOutputName, edgeOutputName);
             case EDGE_LIST_DISK -> new EdgeListDiskGraph(directoryPath, nodeOutputName, edgeOutputName);
             case NEO4J_DISK -> new Neo4jDiskGraph(directoryPath, nodeOutputName, edgeOutputName);
+            case CSR_DISK -> new CSRDiskGraph(directoryPath, nodeOutputName, edgeOutputName);
             default -> throw new IllegalArgumentException("Unsupported graph type: " + type);
         };
     }
+
+    /**
+     * Creates a graph as above, with disk graphs wrapped in a {@link CachingGraph} of the given
+     * budget. Memory graphs, and every graph when the budget is not positive, are returned as they
+     * are.
+     */
+    public static IGraph<Integer> createCachingGraph(GraphType type, String directoryPath, String nodeOutputName, String edgeOutputName, long cacheBytes) throws IOException {
+        IGraph<Integer> graph = createGraph(type, directoryPath, nodeOutputName, edgeOutputName);
+        return type.usesDisk && cacheBytes > 0 ? new CachingGraph(graph, cacheBytes) : graph;
+    }
 }
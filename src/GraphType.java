@@ -3,9 +3,11 @@ public enum GraphType {
     ADJ_MATRIX(false, "Adjacency Matrix"),
     EDGE_LIST(false, "Edge List"),
     ADJ_LIST(false, "Adjacency List"),
+    CSR(false, "CSR"),
     EDGE_LIST_DISK(true, "Edge List"),
     ADJ_LIST_DISK(true, "Adjacency List"),
-    NEO4J_DISK(true, "Neo4j");
+    NEO4J_DISK(true, "Neo4j"),
+    CSR_DISK(true, "CSR");
 
     public final boolean usesDisk;
     public final String name;
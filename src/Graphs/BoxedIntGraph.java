@@ -0,0 +1,121 @@
+package Graphs;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Memory.IntIntHashMap;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+
+/**
+ * Presents an {@link IntGraph} as an {@code IGraph<Integer>}, boxing at the boundary.
+ */
+public class BoxedIntGraph implements IGraph<Integer> {
+    private final IntGraph graph;
+
+    public BoxedIntGraph(IntGraph graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public Iterator<Integer> getNodes() throws IOException {
+        return graph.getNodes();
+    }
+
+    @Override
+    public void addNode(Integer node) throws IOException {
+        graph.addNode(node);
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException, IOException {
+        graph.addRelationship(label, source, target);
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) throws InvalidNodeAccessException, IOException {
+        IntEdgeCursor cursor = graph.openEdgeCursor(node);
+        return new Iterator<>() {
+            private Boolean hasNext;
+
+            @Override
+            public boolean hasNext() {
+                if (hasNext == null) {
+                    try {
+                        hasNext = cursor.next();
+                    } catch (IOException e) {
+                        throw new RuntimeException("Error reading relationships", e);
+                    }
+                }
+                return hasNext;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                hasNext = null;
+                return new Edge<>(cursor.sourceId(), cursor.targetId(), cursor.label());
+            }
+        };
+    }
+
+    /**
+     * Returns the relationships ending at the node. IntGraph has no incoming lookup, so this scans
+     * the relationships of every node, once per node id.
+     */
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws InvalidNodeAccessException, IOException {
+        var incoming = new ArrayList<Edge<Integer>>();
+        var scanned = new IntIntHashMap(-1);
+        IntEdgeCursor cursor = null;
+        for (PrimitiveIterator.OfInt it = graph.getNodes(); it.hasNext(); ) {
+            int source = it.nextInt();
+            if (scanned.containsKey(source)) continue;
+            scanned.put(source, 0);
+            if (cursor == null) {
+                cursor = graph.openEdgeCursor(source);
+            } else {
+                cursor.reset(source);
+            }
+            while (cursor.next()) {
+                if (cursor.targetId() == node) {
+                    incoming.add(new Edge<>(source, node, cursor.label()));
+                }
+            }
+        }
+        return incoming.iterator();
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws InvalidNodeAccessException, IOException {
+        return graph.openEdgeCursor(node);
+    }
+
+    @Override
+    public Integer getRandomNode() throws IOException {
+        int node = graph.getRandomNodeId();
+        return node == -1 ? null : node;
+    }
+
+    /**
+     * Returns a random edge from the specified node. IntGraph only samples the target, so the
+     * edge carries the default label.
+     */
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) throws InvalidNodeAccessException, IOException {
+        int target = graph.getRandomNeighbor(node);
+        return target == -1 ? null : new Edge<>(node, target, "default");
+    }
+
+    @Override
+    public void clear() throws IOException {
+        graph.clear();
+    }
+
+    @Override
+    public void close() throws Exception {
+        graph.close();
+    }
+}
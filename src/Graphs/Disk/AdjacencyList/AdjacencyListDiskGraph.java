@@ -1,35 +1,103 @@
 package Graphs.Disk.AdjacencyList;
 
 import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.BulkLoadable;
 import Graphs.Disk.Constants;
+import Graphs.Disk.EdgeBatch;
 import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.Disk.PageCache;
+import Graphs.Disk.Iterators.LinkedListEdgeCursor;
 import Graphs.Disk.Iterators.LinkedListNodeIterator;
 import Graphs.Disk.Iterators.LinkedListRelationshipIterator;
 import Graphs.Edge;
 import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
+/**
+ * A disk graph keeping a linked list of neighbors per node. A second pair of files, named like the
+ * first with an {@code in_} prefix, holds the same lists reversed, so the incoming relationships of
+ * a node are one chain too.
+ */
+public class AdjacencyListDiskGraph implements IGraph<Integer>, BulkLoadable, AutoCloseable {
     private final GraphRandomAccessFile<AdjacencyListNode> nodesRaf;
     private final GraphRandomAccessFile<AdjacencyListEdge> edgesRaf;
-    private static final Random rand = ThreadLocalRandom.current();
+    // The reverse lists, whose edge records hold the source of each incoming relationship.
+    private final GraphRandomAccessFile<AdjacencyListNode> inNodesRaf;
+    private final GraphRandomAccessFile<AdjacencyListEdge> inEdgesRaf;
 
     public AdjacencyListDiskGraph(String directoryPath) throws IOException {
         this(directoryPath, "nodes.dat", "edges.dat");
     }
 
     public AdjacencyListDiskGraph(String directoryPath, String nodesFileName, String edgesFileName) throws IOException {
+        this(directoryPath, nodesFileName, edgesFileName, PageCache.DEFAULT_PAGE_COUNT);
+    }
+
+    public AdjacencyListDiskGraph(String directoryPath, String nodesFileName, String edgesFileName, int cachePages) throws IOException {
         File dir = new File(directoryPath);
         File nodesFile = new File(dir, nodesFileName);
-        nodesRaf = new GraphRandomAccessFile<>(nodesFile);
+        nodesRaf = new GraphRandomAccessFile<>(nodesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
 
         File edgesFile = new File(dir, edgesFileName);
-        edgesRaf = new GraphRandomAccessFile<>(edgesFile);
+        edgesRaf = new GraphRandomAccessFile<>(edgesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
+
+        inNodesRaf = new GraphRandomAccessFile<>(new File(dir, "in_" + nodesFileName), PageCache.DEFAULT_PAGE_SIZE, cachePages);
+        inEdgesRaf = new GraphRandomAccessFile<>(new File(dir, "in_" + edgesFileName), PageCache.DEFAULT_PAGE_SIZE, cachePages);
+
+        // Files written before the reverse lists existed get them built from the forward ones.
+        if (inNodesRaf.getCount() != nodesRaf.getCount() || inEdgesRaf.getCount() != edgesRaf.getCount()) {
+            rebuildReverse();
+        }
+    }
+
+    /**
+     * Rewrites the reverse lists from the forward lists, as a bulk load of the reversed relationships.
+     */
+    private void rebuildReverse() throws IOException {
+        inNodesRaf.clear();
+        inEdgesRaf.clear();
+
+        int maxNode = (int) ((nodesRaf.length() - Constants.INT_SIZE) / AdjacencyListNode.RECORD_SIZE) - 1;
+        var nodes = new BitSet(maxNode + 1);
+        var batch = new EdgeBatch(edgesRaf.getCount());
+        for (int node = 0; node <= maxNode; node++) {
+            long offset = Constants.INT_SIZE + (node * AdjacencyListNode.RECORD_SIZE);
+            AdjacencyListNode nodeElem = nodesRaf.readElement(offset, AdjacencyListNode::new);
+            if (!nodeElem.isInUse()) continue;
+            nodes.set(node);
+            for (long pos = nodeElem.getNeighborPointer(); pos != -1; ) {
+                AdjacencyListEdge edge = edgesRaf.readElement(pos, AdjacencyListEdge::new);
+                batch.add(node, edge.getTargetNode());
+                pos = edge.getNextNeighborPointer();
+            }
+        }
+        if (maxNode >= 0) {
+            writeLists(batch.reversed(), maxNode, nodes, inNodesRaf, inEdgesRaf);
+        }
+    }
+
+    /**
+     * Returns the number of page cache hits across the node and edge files.
+     *
+     * @return the page cache hit count.
+     */
+    public long getCacheHits() {
+        return nodesRaf.getCacheHits() + edgesRaf.getCacheHits() + inNodesRaf.getCacheHits() + inEdgesRaf.getCacheHits();
+    }
+
+    /**
+     * Returns the number of page cache misses across the node and edge files.
+     *
+     * @return the page cache miss count.
+     */
+    public long getCacheMisses() {
+        return nodesRaf.getCacheMisses() + edgesRaf.getCacheMisses() + inNodesRaf.getCacheMisses() + inEdgesRaf.getCacheMisses();
     }
 
     private AdjacencyListNode getNode(Integer node) throws IOException {
@@ -37,8 +105,7 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (offset >= nodesRaf.length()) {
             return null;
         }
-        nodesRaf.seek(offset);
-        AdjacencyListNode nodeElem = nodesRaf.readElement(AdjacencyListNode::new);
+        AdjacencyListNode nodeElem = nodesRaf.readElement(offset, AdjacencyListNode::new);
         if (nodeElem.isInUse()) {
             return nodeElem;
         }
@@ -49,17 +116,16 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
         return getNode(node) != null;
     }
 
-    private long getNeighborPointer(Integer node) throws IOException {
+    private static long getNeighborPointer(GraphRandomAccessFile<AdjacencyListNode> raf, Integer node) throws IOException {
         long offset = Constants.INT_SIZE + (node * AdjacencyListNode.RECORD_SIZE);
-        nodesRaf.seek(offset);
-        return nodesRaf.readElement(AdjacencyListNode::new).getNeighborPointer();
+        return raf.readElement(offset, AdjacencyListNode::new).getNeighborPointer();
     }
 
-    private void updateNeighborPointer(AdjacencyListNode source, long newNeighborPos) throws IOException {
+    private static void updateNeighborPointer(GraphRandomAccessFile<AdjacencyListNode> raf, AdjacencyListNode source, long newNeighborPos) throws IOException {
         source.setNeighborPointer(newNeighborPos);
         long offset = Constants.INT_SIZE + (source.getNodeId() * AdjacencyListNode.RECORD_SIZE);
-        nodesRaf.seek(offset);
-        nodesRaf.writeElement(source);
+        raf.seek(offset);
+        raf.writeElement(source);
     }
 
     @Override
@@ -68,15 +134,17 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
             return;
         }
         long offset = Constants.INT_SIZE + (node * AdjacencyListNode.RECORD_SIZE);
-        AdjacencyListNode nodeElem = new AdjacencyListNode(true, node, -1);
         nodesRaf.seek(offset);
-        nodesRaf.writeElement(nodeElem);
+        nodesRaf.writeElement(new AdjacencyListNode(true, node, -1));
         nodesRaf.incCount();
+        inNodesRaf.seek(offset);
+        inNodesRaf.writeElement(new AdjacencyListNode(true, node, -1));
+        inNodesRaf.incCount();
     }
 
     @Override
     public Iterator<Integer> getNodes() throws IOException {
-        return new LinkedListNodeIterator(nodesRaf);
+        return new LinkedListNodeIterator(nodesRaf, AdjacencyListNode.RECORD_SIZE);
     }
 
     @Override
@@ -85,18 +153,16 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (count <= 0) {
             throw new IOException("No nodes available in the graph.");
         }
-        int randomIndex = rand.nextInt(count);
+        int randomIndex = ThreadLocalRandom.current().nextInt(count);
         long offset = Constants.INT_SIZE + (randomIndex * AdjacencyListNode.RECORD_SIZE);
-        nodesRaf.seek(offset);
-        boolean inUse = nodesRaf.readBoolean();
+        boolean inUse = nodesRaf.readBoolean(offset);
         while (!inUse) {
             randomIndex++; // rand wasn't active, inc until it is
 
             offset = Constants.INT_SIZE + (randomIndex * AdjacencyListNode.RECORD_SIZE);
             if (offset > nodesRaf.length()) offset = Constants.INT_SIZE; // Wrap around if needed
-            nodesRaf.seek(offset);
 
-            inUse = nodesRaf.readBoolean();
+            inUse = nodesRaf.readBoolean(offset);
         }
         return randomIndex;
     }
@@ -104,22 +170,101 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
     @Override
     public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException, IOException {
         long offset = Constants.INT_SIZE + (source * AdjacencyListNode.RECORD_SIZE);
-        nodesRaf.seek(offset);
-        AdjacencyListNode sourceElem = nodesRaf.readElement(AdjacencyListNode::new);
+        AdjacencyListNode sourceElem = nodesRaf.readElement(offset, AdjacencyListNode::new);
         if (sourceElem == null) {
             throw new InvalidNodeAccessException("The source node is not in the graph.");
         }
-        if (!nodeExists(target)) {
+        AdjacencyListNode targetElem = getNode(target);
+        if (targetElem == null) {
             throw new InvalidNodeAccessException("The target node is not in the graph.");
         }
 
+        // Both heads are read before anything is written, so a failed read leaves neither list changed.
+        long inOffset = Constants.INT_SIZE + (target * AdjacencyListNode.RECORD_SIZE);
+        AdjacencyListNode inTargetElem = inOffset < inNodesRaf.length() ? inNodesRaf.readElement(inOffset, AdjacencyListNode::new) : null;
+        if (inTargetElem == null || !inTargetElem.isInUse()) {
+            throw new IOException("The reverse lists are missing the target node.");
+        }
+        long inHead = inTargetElem.getNeighborPointer();
+
         AdjacencyListEdge edgeElem = new AdjacencyListEdge(target, sourceElem.getNeighborPointer());
 
         edgesRaf.seekTheEnd();
         var addedFP = edgesRaf.getFilePointer();
         edgesRaf.writeElement(edgeElem);
-        updateNeighborPointer(sourceElem, addedFP);
+        updateNeighborPointer(nodesRaf, sourceElem, addedFP);
         edgesRaf.incCount();
+
+        // The same relationship heads the target's reverse list.
+        inEdgesRaf.seekTheEnd();
+        var addedInFP = inEdgesRaf.getFilePointer();
+        inEdgesRaf.writeElement(new AdjacencyListEdge(source, inHead));
+        updateNeighborPointer(inNodesRaf, targetElem, addedInFP);
+        inEdgesRaf.incCount();
+    }
+
+    /**
+     * Adds a batch of relationships. Into an empty store the out degrees are counted first, so
+     * each node's neighbors can be written as one contiguous run of the edges file and both files
+     * are written front to back. The reverse lists are written the same way from the reversed batch.
+     */
+    @Override
+    public void addRelationships(EdgeBatch batch) throws InvalidNodeAccessException, IOException {
+        if (nodesRaf.getCount() != 0 || edgesRaf.getCount() != 0) {
+            for (int i = 0; i < batch.size(); i++) {
+                addNode(batch.source(i));
+                addNode(batch.target(i));
+                addRelationship("default", batch.source(i), batch.target(i));
+            }
+            return;
+        }
+
+        int maxNode = batch.maxNode();
+        var nodes = new BitSet(maxNode + 1);
+        for (int i = 0; i < batch.size(); i++) {
+            nodes.set(batch.source(i));
+            nodes.set(batch.target(i));
+        }
+        writeLists(batch, maxNode, nodes, nodesRaf, edgesRaf);
+        writeLists(batch.reversed(), maxNode, nodes, inNodesRaf, inEdgesRaf);
+    }
+
+    private static void writeLists(EdgeBatch batch, int maxNode, BitSet nodes,
+                                   GraphRandomAccessFile<AdjacencyListNode> nodesRaf,
+                                   GraphRandomAccessFile<AdjacencyListEdge> edgesRaf) throws IOException {
+        int[] firstSlot = new int[maxNode + 2];
+        int[] slots = batch.slotsBySource(firstSlot);
+        int[] slotTargets = new int[batch.size()];
+        for (int i = 0; i < batch.size(); i++) {
+            slotTargets[slots[i]] = batch.target(i);
+        }
+
+        // Each run is chained front to back, ending at -1 like a chain built one edge at a time.
+        edgesRaf.seek(Constants.INT_SIZE);
+        for (int node = 0; node <= maxNode; node++) {
+            for (int slot = firstSlot[node]; slot < firstSlot[node + 1]; slot++) {
+                long next = slot + 1 < firstSlot[node + 1] ? edgeOffset(slot + 1) : -1;
+                edgesRaf.writeElement(new AdjacencyListEdge(slotTargets[slot], next));
+            }
+        }
+        edgesRaf.setCount(batch.size());
+
+        // Ids without a node keep the zeroed record a gap in the file would have.
+        byte[] blank = new byte[(int) AdjacencyListNode.RECORD_SIZE];
+        nodesRaf.seek(Constants.INT_SIZE);
+        for (int node = 0; node <= maxNode; node++) {
+            if (!nodes.get(node)) {
+                nodesRaf.write(blank);
+                continue;
+            }
+            long head = firstSlot[node] < firstSlot[node + 1] ? edgeOffset(firstSlot[node]) : -1;
+            nodesRaf.writeElement(new AdjacencyListNode(true, node, head));
+        }
+        nodesRaf.setCount(nodes.cardinality());
+    }
+
+    private static long edgeOffset(int slot) {
+        return Constants.INT_SIZE + slot * AdjacencyListEdge.RECORD_SIZE;
     }
 
     @Override
@@ -127,10 +272,29 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (!nodeExists(node)) {
             throw new InvalidNodeAccessException("The node is not in the graph.");
         }
-        var startingPos = getNeighborPointer(node);
+        var startingPos = getNeighborPointer(nodesRaf, node);
         return new LinkedListRelationshipIterator(node, startingPos, edgesRaf);
     }
 
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws InvalidNodeAccessException, IOException {
+        if (!nodeExists(node)) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        var startingPos = getNeighborPointer(inNodesRaf, node);
+        return new LinkedListRelationshipIterator(node, true, startingPos, inEdgesRaf);
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws InvalidNodeAccessException, IOException {
+        return new LinkedListEdgeCursor(node, nodesRaf, edgesRaf);
+    }
+
     @Override
     public Edge<Integer> getRandomRelationship(Integer node) throws InvalidNodeAccessException, IOException {
         int count = 0;
@@ -138,7 +302,7 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
         for (Iterator<Edge<Integer>> it = getRelationships(node); it.hasNext(); ) {
             Edge<Integer> edge = it.next();
             count++;
-            if (rand.nextInt(count) == 0) {
+            if (ThreadLocalRandom.current().nextInt(count) == 0) {
                 chosenEdge = edge;
             }
         }
@@ -149,12 +313,16 @@ public class AdjacencyListDiskGraph implements IGraph<Integer>, AutoCloseable {
     public void close() throws Exception {
         nodesRaf.close();
         edgesRaf.close();
+        inNodesRaf.close();
+        inEdgesRaf.close();
     }
 
     @Override
     public void clear() throws IOException {
         nodesRaf.clear();
         edgesRaf.clear();
+        inNodesRaf.clear();
+        inEdgesRaf.clear();
     }
 }
 
@@ -0,0 +1,21 @@
+package Graphs.Disk;
+
+import Exceptions.InvalidNodeAccessException;
+
+import java.io.IOException;
+
+/**
+ * A disk store that can take a whole batch of relationships at once. Into an empty store the
+ * batch is written sequentially in the store's final layout instead of seeking for every
+ * relationship, a non-empty store takes the batch one relationship at a time.
+ */
+public interface BulkLoadable {
+    /**
+     * Adds every endpoint of the batch as a node and every relationship of the batch, in order.
+     *
+     * @param batch the relationships to add.
+     * @throws InvalidNodeAccessException if a relationship cannot be added to the store.
+     * @throws IOException if an I/O error occurs.
+     */
+    void addRelationships(EdgeBatch batch) throws InvalidNodeAccessException, IOException;
+}
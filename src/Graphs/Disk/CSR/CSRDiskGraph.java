@@ -0,0 +1,501 @@
+package Graphs.Disk.CSR;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.Constants;
+import Graphs.Disk.MappedFile;
+import Graphs.Edge;
+import Graphs.IntEdgeCursor;
+import Graphs.IGraph;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A read optimized Compressed Sparse Row graph persisted as two files and served through memory
+ * mappings, so a node's neighbors are one contiguous block of the targets file.
+ * <p>
+ * The offsets file holds {@code [int nodeCount][int slotCount][long offsets x (slotCount + 1)]}
+ * followed by the sorted node ids as ints, where slots are indexed by node id. The targets file
+ * holds {@code [int edgeCount][int targets x edgeCount]}.
+ * <p>
+ * The incoming relationships are kept as a second, reverse CSR in two more files named like the
+ * first with an {@code in_} prefix. The reverse offsets file holds
+ * {@code [int slotCount][int edgeCount][long offsets x (slotCount + 1)]} and the sources file
+ * {@code [int edgeCount][int sources x edgeCount]}, each node's sources in ascending order.
+ * <p>
+ * Added nodes and relationships are staged in memory and the files are rewritten in their final
+ * layout on the next read, so this store is meant to be loaded once and then queried.
+ */
+public class CSRDiskGraph implements IGraph<Integer>, AutoCloseable {
+    private static final long HEADER_SIZE = Constants.INT_SIZE + Constants.INT_SIZE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final FileChannel offsetsChannel;
+    private final FileChannel targetsChannel;
+    private final FileChannel inOffsetsChannel;
+    private final FileChannel sourcesChannel;
+    private MappedFile offsetsMap;
+    private MappedFile targetsMap;
+    private MappedFile inOffsetsMap;
+    private MappedFile sourcesMap;
+    private int nodeCount;
+    private int slotCount;
+    private int inSlotCount;
+
+    // Every node in the graph, including staged ones.
+    private final BitSet nodes = new BitSet();
+
+    // Relationships added since the last freeze.
+    private int[] stagedSources = new int[INITIAL_CAPACITY];
+    private int[] stagedTargets = new int[INITIAL_CAPACITY];
+    private int stagedCount = 0;
+    private volatile boolean frozen = true;
+
+    public CSRDiskGraph(String directoryPath) throws IOException {
+        this(directoryPath, "offsets.dat", "targets.dat");
+    }
+
+    public CSRDiskGraph(String directoryPath, String offsetsFileName, String targetsFileName) throws IOException {
+        File dir = new File(directoryPath);
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+        offsetsChannel = FileChannel.open(new File(dir, offsetsFileName).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        targetsChannel = FileChannel.open(new File(dir, targetsFileName).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        inOffsetsChannel = FileChannel.open(new File(dir, "in_" + offsetsFileName).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        sourcesChannel = FileChannel.open(new File(dir, "in_" + targetsFileName).toPath(),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+
+        if (offsetsChannel.size() < HEADER_SIZE + Constants.LONG_SIZE || targetsChannel.size() < Constants.INT_SIZE) {
+            write(new long[1], new int[0]);
+        } else {
+            remap();
+            for (int i = 0; i < nodeCount; i++) {
+                nodes.set(nodeIdAt(i));
+            }
+            // Files written before the reverse CSR existed get it built from the forward one.
+            if (inOffsetsChannel.size() < HEADER_SIZE + Constants.LONG_SIZE || sourcesChannel.size() < Constants.INT_SIZE) {
+                long[] offsets = new long[slotCount + 1];
+                for (int slot = 0; slot <= slotCount; slot++) {
+                    offsets[slot] = offsetAt(slot);
+                }
+                int[] targets = new int[(int) offsets[slotCount]];
+                for (int pos = 0; pos < targets.length; pos++) {
+                    targets[pos] = targetAt(pos);
+                }
+                writeReverse(offsets, targets);
+            }
+            remapReverse();
+        }
+    }
+
+    @Override
+    public Iterator<Integer> getNodes() {
+        ensureFrozen();
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < nodeCount;
+            }
+
+            @Override
+            public Integer next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return nodeIdAt(next++);
+            }
+        };
+    }
+
+    @Override
+    public void addNode(Integer node) {
+        if (node < 0) {
+            throw new IllegalArgumentException("CSR node ids must be non-negative: " + node);
+        }
+        if (nodes.get(node)) return;
+        nodes.set(node);
+        frozen = false;
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException {
+        if (!nodeExists(source)) {
+            throw new InvalidNodeAccessException("The source node is not in the graph.");
+        }
+        if (!nodeExists(target)) {
+            throw new InvalidNodeAccessException("The target node is not in the graph.");
+        }
+
+        if (stagedCount == stagedSources.length) {
+            stagedSources = Arrays.copyOf(stagedSources, stagedCount * 2);
+            stagedTargets = Arrays.copyOf(stagedTargets, stagedCount * 2);
+        }
+        stagedSources[stagedCount] = source;
+        stagedTargets[stagedCount] = target;
+        stagedCount++;
+        frozen = false;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) throws InvalidNodeAccessException {
+        if (!nodeExists(node)) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        ensureFrozen();
+
+        long end = offsetAt(node + 1);
+        return new Iterator<>() {
+            private long next = offsetAt(node);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new Edge<>(node, targetAt(next++), "default");
+            }
+        };
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws InvalidNodeAccessException {
+        if (!nodeExists(node)) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        ensureFrozen();
+
+        long end = inOffsetAt(node + 1);
+        return new Iterator<>() {
+            private long next = inOffsetAt(node);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return new Edge<>(sourceAt(next++), node, "default");
+            }
+        };
+    }
+
+    @Override
+    public int inDegree(Integer node) {
+        if (!nodeExists(node)) return 0;
+        ensureFrozen();
+        return (int) (inOffsetAt(node + 1) - inOffsetAt(node));
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws InvalidNodeAccessException {
+        var cursor = new CSRDiskEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public Integer getRandomNode() throws IOException {
+        ensureFrozen();
+        if (nodeCount <= 0) {
+            throw new IOException("No nodes available in the graph.");
+        }
+        return nodeIdAt(ThreadLocalRandom.current().nextInt(nodeCount));
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) throws InvalidNodeAccessException {
+        if (!nodeExists(node)) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        ensureFrozen();
+
+        long start = offsetAt(node);
+        long degree = offsetAt(node + 1) - start;
+        if (degree == 0) return null;
+        return new Edge<>(node, targetAt(start + ThreadLocalRandom.current().nextLong(degree)), "default");
+    }
+
+    /**
+     * Returns the number of outgoing relationships of the given node.
+     *
+     * @param node the node to look up.
+     * @return the out degree, or 0 if the node is not in the graph.
+     */
+    public long degree(Integer node) {
+        if (!nodeExists(node)) return 0;
+        ensureFrozen();
+        return offsetAt(node + 1) - offsetAt(node);
+    }
+
+    @Override
+    public void clear() throws IOException {
+        unmap();
+        offsetsChannel.truncate(0);
+        targetsChannel.truncate(0);
+        inOffsetsChannel.truncate(0);
+        sourcesChannel.truncate(0);
+        nodes.clear();
+        stagedSources = new int[INITIAL_CAPACITY];
+        stagedTargets = new int[INITIAL_CAPACITY];
+        stagedCount = 0;
+        write(new long[1], new int[0]);
+        frozen = true;
+    }
+
+    @Override
+    public void close() throws Exception {
+        ensureFrozen();
+        unmap();
+        offsetsChannel.close();
+        targetsChannel.close();
+        inOffsetsChannel.close();
+        sourcesChannel.close();
+    }
+
+    private class CSRDiskEdgeCursor implements IntEdgeCursor {
+        private int node;
+        private long next = 0;
+        private long end = 0;
+        private int target = -1;
+
+        @Override
+        public boolean next() {
+            if (next >= end) return false;
+            target = targetAt(next++);
+            return true;
+        }
+
+        @Override
+        public int sourceId() {
+            return node;
+        }
+
+        @Override
+        public int targetId() {
+            return target;
+        }
+
+        @Override
+        public String label() {
+            return "default";
+        }
+
+        @Override
+        public void reset(Integer node) throws InvalidNodeAccessException {
+            if (!nodeExists(node)) {
+                throw new InvalidNodeAccessException("The node is not in the graph.");
+            }
+            ensureFrozen();
+            this.node = node;
+            next = offsetAt(node);
+            end = offsetAt(node + 1);
+        }
+    }
+
+    private boolean nodeExists(int node) {
+        return node >= 0 && nodes.get(node);
+    }
+
+    private long offsetAt(int slot) {
+        // Nodes past the last slot have no relationships, so they share the final offset.
+        return offsetsMap.getLong(HEADER_SIZE + Math.min(slot, slotCount) * Constants.LONG_SIZE);
+    }
+
+    private long inOffsetAt(int slot) {
+        return inOffsetsMap.getLong(HEADER_SIZE + Math.min(slot, inSlotCount) * Constants.LONG_SIZE);
+    }
+
+    private int sourceAt(long pos) {
+        return sourcesMap.getInt(Constants.INT_SIZE + pos * Constants.INT_SIZE);
+    }
+
+    private int nodeIdAt(int index) {
+        long nodeIdsStart = HEADER_SIZE + (slotCount + 1L) * Constants.LONG_SIZE;
+        return offsetsMap.getInt(nodeIdsStart + index * Constants.INT_SIZE);
+    }
+
+    private int targetAt(long pos) {
+        return targetsMap.getInt(Constants.INT_SIZE + pos * Constants.INT_SIZE);
+    }
+
+    private void ensureFrozen() {
+        if (frozen) return;
+        try {
+            freeze();
+        } catch (IOException e) {
+            throw new RuntimeException("Error writing the CSR files", e);
+        }
+    }
+
+    /**
+     * Rewrites both files with the staged nodes and relationships folded in. The existing
+     * relationships of each node stay ahead of its staged ones, so insertion order is kept.
+     */
+    private synchronized void freeze() throws IOException {
+        if (frozen) return;
+
+        int newSlotCount = Math.max(slotCount, stagedSlotCount());
+        long[] newOffsets = new long[newSlotCount + 1];
+        for (int slot = 0; slot < slotCount; slot++) {
+            newOffsets[slot + 1] = offsetAt(slot + 1) - offsetAt(slot);
+        }
+        for (int e = 0; e < stagedCount; e++) {
+            newOffsets[stagedSources[e] + 1]++;
+        }
+        for (int slot = 0; slot < newSlotCount; slot++) {
+            newOffsets[slot + 1] += newOffsets[slot];
+        }
+        if (newOffsets[newSlotCount] > Integer.MAX_VALUE - 8) {
+            throw new IOException("Too many relationships for a CSR graph: " + newOffsets[newSlotCount]);
+        }
+
+        // The targets file is rewritten in place, so the old targets are copied out of the mapping first.
+        int[] newTargets = new int[(int) newOffsets[newSlotCount]];
+        long[] cursor = Arrays.copyOf(newOffsets, newSlotCount);
+        for (int slot = 0; slot < slotCount; slot++) {
+            for (long pos = offsetAt(slot); pos < offsetAt(slot + 1); pos++) {
+                newTargets[(int) cursor[slot]++] = targetAt(pos);
+            }
+        }
+        for (int e = 0; e < stagedCount; e++) {
+            newTargets[(int) cursor[stagedSources[e]]++] = stagedTargets[e];
+        }
+
+        write(newOffsets, newTargets);
+        stagedSources = new int[INITIAL_CAPACITY];
+        stagedTargets = new int[INITIAL_CAPACITY];
+        stagedCount = 0;
+        frozen = true;
+    }
+
+    private int stagedSlotCount() {
+        int highest = -1;
+        for (int e = 0; e < stagedCount; e++) {
+            highest = Math.max(highest, stagedSources[e]);
+        }
+        return highest + 1;
+    }
+
+    private void write(long[] offsets, int[] targets) throws IOException {
+        // The files are rewritten in place, so nothing may still map them.
+        unmap();
+        offsetsChannel.position(0);
+        var offsetsOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(offsetsChannel), 1 << 16));
+        offsetsOut.writeInt(nodes.cardinality());
+        offsetsOut.writeInt(offsets.length - 1);
+        for (long offset : offsets) {
+            offsetsOut.writeLong(offset);
+        }
+        for (int node = nodes.nextSetBit(0); node >= 0; node = nodes.nextSetBit(node + 1)) {
+            offsetsOut.writeInt(node);
+        }
+        offsetsOut.flush();
+
+        targetsChannel.position(0);
+        var targetsOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(targetsChannel), 1 << 16));
+        targetsOut.writeInt(targets.length);
+        for (int target : targets) {
+            targetsOut.writeInt(target);
+        }
+        targetsOut.flush();
+
+        remap();
+        writeReverse(offsets, targets);
+        remapReverse();
+    }
+
+    /**
+     * Writes the reverse CSR of the given forward one, with a counting sort on the target.
+     */
+    private void writeReverse(long[] offsets, int[] targets) throws IOException {
+        int newInSlotCount = 0;
+        for (int target : targets) {
+            newInSlotCount = Math.max(newInSlotCount, target + 1);
+        }
+        long[] inOffsets = new long[newInSlotCount + 1];
+        for (int target : targets) {
+            inOffsets[target + 1]++;
+        }
+        for (int slot = 0; slot < newInSlotCount; slot++) {
+            inOffsets[slot + 1] += inOffsets[slot];
+        }
+        int[] sources = new int[targets.length];
+        long[] cursor = Arrays.copyOf(inOffsets, newInSlotCount);
+        for (int slot = 0; slot < offsets.length - 1; slot++) {
+            for (long pos = offsets[slot]; pos < offsets[slot + 1]; pos++) {
+                sources[(int) cursor[targets[(int) pos]]++] = slot;
+            }
+        }
+
+        inOffsetsChannel.position(0);
+        var inOffsetsOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(inOffsetsChannel), 1 << 16));
+        inOffsetsOut.writeInt(newInSlotCount);
+        inOffsetsOut.writeInt(sources.length);
+        for (long offset : inOffsets) {
+            inOffsetsOut.writeLong(offset);
+        }
+        inOffsetsOut.flush();
+
+        sourcesChannel.position(0);
+        var sourcesOut = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(sourcesChannel), 1 << 16));
+        sourcesOut.writeInt(sources.length);
+        for (int source : sources) {
+            sourcesOut.writeInt(source);
+        }
+        sourcesOut.flush();
+    }
+
+    private void remapReverse() throws IOException {
+        if (inOffsetsMap != null) inOffsetsMap.close();
+        if (sourcesMap != null) sourcesMap.close();
+        inOffsetsMap = new MappedFile(inOffsetsChannel);
+        sourcesMap = new MappedFile(sourcesChannel);
+        inSlotCount = inOffsetsMap.getInt(0);
+    }
+
+    private void remap() throws IOException {
+        if (offsetsMap != null) offsetsMap.close();
+        if (targetsMap != null) targetsMap.close();
+        offsetsMap = new MappedFile(offsetsChannel);
+        targetsMap = new MappedFile(targetsChannel);
+        nodeCount = offsetsMap.getInt(0);
+        slotCount = offsetsMap.getInt(Constants.INT_SIZE);
+    }
+
+    /**
+     * Releases every mapping, before the files are truncated, rewritten or closed.
+     */
+    private void unmap() {
+        for (MappedFile map : new MappedFile[]{offsetsMap, targetsMap, inOffsetsMap, sourcesMap}) {
+            if (map != null) map.close();
+        }
+        offsetsMap = null;
+        targetsMap = null;
+        inOffsetsMap = null;
+        sourcesMap = null;
+    }
+}
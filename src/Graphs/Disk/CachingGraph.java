@@ -0,0 +1,317 @@
+package Graphs.Disk;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.EdgeCursor;
+import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.IntList;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keeps the decoded neighbor lists of recently read nodes in memory in front of a disk graph, so
+ * repeated reads of hot nodes skip the store. The store stays the source of truth: every write goes
+ * through to it and drops the lists it changes.
+ * <p>
+ * Outgoing and incoming lists are cached separately, as int arrays of the other endpoint, and are
+ * evicted least recently used first once their estimated size exceeds the byte budget. A list
+ * larger than the whole budget is read from the store every time. Disk stores do not persist
+ * labels, so every relationship read through the cache carries the default label.
+ * <p>
+ * The cache itself can be shared by threads, reads of the store are as safe as the store's.
+ */
+public class CachingGraph implements IGraph<Integer>, BulkLoadable, AutoCloseable {
+    // Array header plus the map entry, its boxed key and the list pointer.
+    private static final long ENTRY_OVERHEAD = 16 + 64;
+
+    private final IGraph<Integer> graph;
+    private final long budgetBytes;
+
+    // Neighbor lists keyed by node id << 1, with the low bit set for incoming lists, in access order.
+    private final LinkedHashMap<Long, int[]> lists = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes = 0;
+    // Bumped by every invalidation, so a list read from the store before one is not cached after it.
+    private long generation = 0;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param graph       the store to read through to.
+     * @param budgetBytes the approximate number of bytes of neighbor lists to keep in memory.
+     */
+    public CachingGraph(IGraph<Integer> graph, long budgetBytes) {
+        this.graph = graph;
+        this.budgetBytes = budgetBytes;
+    }
+
+    /**
+     * Returns the wrapped store.
+     */
+    public IGraph<Integer> getGraph() {
+        return graph;
+    }
+
+    /**
+     * Returns the number of neighbor list reads served from memory.
+     *
+     * @return the cache hit count.
+     */
+    public synchronized long getCacheHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the number of neighbor list reads that went to the store.
+     *
+     * @return the cache miss count.
+     */
+    public synchronized long getCacheMisses() {
+        return misses;
+    }
+
+    /**
+     * Returns the estimated number of bytes of neighbor lists held.
+     */
+    public synchronized long getUsedBytes() {
+        return usedBytes;
+    }
+
+    @Override
+    public Iterator<Integer> getNodes() throws IOException {
+        return graph.getNodes();
+    }
+
+    @Override
+    public void addNode(Integer node) throws IOException {
+        graph.addNode(node);
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException, IOException {
+        graph.addRelationship(label, source, target);
+        invalidate(outgoingKey(source));
+        invalidate(incomingKey(target));
+    }
+
+    /**
+     * Hands the batch to the store if it takes batches, or adds it one relationship at a time. The
+     * whole cache is dropped, as a batch touches too many nodes to invalidate one by one.
+     */
+    @Override
+    public void addRelationships(EdgeBatch batch) throws InvalidNodeAccessException, IOException {
+        try {
+            if (graph instanceof BulkLoadable bulkGraph) {
+                bulkGraph.addRelationships(batch);
+                return;
+            }
+            for (int i = 0; i < batch.size(); i++) {
+                graph.addNode(batch.source(i));
+                graph.addNode(batch.target(i));
+                graph.addRelationship("default", batch.source(i), batch.target(i));
+            }
+        } finally {
+            invalidateAll();
+        }
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) throws InvalidNodeAccessException, IOException {
+        return new ListIterator(node, outgoing(node), false);
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return graph.hasIncomingIndex();
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws InvalidNodeAccessException, IOException {
+        return new ListIterator(node, incoming(node), true);
+    }
+
+    @Override
+    public int inDegree(Integer node) throws InvalidNodeAccessException, IOException {
+        return incoming(node).length;
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws InvalidNodeAccessException, IOException {
+        var cursor = new CachingEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public Integer getRandomNode() throws IOException {
+        return graph.getRandomNode();
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) throws InvalidNodeAccessException, IOException {
+        int[] targets = outgoing(node);
+        if (targets.length == 0) return null;
+        return new Edge<>(node, targets[ThreadLocalRandom.current().nextInt(targets.length)], "default");
+    }
+
+    @Override
+    public void clear() throws IOException {
+        graph.clear();
+        invalidateAll();
+    }
+
+    @Override
+    public void close() throws Exception {
+        invalidateAll();
+        graph.close();
+    }
+
+    private static long outgoingKey(int node) {
+        return (long) node << 1;
+    }
+
+    private static long incomingKey(int node) {
+        return ((long) node << 1) | 1;
+    }
+
+    private int[] outgoing(int node) throws InvalidNodeAccessException, IOException {
+        int[] targets = lookup(outgoingKey(node));
+        if (targets != null) return targets;
+
+        long readGeneration = generation();
+        var list = new IntList();
+        EdgeCursor<Integer> cursor = graph.openEdgeCursor(node);
+        while (cursor.next()) {
+            list.add(cursor.target());
+        }
+        return store(outgoingKey(node), list.toArray(), readGeneration);
+    }
+
+    private int[] incoming(int node) throws InvalidNodeAccessException, IOException {
+        int[] sources = lookup(incomingKey(node));
+        if (sources != null) return sources;
+
+        long readGeneration = generation();
+        var list = new IntList();
+        for (Iterator<Edge<Integer>> it = graph.getIncomingRelationships(node); it.hasNext(); ) {
+            list.add(it.next().getSource());
+        }
+        return store(incomingKey(node), list.toArray(), readGeneration);
+    }
+
+    private synchronized int[] lookup(long key) {
+        int[] list = lists.get(key);
+        if (list != null) {
+            hits++;
+        } else {
+            misses++;
+        }
+        return list;
+    }
+
+    private synchronized long generation() {
+        return generation;
+    }
+
+    /**
+     * Caches a list read from the store, evicting the least recently used lists to make room.
+     * Returns the list held for the key, which is the given one unless another thread stored one
+     * first.
+     */
+    private synchronized int[] store(long key, int[] list, long readGeneration) {
+        long size = sizeOf(list);
+        if (size > budgetBytes || readGeneration != generation) return list;
+        int[] held = lists.get(key);
+        if (held != null) return held;
+
+        lists.put(key, list);
+        usedBytes += size;
+        var it = lists.values().iterator();
+        while (usedBytes > budgetBytes && it.hasNext()) {
+            usedBytes -= sizeOf(it.next());
+            it.remove();
+        }
+        return list;
+    }
+
+    private synchronized void invalidate(long key) {
+        int[] list = lists.remove(key);
+        if (list != null) usedBytes -= sizeOf(list);
+        generation++;
+    }
+
+    private synchronized void invalidateAll() {
+        lists.clear();
+        usedBytes = 0;
+        generation++;
+    }
+
+    private static long sizeOf(int[] list) {
+        return ENTRY_OVERHEAD + (long) list.length * Integer.BYTES;
+    }
+
+    private static class ListIterator implements Iterator<Edge<Integer>> {
+        private final int node;
+        private final int[] others;
+        private final boolean incoming;
+        private int next = 0;
+
+        ListIterator(int node, int[] others, boolean incoming) {
+            this.node = node;
+            this.others = others;
+            this.incoming = incoming;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < others.length;
+        }
+
+        @Override
+        public Edge<Integer> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            int other = others[next++];
+            return incoming ? new Edge<>(other, node, "default") : new Edge<>(node, other, "default");
+        }
+    }
+
+    private class CachingEdgeCursor implements IntEdgeCursor {
+        private int node;
+        private int[] targets = new int[0];
+        private int next = 0;
+        private int current = -1;
+
+        @Override
+        public boolean next() {
+            if (next >= targets.length) return false;
+            current = targets[next++];
+            return true;
+        }
+
+        @Override
+        public int sourceId() {
+            return node;
+        }
+
+        @Override
+        public int targetId() {
+            return current;
+        }
+
+        @Override
+        public String label() {
+            return "default";
+        }
+
+        @Override
+        public void reset(Integer node) throws InvalidNodeAccessException, IOException {
+            this.node = node;
+            targets = outgoing(node);
+            next = 0;
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package Graphs.Disk;
+
+import java.util.Arrays;
+
+/**
+ * A growable batch of relationships kept as two int arrays, handed to a {@link BulkLoadable}
+ * store in one call. Every endpoint of a relationship is a node of the batch. Disk stores do not
+ * persist labels, so the batch does not keep them either.
+ */
+public class EdgeBatch {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private int[] sources;
+    private int[] targets;
+    private int size = 0;
+
+    public EdgeBatch() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public EdgeBatch(int capacity) {
+        sources = new int[Math.max(capacity, 1)];
+        targets = new int[Math.max(capacity, 1)];
+    }
+
+    public void add(int source, int target) {
+        if (size == sources.length) {
+            sources = Arrays.copyOf(sources, size * 2);
+            targets = Arrays.copyOf(targets, size * 2);
+        }
+        sources[size] = source;
+        targets[size] = target;
+        size++;
+    }
+
+    /**
+     * Appends every relationship of another batch, keeping its order.
+     */
+    public void addAll(EdgeBatch other) {
+        if (size + other.size > sources.length) {
+            int newLength = Math.max(size + other.size, sources.length * 2);
+            sources = Arrays.copyOf(sources, newLength);
+            targets = Arrays.copyOf(targets, newLength);
+        }
+        System.arraycopy(other.sources, 0, sources, size, other.size);
+        System.arraycopy(other.targets, 0, targets, size, other.size);
+        size += other.size;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int source(int i) {
+        return sources[i];
+    }
+
+    public int target(int i) {
+        return targets[i];
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * Returns a batch with the same relationships pointing the other way.
+     */
+    public EdgeBatch reversed() {
+        var reversed = new EdgeBatch(size);
+        System.arraycopy(targets, 0, reversed.sources, 0, size);
+        System.arraycopy(sources, 0, reversed.targets, 0, size);
+        reversed.size = size;
+        return reversed;
+    }
+
+    /**
+     * Returns the highest node id in the batch, or -1 if the batch is empty.
+     */
+    public int maxNode() {
+        int max = -1;
+        for (int i = 0; i < size; i++) {
+            max = Math.max(max, Math.max(sources[i], targets[i]));
+        }
+        return max;
+    }
+
+    /**
+     * Lays the relationships out grouped by source, the layout the chained disk stores are bulk
+     * written in. Each source's relationships are placed newest first, which is the order its chain
+     * is walked in when the relationships are added one at a time.
+     *
+     * @param firstSlot filled with the slot of each node's first relationship, indexed by node id
+     *                  and sized {@code maxNode() + 2} so {@code firstSlot[n + 1]} ends node n's run.
+     * @return the slot each relationship of the batch is written to, in batch order.
+     */
+    public int[] slotsBySource(int[] firstSlot) {
+        // First pass: count the out degree of each source.
+        Arrays.fill(firstSlot, 0);
+        for (int i = 0; i < size; i++) {
+            firstSlot[sources[i] + 1]++;
+        }
+        for (int n = 1; n < firstSlot.length; n++) {
+            firstSlot[n] += firstSlot[n - 1];
+        }
+
+        // Second pass: fill each source's run from its end, so the newest relationship comes first.
+        int[] slots = new int[size];
+        int[] next = Arrays.copyOfRange(firstSlot, 1, firstSlot.length);
+        for (int i = 0; i < size; i++) {
+            slots[i] = --next[sources[i]];
+        }
+        return slots;
+    }
+}
@@ -1,39 +1,61 @@
 package Graphs.Disk;
 
 import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.Iterators.EdgeListEdgeCursor;
 import Graphs.Disk.Iterators.EdgeListNodeIterator;
 import Graphs.Disk.Iterators.EdgeListRelationshipIterator;
 import Graphs.Edge;
 import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.Memory.IntIntHashMap;
 
 import java.io.*;
 import java.util.Iterator;
-import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class EdgeListDiskGraph implements IGraph<Integer>, AutoCloseable {
+public class EdgeListDiskGraph implements IGraph<Integer>, BulkLoadable, AutoCloseable {
     private final GraphRandomAccessFile nodesRaf;
     private final GraphRandomAccessFile edgesRaf;
-    private static final Random rand = ThreadLocalRandom.current();
 
     public EdgeListDiskGraph(String directoryPath) throws IOException {
         this(directoryPath, "nodes.dat", "edges.dat");
     }
 
     public EdgeListDiskGraph(String directoryPath, String nodesFileName, String edgesFileName) throws IOException {
+        this(directoryPath, nodesFileName, edgesFileName, PageCache.DEFAULT_PAGE_COUNT);
+    }
+
+    public EdgeListDiskGraph(String directoryPath, String nodesFileName, String edgesFileName, int cachePages) throws IOException {
         File dir = new File(directoryPath);
         File nodesFile = new File(dir, nodesFileName);
-        nodesRaf = new GraphRandomAccessFile(nodesFile);
+        nodesRaf = new GraphRandomAccessFile(nodesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
 
         File edgesFile = new File(dir, edgesFileName);
-        edgesRaf = new GraphRandomAccessFile(edgesFile);
+        edgesRaf = new GraphRandomAccessFile(edgesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
+    }
+
+    /**
+     * Returns the number of page cache hits across the node and edge files.
+     *
+     * @return the page cache hit count.
+     */
+    public long getCacheHits() {
+        return nodesRaf.getCacheHits() + edgesRaf.getCacheHits();
+    }
+
+    /**
+     * Returns the number of page cache misses across the node and edge files.
+     *
+     * @return the page cache miss count.
+     */
+    public long getCacheMisses() {
+        return nodesRaf.getCacheMisses() + edgesRaf.getCacheMisses();
     }
 
     private boolean nodeExists(Integer node) throws IOException {
-        nodesRaf.seek(Constants.INT_SIZE); // Skip the count
-        while (nodesRaf.getFilePointer() < nodesRaf.length()) {
-            int n = nodesRaf.readInt();
-            if (n == node) {
+        long end = nodesRaf.length();
+        for (long offset = Constants.INT_SIZE; offset < end; offset += Constants.INT_SIZE) { // Skip the count
+            if (nodesRaf.readInt(offset) == node) {
                 return true;
             }
         }
@@ -65,11 +87,63 @@ public class EdgeListDiskGraph implements IGraph<Integer>, AutoCloseable {
         edgesRaf.incCount();
     }
 
+    /**
+     * Adds a batch of relationships. Into an empty store the nodes are de-duplicated in memory and
+     * both files are written front to back, so no node file scan is made per endpoint.
+     */
+    @Override
+    public void addRelationships(EdgeBatch batch) throws InvalidNodeAccessException, IOException {
+        if (nodesRaf.getCount() != 0 || edgesRaf.getCount() != 0) {
+            for (int i = 0; i < batch.size(); i++) {
+                addNode(batch.source(i));
+                addNode(batch.target(i));
+                addRelationship("default", batch.source(i), batch.target(i));
+            }
+            return;
+        }
+
+        // Nodes are written in the order they are first seen, as addNode would have.
+        var seen = new IntIntHashMap(-1);
+        nodesRaf.seek(Constants.INT_SIZE);
+        for (int i = 0; i < batch.size(); i++) {
+            writeIfUnseen(batch.source(i), seen);
+            writeIfUnseen(batch.target(i), seen);
+        }
+        nodesRaf.setCount(seen.size());
+
+        edgesRaf.seek(Constants.INT_SIZE);
+        for (int i = 0; i < batch.size(); i++) {
+            edgesRaf.writeInt(batch.source(i));
+            edgesRaf.writeInt(batch.target(i));
+        }
+        edgesRaf.setCount(batch.size());
+    }
+
+    private void writeIfUnseen(int node, IntIntHashMap seen) throws IOException {
+        if (seen.containsKey(node)) return;
+        seen.put(node, seen.size());
+        nodesRaf.writeInt(node);
+    }
+
     @Override
     public Iterator<Edge<Integer>> getRelationships(Integer node) throws IOException {
         return new EdgeListRelationshipIterator(node, edgesRaf);
     }
 
+    /**
+     * Returns the relationships ending at the node. Like the outgoing ones, they are found by
+     * scanning the edges file.
+     */
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws IOException {
+        return new EdgeListRelationshipIterator(node, true, edgesRaf);
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws IOException {
+        return new EdgeListEdgeCursor(node, edgesRaf);
+    }
+
     @Override
     public Edge<Integer> getRandomRelationship(Integer node) throws IOException {
         int count = 0;
@@ -77,7 +151,7 @@ public class EdgeListDiskGraph implements IGraph<Integer>, AutoCloseable {
         for (Iterator<Edge<Integer>> it = getRelationships(node); it.hasNext(); ) {
             Edge<Integer> edge = it.next();
             count++;
-            if (rand.nextInt(count) == 0) {
+            if (ThreadLocalRandom.current().nextInt(count) == 0) {
                 chosenEdge = edge;
             }
         }
@@ -95,11 +169,10 @@ public class EdgeListDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (count <= 0) {
             throw new IOException("No nodes available in the graph.");
         }
-        int randomIndex = rand.nextInt(count);
+        int randomIndex = ThreadLocalRandom.current().nextInt(count);
         // Skip the first 4 bytes (the count) and then each node is 4 bytes.
         long offset = Constants.INT_SIZE + randomIndex * Constants.INT_SIZE;
-        nodesRaf.seek(offset);
-        return nodesRaf.readInt();
+        return nodesRaf.readInt(offset);
     }
 
     @Override
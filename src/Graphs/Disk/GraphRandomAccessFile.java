@@ -1,8 +1,7 @@
 package Graphs.Disk;
 
-import java.io.File;
-import java.io.IOException;
-import java.io.RandomAccessFile;
+import java.io.*;
+import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.util.function.Supplier;
 
@@ -10,10 +9,22 @@ import java.util.function.Supplier;
  * A wrapper around RandomAccessFile that reserves the first four bytes
  * to store a count (which can be set, retrieved, or incremented) and provides
  * methods to perform common random access operations.
+ * <p>
+ * All reads and writes go through a {@link PageCache}, so the file pointer is tracked here
+ * rather than by the RandomAccessFile and only page misses and write-backs reach the disk.
+ * <p>
+ * The file pointer is shared by every caller, so {@link #seek} followed by a read is only safe
+ * from one thread with no other reader in between. The positional reads take the position as an
+ * argument instead and may be called by any number of threads at once, also while another thread
+ * writes, as long as nothing clears or closes the file.
  */
 public class GraphRandomAccessFile<T extends GraphRecord> {
     private RandomAccessFile raf;
+    private PageCache cache;
+    private long filePointer = 0;
     private final File rafFile;
+    private final int pageSize;
+    private final int pageCount;
 
     /**
      * Creates a GraphRandomAccessFile for the given file path.
@@ -36,17 +47,50 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public GraphRandomAccessFile(File file) throws IOException {
+        this(file, PageCache.DEFAULT_PAGE_SIZE, PageCache.DEFAULT_PAGE_COUNT);
+    }
+
+    /**
+     * Creates a GraphRandomAccessFile for the given file with a page cache of the given size.
+     * If the file does not exist, it will be created (along with any missing parent directories)
+     * and initialized with a count of 0.
+     *
+     * @param file      the file to open
+     * @param pageSize  the size of a cached page in bytes, must be a power of two.
+     * @param pageCount the number of pages kept in memory.
+     * @throws IOException if an I/O error occurs.
+     */
+    public GraphRandomAccessFile(File file, int pageSize, int pageCount) throws IOException {
         rafFile = file;
+        this.pageSize = pageSize;
+        this.pageCount = pageCount;
         if (!rafFile.exists()) {
             File parent = rafFile.getParentFile();
             if (parent != null && !parent.exists()) {
                 parent.mkdirs();
             }
-            raf = new RandomAccessFile(rafFile, "rw");
+            open();
             // Initialize the count to 0 at the beginning of the file.
             setCount(0);
         } else {
-            raf = new RandomAccessFile(rafFile, "rw");
+            open();
+        }
+    }
+
+    private void open() throws IOException {
+        raf = new RandomAccessFile(rafFile, "rw");
+        cache = new PageCache(raf.getChannel(), pageSize, pageCount);
+        filePointer = 0;
+    }
+
+    private void checkRead(long len) throws IOException {
+        checkRead(filePointer, len);
+    }
+
+    private void checkRead(long position, long len) throws IOException {
+        if (position < 0) throw new IOException("Negative read offset: " + position);
+        if (position + len > cache.length()) {
+            throw new EOFException("Read of " + len + " bytes at " + position + " is past the end of " + rafFile);
         }
     }
 
@@ -57,11 +101,7 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public int getCount() throws IOException {
-        long currentPos = raf.getFilePointer();
-        raf.seek(0);
-        int count = raf.readInt();
-        raf.seek(currentPos);
-        return count;
+        return cache.readInt(0);
     }
 
     /**
@@ -71,10 +111,7 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void setCount(int count) throws IOException {
-        long currentPos = raf.getFilePointer();
-        raf.seek(0);
-        raf.writeInt(count);
-        raf.seek(currentPos);
+        cache.writeInt(0, count);
     }
 
     /**
@@ -83,12 +120,7 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void incCount() throws IOException {
-        long currentPos = raf.getFilePointer();
-        raf.seek(0);
-        int count = raf.readInt();
-        raf.seek(0);
-        raf.writeInt(count + 1);
-        raf.seek(currentPos);
+        cache.writeInt(0, cache.readInt(0) + 1);
     }
 
     /**
@@ -97,26 +129,103 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void clear() throws IOException {
+        // The cached pages belong to the old file, so they are dropped rather than written back.
         raf.close();
         Files.deleteIfExists(rafFile.toPath());
-        raf = new RandomAccessFile(rafFile, "rw");
+        open();
         setCount(0);
     }
 
     // Delegate methods for additional RandomAccessFile functionality
 
     public void writeElement(T element) throws IOException {
-        raf.write(element.toBytes());
+        write(element.toBytes());
     }
 
     public T readElement(Supplier<T> supplier) throws IOException {
         T element = supplier.get();
         byte[] data = new byte[element.getRecordSize()];
-        raf.readFully(data);
+        checkRead(data.length);
+        cache.read(filePointer, data, 0, data.length);
+        filePointer += data.length;
+        element.fromBytes(data);
+        return element;
+    }
+
+    /**
+     * Reads a record at the given position, leaving the file pointer where it is.
+     *
+     * @param position the offset of the record in the file.
+     * @param supplier creates the record to decode into.
+     * @return the record read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public T readElement(long position, Supplier<T> supplier) throws IOException {
+        T element = supplier.get();
+        byte[] data = new byte[element.getRecordSize()];
+        checkRead(position, data.length);
+        cache.read(position, data, 0, data.length);
         element.fromBytes(data);
         return element;
     }
 
+    /**
+     * Fills the remaining bytes of the buffer from the given position, leaving the file pointer
+     * where it is.
+     *
+     * @param dst      the buffer to fill.
+     * @param position the offset in the file to read from.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void read(ByteBuffer dst, long position) throws IOException {
+        int len = dst.remaining();
+        checkRead(position, len);
+        if (dst.hasArray()) {
+            cache.read(position, dst.array(), dst.arrayOffset() + dst.position(), len);
+        } else {
+            byte[] data = new byte[len];
+            cache.read(position, data, 0, len);
+            dst.put(dst.position(), data);
+        }
+        dst.position(dst.position() + len);
+    }
+
+    /**
+     * Reads a boolean at the given position, leaving the file pointer where it is.
+     *
+     * @param position the offset in the file to read from.
+     * @return the boolean read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public boolean readBoolean(long position) throws IOException {
+        checkRead(position, Constants.BOOL_SIZE);
+        return cache.readByte(position) != 0;
+    }
+
+    /**
+     * Reads an int at the given position, leaving the file pointer where it is.
+     *
+     * @param position the offset in the file to read from.
+     * @return the int read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public int readInt(long position) throws IOException {
+        checkRead(position, Constants.INT_SIZE);
+        return cache.readInt(position);
+    }
+
+    /**
+     * Reads a long at the given position, leaving the file pointer where it is.
+     *
+     * @param position the offset in the file to read from.
+     * @return the long read.
+     * @throws IOException if an I/O error occurs.
+     */
+    public long readLong(long position) throws IOException {
+        checkRead(position, Constants.LONG_SIZE);
+        return cache.readLong(position);
+    }
+
     /**
      * Seeks to the specified position in the file.
      *
@@ -124,7 +233,8 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void seek(long pos) throws IOException {
-        raf.seek(pos);
+        if (pos < 0) throw new IOException("Negative seek offset: " + pos);
+        filePointer = pos;
     }
 
     /**
@@ -133,7 +243,7 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void seekTheEnd() throws IOException {
-        raf.seek(raf.length());
+        filePointer = cache.length();
     }
 
     /**
@@ -143,7 +253,9 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void skipBytes(int size) throws IOException {
-        raf.skipBytes(size);
+        if (size <= 0) return;
+        // Like RandomAccessFile, never skip past the end of the file.
+        filePointer = Math.max(filePointer, Math.min(filePointer + size, cache.length()));
     }
 
     /**
@@ -165,7 +277,7 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public long getFilePointer() throws IOException {
-        return raf.getFilePointer();
+        return filePointer;
     }
 
     /**
@@ -175,7 +287,8 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void write(byte[] b) throws IOException {
-        raf.write(b);
+        cache.write(filePointer, b, 0, b.length);
+        filePointer += b.length;
     }
 
     /**
@@ -185,7 +298,8 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void writeBoolean(boolean b) throws IOException {
-        raf.writeBoolean(b);
+        cache.writeByte(filePointer, (byte) (b ? 1 : 0));
+        filePointer += Constants.BOOL_SIZE;
     }
 
     /**
@@ -195,7 +309,10 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public boolean readBoolean() throws IOException {
-        return raf.readBoolean();
+        checkRead(Constants.BOOL_SIZE);
+        boolean b = cache.readByte(filePointer) != 0;
+        filePointer += Constants.BOOL_SIZE;
+        return b;
     }
 
     /**
@@ -205,7 +322,8 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void writeInt(int i) throws IOException {
-        raf.writeInt(i);
+        cache.writeInt(filePointer, i);
+        filePointer += Constants.INT_SIZE;
     }
 
     /**
@@ -215,7 +333,10 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public int readInt() throws IOException {
-        return raf.readInt();
+        checkRead(Constants.INT_SIZE);
+        int i = cache.readInt(filePointer);
+        filePointer += Constants.INT_SIZE;
+        return i;
     }
 
     /**
@@ -225,7 +346,8 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void writeLong(long l) throws IOException {
-        raf.writeLong(l);
+        cache.writeLong(filePointer, l);
+        filePointer += Constants.LONG_SIZE;
     }
 
     /**
@@ -235,7 +357,10 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public long readLong() throws IOException {
-        return raf.readLong();
+        checkRead(Constants.LONG_SIZE);
+        long l = cache.readLong(filePointer);
+        filePointer += Constants.LONG_SIZE;
+        return l;
     }
 
     /**
@@ -245,7 +370,9 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public void writeUTF(String str) throws IOException {
-        raf.writeUTF(str);
+        var bytes = new ByteArrayOutputStream();
+        new DataOutputStream(bytes).writeUTF(str);
+        write(bytes.toByteArray());
     }
 
     /**
@@ -255,7 +382,13 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public String readUTF() throws IOException {
-        return raf.readUTF();
+        checkRead(Short.BYTES);
+        int utfLength = ((cache.readByte(filePointer) & 0xFF) << 8) | (cache.readByte(filePointer + 1) & 0xFF);
+        byte[] data = new byte[Short.BYTES + utfLength];
+        checkRead(data.length);
+        cache.read(filePointer, data, 0, data.length);
+        filePointer += data.length;
+        return new DataInputStream(new ByteArrayInputStream(data)).readUTF();
     }
 
     /**
@@ -265,15 +398,43 @@ public class GraphRandomAccessFile<T extends GraphRecord> {
      * @throws IOException if an I/O error occurs.
      */
     public long length() throws IOException {
-        return raf.length();
+        return cache.length();
+    }
+
+    /**
+     * Returns the number of reads and writes served from the page cache.
+     *
+     * @return the page cache hit count.
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Returns the number of reads and writes that had to load a page from the file.
+     *
+     * @return the page cache miss count.
+     */
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Writes every dirty cached page back to the file.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        cache.flush();
     }
 
     /**
-     * Closes the underlying RandomAccessFile.
+     * Writes back the dirty cached pages and closes the underlying RandomAccessFile.
      *
      * @throws IOException if an I/O error occurs.
      */
     public void close() throws IOException {
+        cache.flush();
         raf.close();
     }
 }
@@ -0,0 +1,60 @@
+package Graphs.Disk.Iterators;
+
+import Graphs.Disk.Constants;
+import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.IntEdgeCursor;
+
+import java.io.IOException;
+
+public final class EdgeListEdgeCursor implements IntEdgeCursor {
+    private static final long RELATIONSHIP_SIZE = Constants.INT_SIZE + Constants.INT_SIZE;
+
+    private final GraphRandomAccessFile<?> raf;
+    private int node;
+    private int totalRelationships;
+    private int currentRelationshipIndex;
+    private int target;
+
+    public EdgeListEdgeCursor(int node, GraphRandomAccessFile<?> raf) throws IOException {
+        this.raf = raf;
+        reset(node);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        while (currentRelationshipIndex < totalRelationships) {
+            // The cursor keeps its own position, so it can be interleaved with other reads.
+            long position = Constants.INT_SIZE + currentRelationshipIndex * RELATIONSHIP_SIZE;
+            int s = raf.readInt(position);
+            int t = raf.readInt(position + Constants.INT_SIZE);
+            currentRelationshipIndex++;
+            if (s == node) {
+                target = t;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public int sourceId() {
+        return node;
+    }
+
+    @Override
+    public int targetId() {
+        return target;
+    }
+
+    @Override
+    public String label() {
+        return "default";
+    }
+
+    @Override
+    public void reset(Integer node) throws IOException {
+        this.node = node;
+        this.totalRelationships = raf.getCount();
+        this.currentRelationshipIndex = 0;
+    }
+}
@@ -1,5 +1,6 @@
 package Graphs.Disk.Iterators;
 
+import Graphs.Disk.Constants;
 import Graphs.Disk.GraphRandomAccessFile;
 
 import java.io.IOException;
@@ -9,6 +10,8 @@ import java.util.NoSuchElementException;
 public class EdgeListNodeIterator implements Iterator<Integer> {
     private final GraphRandomAccessFile raf;
     private int remaining;
+    // The iterator's own position, as the file is shared with every other read of the graph.
+    private long position = Constants.INT_SIZE;
 
     public EdgeListNodeIterator(GraphRandomAccessFile raf) throws IOException {
         this.raf = raf;
@@ -27,7 +30,8 @@ public class EdgeListNodeIterator implements Iterator<Integer> {
         }
         int node;
         try {
-            node = raf.readInt();
+            node = raf.readInt(position);
+            position += Constants.INT_SIZE;
             remaining--;
             return node;
         } catch (IOException e) {
@@ -1,5 +1,6 @@
 package Graphs.Disk.Iterators;
 
+import Graphs.Disk.Constants;
 import Graphs.Disk.GraphRandomAccessFile;
 import Graphs.Edge;
 
@@ -8,20 +9,28 @@ import java.util.Iterator;
 import java.util.NoSuchElementException;
 
 public class EdgeListRelationshipIterator implements Iterator<Edge<Integer>> {
+    private static final long RELATIONSHIP_SIZE = Constants.INT_SIZE + Constants.INT_SIZE;
+
     private final int node;
+    private final boolean incoming;
     private final GraphRandomAccessFile raf;
     private final int totalRelationships;
     private int currentRelationshipIndex;
     private Edge<Integer> nextEdge;
 
     public EdgeListRelationshipIterator(int node, GraphRandomAccessFile raf) throws IOException {
+        this(node, false, raf);
+    }
+
+    /**
+     * @param incoming whether to match relationships ending at the node rather than starting at it.
+     */
+    public EdgeListRelationshipIterator(int node, boolean incoming, GraphRandomAccessFile<?> raf) throws IOException {
         this.node = node;
+        this.incoming = incoming;
         this.raf = raf;
         // Read the total number of relationships from the header.
-        raf.seek(0);
-        this.totalRelationships = raf.readInt();
-        // Set the pointer to the first relationship entry (skip the count header).
-        raf.seek(4);
+        this.totalRelationships = raf.getCount();
         this.currentRelationshipIndex = 0;
         this.nextEdge = null;
     }
@@ -33,11 +42,12 @@ public class EdgeListRelationshipIterator implements Iterator<Edge<Integer>> {
     private void advance() throws IOException {
         nextEdge = null;
         while (currentRelationshipIndex < totalRelationships && nextEdge == null) {
-            // Each relationship entry consists of two ints and a UTF string.
-            int s = raf.readInt();
-            int t = raf.readInt();
+            // Each relationship entry consists of two ints, read at the iterator's own position.
+            long position = Constants.INT_SIZE + currentRelationshipIndex * RELATIONSHIP_SIZE;
+            int s = raf.readInt(position);
+            int t = raf.readInt(position + Constants.INT_SIZE);
             currentRelationshipIndex++;
-            if (node == s) {
+            if (node == (incoming ? t : s)) {
                 nextEdge = new Edge<>(s, t, "default");
             }
         }
@@ -0,0 +1,63 @@
+package Graphs.Disk.Iterators;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.AdjacencyList.AdjacencyListEdge;
+import Graphs.Disk.AdjacencyList.AdjacencyListNode;
+import Graphs.Disk.Constants;
+import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.IntEdgeCursor;
+
+import java.io.IOException;
+
+public final class LinkedListEdgeCursor implements IntEdgeCursor {
+    private final GraphRandomAccessFile<AdjacencyListNode> nodesRaf;
+    private final GraphRandomAccessFile<AdjacencyListEdge> edgesRaf;
+    private int node;
+    private long nextPos;
+    private int target;
+
+    public LinkedListEdgeCursor(int node, GraphRandomAccessFile<AdjacencyListNode> nodesRaf,
+                                GraphRandomAccessFile<AdjacencyListEdge> edgesRaf) throws InvalidNodeAccessException, IOException {
+        this.nodesRaf = nodesRaf;
+        this.edgesRaf = edgesRaf;
+        reset(node);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (nextPos == -1) return false;
+        // Read the record fields in place rather than decoding an AdjacencyListEdge.
+        target = edgesRaf.readInt(nextPos);
+        nextPos = edgesRaf.readLong(nextPos + Constants.INT_SIZE);
+        return true;
+    }
+
+    @Override
+    public int sourceId() {
+        return node;
+    }
+
+    @Override
+    public int targetId() {
+        return target;
+    }
+
+    @Override
+    public String label() {
+        return "default";
+    }
+
+    @Override
+    public void reset(Integer node) throws InvalidNodeAccessException, IOException {
+        long offset = Constants.INT_SIZE + (node * AdjacencyListNode.RECORD_SIZE);
+        if (offset >= nodesRaf.length()) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        if (!nodesRaf.readBoolean(offset)) {
+            throw new InvalidNodeAccessException("The node is not in the graph.");
+        }
+        this.node = node;
+        // Past the in use flag and the node id.
+        this.nextPos = nodesRaf.readLong(offset + Constants.BOOL_SIZE + Constants.INT_SIZE);
+    }
+}
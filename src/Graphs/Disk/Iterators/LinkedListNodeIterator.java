@@ -7,12 +7,19 @@ import java.io.IOException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
+/**
+ * Iterates the ids of the node records in use. Records sit at the position of their id and start
+ * with an in use flag, ids without a node leave an unused record.
+ */
 public class LinkedListNodeIterator implements Iterator<Integer> {
     private final GraphRandomAccessFile raf;
+    private final long recordSize;
     private int remaining;
+    private int nextNode = 0;
 
-    public LinkedListNodeIterator(GraphRandomAccessFile raf) throws IOException {
+    public LinkedListNodeIterator(GraphRandomAccessFile raf, long recordSize) throws IOException {
         this.raf = raf;
+        this.recordSize = recordSize;
         this.remaining = raf.getCount();
     }
 
@@ -26,12 +33,12 @@ public class LinkedListNodeIterator implements Iterator<Integer> {
         if (!hasNext()) {
             throw new NoSuchElementException();
         }
-        int node;
         try {
-            node = raf.readInt();
-            raf.skipBytes(Constants.LONG_SIZE);
+            while (!raf.readBoolean(Constants.INT_SIZE + nextNode * recordSize)) {
+                nextNode++;
+            }
             remaining--;
-            return node;
+            return nextNode++;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -10,11 +10,21 @@ import java.util.NoSuchElementException;
 
 public class LinkedListRelationshipIterator implements Iterator<Edge<Integer>> {
     private final int node;
+    private final boolean incoming;
     private final GraphRandomAccessFile<AdjacencyListEdge> raf;
     private long nextPos;
 
     public LinkedListRelationshipIterator(int node, long startingPos, GraphRandomAccessFile<AdjacencyListEdge> raf) throws IOException {
+        this(node, false, startingPos, raf);
+    }
+
+    /**
+     * @param incoming whether the chain is a reverse list, whose records hold the sources of the
+     *                 node's incoming relationships.
+     */
+    public LinkedListRelationshipIterator(int node, boolean incoming, long startingPos, GraphRandomAccessFile<AdjacencyListEdge> raf) throws IOException {
         this.node = node;
+        this.incoming = incoming;
         this.raf = raf;
         this.nextPos = startingPos;
     }
@@ -30,10 +40,10 @@ public class LinkedListRelationshipIterator implements Iterator<Edge<Integer>> {
             throw new NoSuchElementException();
         }
         try {
-            raf.seek(nextPos);
-            AdjacencyListEdge edgeElem = raf.readElement(AdjacencyListEdge::new);
+            AdjacencyListEdge edgeElem = raf.readElement(nextPos, AdjacencyListEdge::new);
             nextPos = edgeElem.getNextNeighborPointer();
-            return new Edge<>(node, edgeElem.getTargetNode(), "default");
+            int other = edgeElem.getTargetNode();
+            return incoming ? new Edge<>(other, node, "default") : new Edge<>(node, other, "default");
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -0,0 +1,58 @@
+package Graphs.Disk.Iterators;
+
+import Graphs.Disk.Constants;
+import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.Disk.Neo4j.Neo4jEdge;
+import Graphs.Disk.Neo4j.Neo4jNode;
+import Graphs.IntEdgeCursor;
+
+import java.io.IOException;
+
+public final class Neo4jEdgeCursor implements IntEdgeCursor {
+    private final GraphRandomAccessFile<Neo4jNode> nodesRaf;
+    private final GraphRandomAccessFile<Neo4jEdge> edgesRaf;
+    private int node;
+    private long currentRelPos;
+    private int target;
+
+    public Neo4jEdgeCursor(int node, GraphRandomAccessFile<Neo4jNode> nodesRaf, GraphRandomAccessFile<Neo4jEdge> edgesRaf) throws IOException {
+        this.nodesRaf = nodesRaf;
+        this.edgesRaf = edgesRaf;
+        reset(node);
+    }
+
+    @Override
+    public boolean next() throws IOException {
+        if (currentRelPos == -1) return false;
+        // Only the start node, end node and next outgoing pointer of the record are needed.
+        int source = edgesRaf.readInt(currentRelPos);
+        if (source != node) {
+            throw new RuntimeException("Why did the edge source not match the target source?");
+        }
+        target = edgesRaf.readInt(currentRelPos + Constants.INT_SIZE);
+        currentRelPos = edgesRaf.readLong(currentRelPos + 2 * Constants.INT_SIZE);
+        return true;
+    }
+
+    @Override
+    public int sourceId() {
+        return node;
+    }
+
+    @Override
+    public int targetId() {
+        return target;
+    }
+
+    @Override
+    public String label() {
+        return "default";
+    }
+
+    @Override
+    public void reset(Integer node) throws IOException {
+        long nodeOffset = Constants.INT_SIZE + (node * Neo4jNode.RECORD_SIZE);
+        this.node = node;
+        this.currentRelPos = nodesRaf.readLong(nodeOffset + Constants.BOOL_SIZE);
+    }
+}
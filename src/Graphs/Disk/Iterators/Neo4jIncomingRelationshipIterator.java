@@ -0,0 +1,62 @@
+package Graphs.Disk.Iterators;
+
+import Graphs.Disk.Constants;
+import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.Disk.Neo4j.Neo4jEdge;
+import Graphs.Disk.Neo4j.Neo4jNode;
+import Graphs.Edge;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Follows a node's incoming chain, newest relationship first.
+ */
+public class Neo4jIncomingRelationshipIterator implements Iterator<Edge<Integer>> {
+    private final int node;
+    private final GraphRandomAccessFile<Neo4jEdge> edgesRaf;
+    private Edge<Integer> nextEdge;
+    private long currentRelPos;
+
+    public Neo4jIncomingRelationshipIterator(int node, GraphRandomAccessFile<Neo4jNode> nodesRaf, GraphRandomAccessFile<Neo4jEdge> edgesRaf) throws IOException {
+        this.node = node;
+        this.edgesRaf = edgesRaf;
+        long nodeOffset = Constants.INT_SIZE + (node * Neo4jNode.RECORD_SIZE);
+        Neo4jNode nodeObj = nodesRaf.readElement(nodeOffset, Neo4jNode::new);
+        this.currentRelPos = nodeObj.getIncomingPointer();
+    }
+
+    private void advance() throws IOException {
+        nextEdge = null;
+        if (currentRelPos == -1) return;
+        Neo4jEdge edge = edgesRaf.readElement(currentRelPos, Neo4jEdge::new);
+        if (edge.getTargetNode() != this.node) {
+            throw new RuntimeException("Why did the edge target not match the node?");
+        }
+        nextEdge = new Edge<>(edge.getSourceNode(), edge.getTargetNode(), "default");
+        currentRelPos = edge.getIncomingNext();
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            if (nextEdge == null) {
+                advance();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Error reading relationships", e);
+        }
+        return nextEdge != null;
+    }
+
+    @Override
+    public Edge<Integer> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        var result = nextEdge;
+        nextEdge = null;
+        return result;
+    }
+}
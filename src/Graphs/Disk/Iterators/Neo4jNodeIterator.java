@@ -11,18 +11,21 @@ public class Neo4jNodeIterator implements Iterator<Integer> {
     private final GraphRandomAccessFile raf;
     private final long nodeSize;
     private final int totalCount;
+    private int returned;
     private int nextNode;
 
     public Neo4jNodeIterator(GraphRandomAccessFile raf, long nodeSize) throws IOException {
         this.raf = raf;
         this.nodeSize = nodeSize;
         this.totalCount = raf.getCount();
+        this.returned = 0;
         this.nextNode = 0;
     }
 
+    // The count is of nodes in use, ids without a node leave unused records in between.
     @Override
     public boolean hasNext() {
-        return nextNode < totalCount;
+        return returned < totalCount;
     }
 
     @Override
@@ -32,12 +35,11 @@ public class Neo4jNodeIterator implements Iterator<Integer> {
         }
 
         try {
-            raf.seek(Constants.INT_SIZE + (nextNode * nodeSize));
-            while (!raf.readBoolean()) {
+            while (!raf.readBoolean(Constants.INT_SIZE + (nextNode * nodeSize))) {
                 nextNode++;
-                raf.skipBytes(nodeSize - Constants.BOOL_SIZE);
             }
-            return nextNode;
+            returned++;
+            return nextNode++;
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
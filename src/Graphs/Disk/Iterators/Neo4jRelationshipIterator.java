@@ -24,9 +24,8 @@ public class Neo4jRelationshipIterator implements Iterator<Edge<Integer>> {
         this.edgesRaf = edgesRaf;
         // Compute the offset in the node file:
         long nodeOffset = Constants.INT_SIZE + (node * Neo4jNode.RECORD_SIZE);
-        this.nodesRaf.seek(nodeOffset);
         // Read the entire node record via our generic method.
-        Neo4jNode nodeObj = this.nodesRaf.readElement(Neo4jNode::new);
+        Neo4jNode nodeObj = this.nodesRaf.readElement(nodeOffset, Neo4jNode::new);
         this.currentRelPos = nodeObj.getOutgoingPointer();
     }
 
@@ -37,9 +36,8 @@ public class Neo4jRelationshipIterator implements Iterator<Edge<Integer>> {
     private void advance() throws IOException {
         nextEdge = null;
         while (currentRelPos != -1 && nextEdge == null) {
-            edgesRaf.seek(currentRelPos);
-            // Read the whole edge record as a Neo4jEdge.
-            Neo4jEdge edge = edgesRaf.readElement(Neo4jEdge::new);
+            // Read the whole edge record as a Neo4jEdge, at the iterator's own position.
+            Neo4jEdge edge = edgesRaf.readElement(currentRelPos, Neo4jEdge::new);
             // Optional: ensure that this edge is indeed an outgoing edge for our node,
             // for extra safety (you might know that it always will be).
             if (edge.getSourceNode() == this.node) {
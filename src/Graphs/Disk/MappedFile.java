@@ -0,0 +1,78 @@
+package Graphs.Disk;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read only memory mapping of a whole file, as one memory segment so that files of any size can
+ * be addressed with a long position. Values are read big-endian, as a DataOutputStream writes them.
+ * <p>
+ * Values must be aligned to their own size (ints to 4 bytes, longs to 8 bytes). Reads use absolute
+ * positions, so a single instance can be shared by threads. The mapping is released by
+ * {@link #close}, which must happen before the file is truncated or rewritten; reads after that
+ * throw an IllegalStateException rather than touching unmapped memory.
+ */
+public class MappedFile implements AutoCloseable {
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    /**
+     * Maps the current contents of the channel.
+     *
+     * @param channel the channel to map.
+     * @throws IOException if an I/O error occurs.
+     */
+    public MappedFile(FileChannel channel) throws IOException {
+        arena = Arena.ofShared();
+        try {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Returns the number of mapped bytes.
+     *
+     * @return the length of the mapping, in bytes.
+     */
+    public long length() {
+        return segment.byteSize();
+    }
+
+    /**
+     * Reads an int at the given position.
+     *
+     * @param pos the byte position, aligned to 4 bytes.
+     * @return the int read.
+     */
+    public int getInt(long pos) {
+        return segment.get(INT, pos);
+    }
+
+    /**
+     * Reads a long at the given position.
+     *
+     * @param pos the byte position, aligned to 8 bytes.
+     * @return the long read.
+     */
+    public long getLong(long pos) {
+        return segment.get(LONG, pos);
+    }
+
+    /**
+     * Unmaps the file.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+}
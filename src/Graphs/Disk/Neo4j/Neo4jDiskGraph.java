@@ -1,34 +1,62 @@
 package Graphs.Disk.Neo4j;
 
 import Exceptions.InvalidNodeAccessException;
+import Graphs.Disk.BulkLoadable;
 import Graphs.Disk.Constants;
+import Graphs.Disk.EdgeBatch;
 import Graphs.Disk.GraphRandomAccessFile;
+import Graphs.Disk.PageCache;
+import Graphs.Disk.Iterators.Neo4jEdgeCursor;
+import Graphs.Disk.Iterators.Neo4jIncomingRelationshipIterator;
 import Graphs.Disk.Iterators.Neo4jNodeIterator;
 import Graphs.Disk.Iterators.Neo4jRelationshipIterator;
 import Graphs.Edge;
 import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
 
 import java.io.*;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.Iterator;
-import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
-public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
+public class Neo4jDiskGraph implements IGraph<Integer>, BulkLoadable, AutoCloseable {
     private final GraphRandomAccessFile<Neo4jNode> nodesRaf;
     private final GraphRandomAccessFile<Neo4jEdge> edgesRaf;
-    private static final Random rand = ThreadLocalRandom.current();
 
     public Neo4jDiskGraph(String directoryPath) throws IOException {
         this(directoryPath, "nodes.dat", "edges.dat");
     }
 
     public Neo4jDiskGraph(String directoryPath, String nodesFileName, String edgesFileName) throws IOException {
+        this(directoryPath, nodesFileName, edgesFileName, PageCache.DEFAULT_PAGE_COUNT);
+    }
+
+    public Neo4jDiskGraph(String directoryPath, String nodesFileName, String edgesFileName, int cachePages) throws IOException {
         File dir = new File(directoryPath);
         File nodesFile = new File(dir, nodesFileName);
-        nodesRaf = new GraphRandomAccessFile<>(nodesFile);
+        nodesRaf = new GraphRandomAccessFile<>(nodesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
 
         File edgesFile = new File(dir, edgesFileName);
-        edgesRaf = new GraphRandomAccessFile<>(edgesFile);
+        edgesRaf = new GraphRandomAccessFile<>(edgesFile, PageCache.DEFAULT_PAGE_SIZE, cachePages);
+    }
+
+    /**
+     * Returns the number of page cache hits across the node and edge files.
+     *
+     * @return the page cache hit count.
+     */
+    public long getCacheHits() {
+        return nodesRaf.getCacheHits() + edgesRaf.getCacheHits();
+    }
+
+    /**
+     * Returns the number of page cache misses across the node and edge files.
+     *
+     * @return the page cache miss count.
+     */
+    public long getCacheMisses() {
+        return nodesRaf.getCacheMisses() + edgesRaf.getCacheMisses();
     }
 
     private Neo4jNode getExistingNode(Integer nodeId) throws IOException {
@@ -37,12 +65,11 @@ public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (offset >= nodesRaf.length()) {
             return null;
         }
-        nodesRaf.seek(offset);
-        Neo4jNode foundNode = nodesRaf.readElement(Neo4jNode::new);
+        Neo4jNode foundNode = nodesRaf.readElement(offset, Neo4jNode::new);
         return foundNode.isInUse() ? foundNode : null;
     }
 
-    // Check if a node record exists at the given node id by seeking to its record
+    // Check if a node record exists at the given node id by reading its record
     private boolean nodeExists(Integer nodeId) throws IOException {
         return getExistingNode(nodeId) != null;
     }
@@ -76,7 +103,8 @@ public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (sourceNode == null) {
             throw new InvalidNodeAccessException("The source node is not in the graph.");
         }
-        var targetNode = getExistingNode(target);
+        // A self loop must update one record, a second copy would overwrite the outgoing pointer.
+        var targetNode = source.equals(target) ? sourceNode : getExistingNode(target);
         if (targetNode == null) {
             throw new InvalidNodeAccessException("The target node is not in the graph.");
         }
@@ -95,29 +123,130 @@ public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
         sourceNode.setOutgoingPointer(newRelPos);
         updateNode(sourceNode, source);
 
-        // For the target, update the incoming chain.
-        if (currentTargetIncoming == -1) {
-            targetNode.setIncomingPointer(newRelPos);
-            updateNode(targetNode, target);
-        } else {
-            // If there is already an incoming chain, update the previous pointer
-            // of the current head of the incoming chain to point to the new relationship.
-            edgesRaf.seek(currentTargetIncoming);
-            var prevEdge = edgesRaf.readElement(Neo4jEdge::new);
+        // For the target, the new relationship becomes the head of the incoming chain.
+        if (currentTargetIncoming != -1) {
+            // The old head points back at the new relationship.
+            var prevEdge = edgesRaf.readElement(currentTargetIncoming, Neo4jEdge::new);
             prevEdge.setIncomingPrev(newRelPos);
             edgesRaf.seek(currentTargetIncoming);
             edgesRaf.writeElement(prevEdge);
-
         }
+        targetNode.setIncomingPointer(newRelPos);
+        updateNode(targetNode, target);
 
         edgesRaf.incCount();
     }
 
+    /**
+     * Adds a batch of relationships. Into an empty store the out degrees are counted first and
+     * every chain pointer is worked out in memory, so each node's outgoing chain is one contiguous
+     * run of the edges file and both files are written front to back with no read backs.
+     */
+    @Override
+    public void addRelationships(EdgeBatch batch) throws InvalidNodeAccessException, IOException {
+        if (nodesRaf.getCount() != 0 || edgesRaf.getCount() != 0) {
+            for (int i = 0; i < batch.size(); i++) {
+                addNode(batch.source(i));
+                addNode(batch.target(i));
+                addRelationship("default", batch.source(i), batch.target(i));
+            }
+            return;
+        }
+
+        int maxNode = batch.maxNode();
+        int[] firstSlot = new int[maxNode + 2];
+        int[] slots = batch.slotsBySource(firstSlot);
+        int[] slotTargets = new int[batch.size()];
+        var nodes = new BitSet(maxNode + 1);
+
+        // Walk the batch in order, so the incoming chains and chain flags come out as they would
+        // relationship by relationship: the newest incoming relationship heads its target's chain.
+        int[] incomingHead = new int[maxNode + 1];
+        Arrays.fill(incomingHead, -1);
+        int[] incomingNext = new int[batch.size()];
+        int[] incomingPrev = new int[batch.size()];
+        Arrays.fill(incomingPrev, -1);
+        var hasOutgoing = new BitSet(maxNode + 1);
+        var chainHeads = new BitSet(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            int source = batch.source(i);
+            int target = batch.target(i);
+            int slot = slots[i];
+            slotTargets[slot] = target;
+            nodes.set(source);
+            nodes.set(target);
+
+            if (!hasOutgoing.get(source) && incomingHead[target] == -1) {
+                chainHeads.set(slot);
+            }
+            hasOutgoing.set(source);
+
+            incomingNext[slot] = incomingHead[target];
+            if (incomingHead[target] != -1) {
+                incomingPrev[incomingHead[target]] = slot;
+            }
+            incomingHead[target] = slot;
+        }
+
+        edgesRaf.seek(Constants.INT_SIZE);
+        for (int node = 0; node <= maxNode; node++) {
+            int start = firstSlot[node];
+            int end = firstSlot[node + 1];
+            for (int slot = start; slot < end; slot++) {
+                edgesRaf.writeElement(new Neo4jEdge(node, slotTargets[slot],
+                        slot + 1 < end ? edgeOffset(slot + 1) : -1,
+                        slot > start ? edgeOffset(slot - 1) : -1,
+                        edgeOffset(incomingNext[slot]),
+                        edgeOffset(incomingPrev[slot]),
+                        chainHeads.get(slot)));
+            }
+        }
+        edgesRaf.setCount(batch.size());
+
+        // Ids without a node keep the zeroed record a gap in the file would have.
+        byte[] blank = new byte[(int) Neo4jNode.RECORD_SIZE];
+        nodesRaf.seek(Constants.INT_SIZE);
+        for (int node = 0; node <= maxNode; node++) {
+            if (!nodes.get(node)) {
+                nodesRaf.write(blank);
+                continue;
+            }
+            long outgoing = firstSlot[node] < firstSlot[node + 1] ? edgeOffset(firstSlot[node]) : -1;
+            nodesRaf.writeElement(new Neo4jNode(true, outgoing, edgeOffset(incomingHead[node])));
+        }
+        nodesRaf.setCount(nodes.cardinality());
+    }
+
+    /**
+     * Returns the file offset of the relationship in the given slot, or -1 for no relationship.
+     */
+    private static long edgeOffset(int slot) {
+        return slot == -1 ? -1 : Constants.INT_SIZE + slot * Neo4jEdge.RECORD_SIZE;
+    }
+
     @Override
     public Iterator<Edge<Integer>> getRelationships(Integer node) throws IOException {
         return new Neo4jRelationshipIterator(node, nodesRaf, edgesRaf);
     }
 
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    /**
+     * Returns the relationships ending at the node, by following its incoming chain.
+     */
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) throws IOException {
+        return new Neo4jIncomingRelationshipIterator(node, nodesRaf, edgesRaf);
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) throws IOException {
+        return new Neo4jEdgeCursor(node, nodesRaf, edgesRaf);
+    }
+
     @Override
     public Edge<Integer> getRandomRelationship(Integer node) throws IOException {
         int count = 0;
@@ -125,7 +254,7 @@ public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
         for (Iterator<Edge<Integer>> it = getRelationships(node); it.hasNext(); ) {
             Edge<Integer> edge = it.next();
             count++;
-            if (rand.nextInt(count) == 0) {
+            if (ThreadLocalRandom.current().nextInt(count) == 0) {
                 chosenEdge = edge;
             }
         }
@@ -143,18 +272,16 @@ public class Neo4jDiskGraph implements IGraph<Integer>, AutoCloseable {
         if (count <= 0) {
             throw new IOException("No nodes available in the graph.");
         }
-        int randomIndex = rand.nextInt(count);
+        int randomIndex = ThreadLocalRandom.current().nextInt(count);
         long offset = Constants.INT_SIZE + (randomIndex * Neo4jNode.RECORD_SIZE);
-        nodesRaf.seek(offset);
-        boolean inUse = nodesRaf.readBoolean();
+        boolean inUse = nodesRaf.readBoolean(offset);
         while (!inUse) {
             randomIndex++; // rand wasn't active, inc until it is
 
             offset = Constants.INT_SIZE + (randomIndex * Neo4jNode.RECORD_SIZE);
             if (offset > nodesRaf.length()) offset = Constants.INT_SIZE; // Wrap around if needed
-            nodesRaf.seek(offset);
 
-            inUse = nodesRaf.readBoolean();
+            inUse = nodesRaf.readBoolean(offset);
         }
         return randomIndex;
     }
@@ -0,0 +1,371 @@
+package Graphs.Disk;
+
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fixed size page cache over a FileChannel. The file is split into equally sized pages which are
+ * read on first access and kept in a bounded set of frames, evicted with the CLOCK algorithm.
+ * Writes only mark a page as dirty, dirty pages are written back when evicted or on flush.
+ * <p>
+ * The frames are split into segments, each with its own lock, page table and clock hand, and
+ * consecutive pages go to consecutive segments. Every read and write copies its bytes under the
+ * lock of the page's segment, so the cache can be shared by threads and readers of different
+ * pages rarely wait on each other. Pages are loaded and written back with positional channel
+ * reads and writes, which need no shared file pointer.
+ * <p>
+ * Values are stored big-endian, matching RandomAccessFile and ByteBuffer, so the on-disk formats
+ * are unchanged.
+ */
+public class PageCache {
+    public static final int DEFAULT_PAGE_SIZE = 8192;
+    public static final int DEFAULT_PAGE_COUNT = 512;
+    private static final int MAX_SEGMENTS = 16;
+
+    private static final VarHandle INT_VIEW = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN);
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+    private final FileChannel channel;
+    private final int pageSize;
+    private final int pageShift;
+    private final long pageMask;
+    private final Segment[] segments;
+    private final int segmentMask;
+    private final AtomicLong length;
+
+    private static class Page {
+        final byte[] data;
+        long pageNo = -1;
+        boolean referenced;
+        boolean dirty;
+
+        Page(int pageSize) {
+            data = new byte[pageSize];
+        }
+    }
+
+    /**
+     * Creates a page cache over the given channel.
+     *
+     * @param channel   the channel to cache.
+     * @param pageSize  the size of a page in bytes, must be a power of two.
+     * @param pageCount the number of pages kept in memory.
+     * @throws IOException if an I/O error occurs.
+     */
+    public PageCache(FileChannel channel, int pageSize, int pageCount) throws IOException {
+        if (pageSize < Constants.LONG_SIZE || Integer.bitCount(pageSize) != 1) {
+            throw new IllegalArgumentException("The page size must be a power of two of at least 8 bytes: " + pageSize);
+        }
+        if (pageCount < 1) {
+            throw new IllegalArgumentException("The page cache needs at least one page: " + pageCount);
+        }
+        this.channel = channel;
+        this.pageSize = pageSize;
+        this.pageShift = Integer.numberOfTrailingZeros(pageSize);
+        this.pageMask = pageSize - 1;
+        this.length = new AtomicLong(channel.size());
+
+        // A power of two number of segments, each with at least one frame.
+        int segmentCount = Integer.highestOneBit(Math.min(pageCount, MAX_SEGMENTS));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(pageCount / segmentCount + (i < pageCount % segmentCount ? 1 : 0));
+        }
+        this.segmentMask = segmentCount - 1;
+    }
+
+    /**
+     * Returns the length of the file, including bytes that have not been written back yet.
+     *
+     * @return the length of the file, in bytes.
+     */
+    public long length() {
+        return length.get();
+    }
+
+    public byte readByte(long pos) throws IOException {
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            return segment.getPage(pageNo).data[(int) (pos & pageMask)];
+        }
+    }
+
+    public void writeByte(long pos, byte b) throws IOException {
+        growTo(pos + 1);
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            Page page = segment.getPage(pageNo);
+            page.data[(int) (pos & pageMask)] = b;
+            page.dirty = true;
+        }
+    }
+
+    public int readInt(long pos) throws IOException {
+        int offset = (int) (pos & pageMask);
+        if (offset + Constants.INT_SIZE > pageSize) {
+            byte[] bytes = new byte[(int) Constants.INT_SIZE];
+            read(pos, bytes, 0, bytes.length);
+            return (int) INT_VIEW.get(bytes, 0);
+        }
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            return (int) INT_VIEW.get(segment.getPage(pageNo).data, offset);
+        }
+    }
+
+    public void writeInt(long pos, int i) throws IOException {
+        int offset = (int) (pos & pageMask);
+        if (offset + Constants.INT_SIZE > pageSize) {
+            byte[] bytes = new byte[(int) Constants.INT_SIZE];
+            INT_VIEW.set(bytes, 0, i);
+            write(pos, bytes, 0, bytes.length);
+            return;
+        }
+        growTo(pos + Constants.INT_SIZE);
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            Page page = segment.getPage(pageNo);
+            INT_VIEW.set(page.data, offset, i);
+            page.dirty = true;
+        }
+    }
+
+    public long readLong(long pos) throws IOException {
+        int offset = (int) (pos & pageMask);
+        if (offset + Constants.LONG_SIZE > pageSize) {
+            byte[] bytes = new byte[(int) Constants.LONG_SIZE];
+            read(pos, bytes, 0, bytes.length);
+            return (long) LONG_VIEW.get(bytes, 0);
+        }
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            return (long) LONG_VIEW.get(segment.getPage(pageNo).data, offset);
+        }
+    }
+
+    public void writeLong(long pos, long l) throws IOException {
+        int offset = (int) (pos & pageMask);
+        if (offset + Constants.LONG_SIZE > pageSize) {
+            byte[] bytes = new byte[(int) Constants.LONG_SIZE];
+            LONG_VIEW.set(bytes, 0, l);
+            write(pos, bytes, 0, bytes.length);
+            return;
+        }
+        growTo(pos + Constants.LONG_SIZE);
+        long pageNo = pos >>> pageShift;
+        Segment segment = segmentOf(pageNo);
+        synchronized (segment) {
+            Page page = segment.getPage(pageNo);
+            LONG_VIEW.set(page.data, offset, l);
+            page.dirty = true;
+        }
+    }
+
+    /**
+     * Copies bytes out of the cache, loading pages as needed. A read spanning pages is not atomic
+     * with respect to a concurrent write of the same bytes.
+     *
+     * @param pos the position in the file to start reading at.
+     * @param dst the array to copy into.
+     * @param off the offset in the array to start at.
+     * @param len the number of bytes to copy.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void read(long pos, byte[] dst, int off, int len) throws IOException {
+        while (len > 0) {
+            int offset = (int) (pos & pageMask);
+            int n = Math.min(len, pageSize - offset);
+            long pageNo = pos >>> pageShift;
+            Segment segment = segmentOf(pageNo);
+            synchronized (segment) {
+                System.arraycopy(segment.getPage(pageNo).data, offset, dst, off, n);
+            }
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Copies bytes into the cache, marking the touched pages as dirty.
+     *
+     * @param pos the position in the file to start writing at.
+     * @param src the array to copy from.
+     * @param off the offset in the array to start at.
+     * @param len the number of bytes to copy.
+     * @throws IOException if an I/O error occurs.
+     */
+    public void write(long pos, byte[] src, int off, int len) throws IOException {
+        growTo(pos + len);
+        while (len > 0) {
+            int offset = (int) (pos & pageMask);
+            int n = Math.min(len, pageSize - offset);
+            long pageNo = pos >>> pageShift;
+            Segment segment = segmentOf(pageNo);
+            synchronized (segment) {
+                Page page = segment.getPage(pageNo);
+                System.arraycopy(src, off, page.data, offset, n);
+                page.dirty = true;
+            }
+            pos += n;
+            off += n;
+            len -= n;
+        }
+    }
+
+    /**
+     * Writes every dirty page back to the file.
+     *
+     * @throws IOException if an I/O error occurs.
+     */
+    public void flush() throws IOException {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.flush();
+            }
+        }
+    }
+
+    public long getHits() {
+        long hits = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                hits += segment.hits;
+            }
+        }
+        return hits;
+    }
+
+    public long getMisses() {
+        long misses = 0;
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                misses += segment.misses;
+            }
+        }
+        return misses;
+    }
+
+    public void resetStats() {
+        for (Segment segment : segments) {
+            synchronized (segment) {
+                segment.hits = 0;
+                segment.misses = 0;
+            }
+        }
+    }
+
+    private Segment segmentOf(long pageNo) {
+        return segments[(int) (pageNo & segmentMask)];
+    }
+
+    /**
+     * Extends the length over a write, before its bytes are copied in, so a write back racing
+     * the write covers them.
+     */
+    private void growTo(long end) {
+        length.accumulateAndGet(end, Math::max);
+    }
+
+    /**
+     * A share of the frames with its own page table and clock hand. Every method must be called
+     * holding the segment's lock.
+     */
+    private class Segment {
+        private final Page[] frames;
+        private final Map<Long, Page> pageTable = new HashMap<>();
+        private int usedFrames = 0;
+        private int clockHand = 0;
+        private long hits = 0;
+        private long misses = 0;
+
+        Segment(int frameCount) {
+            frames = new Page[frameCount];
+        }
+
+        Page getPage(long pageNo) throws IOException {
+            Page page = pageTable.get(pageNo);
+            if (page != null) {
+                hits++;
+                page.referenced = true;
+                return page;
+            }
+            misses++;
+            page = nextFrame();
+            load(page, pageNo);
+            pageTable.put(pageNo, page);
+            return page;
+        }
+
+        /**
+         * Finds a frame for a new page, either an unused one or the first unreferenced one the
+         * clock hand reaches. Referenced pages get their bit cleared, so they are evicted on the
+         * next lap.
+         */
+        private Page nextFrame() throws IOException {
+            if (usedFrames < frames.length) {
+                frames[usedFrames] = new Page(pageSize);
+                return frames[usedFrames++];
+            }
+            while (true) {
+                Page page = frames[clockHand];
+                clockHand = (clockHand + 1) % frames.length;
+                if (page.referenced) {
+                    page.referenced = false;
+                    continue;
+                }
+                if (page.dirty) {
+                    writeBack(page);
+                }
+                pageTable.remove(page.pageNo);
+                return page;
+            }
+        }
+
+        void flush() throws IOException {
+            for (int i = 0; i < usedFrames; i++) {
+                if (frames[i].dirty) {
+                    writeBack(frames[i]);
+                }
+            }
+        }
+    }
+
+    private void load(Page page, long pageNo) throws IOException {
+        page.pageNo = pageNo;
+        page.referenced = true;
+        page.dirty = false;
+
+        ByteBuffer buffer = ByteBuffer.wrap(page.data);
+        long start = pageNo << pageShift;
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, start + buffer.position());
+            if (read < 0) break;
+        }
+        // Past the end of the file the page is empty.
+        Arrays.fill(page.data, buffer.position(), pageSize, (byte) 0);
+    }
+
+    private void writeBack(Page page) throws IOException {
+        long start = page.pageNo << pageShift;
+        int size = (int) Math.min(pageSize, length.get() - start);
+        ByteBuffer buffer = ByteBuffer.wrap(page.data, 0, Math.max(size, 0));
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, start + buffer.position());
+        }
+        page.dirty = false;
+    }
+}
@@ -0,0 +1,51 @@
+package Graphs;
+
+import Exceptions.InvalidNodeAccessException;
+
+import java.io.IOException;
+
+/**
+ * A reusable, forward only view over the outgoing relationships of a node. Unlike
+ * {@link IGraph#getRelationships}, a cursor does not create an {@link Edge} per relationship, the
+ * current relationship is read through the accessors and a single cursor can be moved to another
+ * node with {@link #reset}.
+ *
+ * @param <T> the type of nodes in the graph.
+ */
+public interface EdgeCursor<T> {
+
+    /**
+     * Moves to the next relationship.
+     *
+     * @return true if the cursor is on a relationship, false once the relationships are exhausted.
+     */
+    boolean next() throws IOException;
+
+    /**
+     * Returns the source node of the current relationship.
+     *
+     * @return the source node.
+     */
+    T source();
+
+    /**
+     * Returns the target node of the current relationship.
+     *
+     * @return the target node.
+     */
+    T target();
+
+    /**
+     * Returns the label of the current relationship.
+     *
+     * @return the label.
+     */
+    String label();
+
+    /**
+     * Rewinds the cursor onto the relationships of another node.
+     *
+     * @param node the node whose relationships are to be scanned.
+     */
+    void reset(T node) throws InvalidNodeAccessException, IOException;
+}
@@ -45,6 +45,49 @@ public interface IGraph<T> extends AutoCloseable {
      */
     Iterator<Edge<T>> getRelationships(T node) throws InvalidNodeAccessException, IOException;
 
+    /**
+     * Opens a reusable cursor over the neighbors of the given node, which reads each relationship
+     * in place instead of allocating an {@link Edge} for it.
+     *
+     * @param node the node whose neighbors are to be scanned.
+     * @return a cursor positioned before the first relationship.
+     */
+    EdgeCursor<T> openEdgeCursor(T node) throws InvalidNodeAccessException, IOException;
+
+    /**
+     * Returns all relationships whose target is the given node.
+     *
+     * @param node the node whose incoming relationships are to be returned.
+     * @return an iterable of incoming edges.
+     */
+    Iterator<Edge<T>> getIncomingRelationships(T node) throws InvalidNodeAccessException, IOException;
+
+    /**
+     * Returns whether {@link #getIncomingRelationships} reads an index of the node's incoming
+     * relationships rather than scanning every relationship for them. Algorithms that read the
+     * incoming relationships of many nodes use this to pick another strategy when it is false.
+     *
+     * @return true if incoming relationships are indexed, false by default.
+     */
+    default boolean hasIncomingIndex() {
+        return false;
+    }
+
+    /**
+     * Returns the number of relationships whose target is the given node. Counts the incoming
+     * relationships unless the graph keeps the count.
+     *
+     * @param node the node to look up.
+     * @return the in degree.
+     */
+    default int inDegree(T node) throws InvalidNodeAccessException, IOException {
+        int count = 0;
+        for (Iterator<Edge<T>> it = getIncomingRelationships(node); it.hasNext(); it.next()) {
+            count++;
+        }
+        return count;
+    }
+
 
     /**
      * Returns a random node from the graph.
@@ -0,0 +1,32 @@
+package Graphs;
+
+/**
+ * An {@link EdgeCursor} over int node ids which exposes the current relationship as primitives,
+ * so scanning neighbors does not box a node per relationship.
+ */
+public interface IntEdgeCursor extends EdgeCursor<Integer> {
+
+    /**
+     * Returns the source node id of the current relationship.
+     *
+     * @return the source node id.
+     */
+    int sourceId();
+
+    /**
+     * Returns the target node id of the current relationship.
+     *
+     * @return the target node id.
+     */
+    int targetId();
+
+    @Override
+    default Integer source() {
+        return sourceId();
+    }
+
+    @Override
+    default Integer target() {
+        return targetId();
+    }
+}
@@ -0,0 +1,89 @@
+package Graphs;
+
+import Exceptions.InvalidNodeAccessException;
+
+import java.io.IOException;
+import java.util.PrimitiveIterator;
+
+/**
+ * A graph over int node ids. It mirrors {@link IGraph} for Integer nodes but takes and returns
+ * primitives, so neither callers nor implementations need to box a node per call.
+ */
+public interface IntGraph extends AutoCloseable {
+
+    /**
+     * Returns all nodes in the graph.
+     *
+     * @return an iterator of all node ids.
+     */
+    PrimitiveIterator.OfInt getNodes() throws IOException;
+
+    /**
+     * Adds a node to the graph.
+     *
+     * @param node the node to add.
+     */
+    void addNode(int node) throws IOException;
+
+    /**
+     * Adds an edge of the specified label between source and target nodes.
+     *
+     * @param label  the label of the edge.
+     * @param source the source node.
+     * @param target the target node.
+     */
+    void addRelationship(String label, int source, int target) throws InvalidNodeAccessException, IOException;
+
+    /**
+     * Opens a reusable cursor over the neighbors of the given node.
+     *
+     * @param node the node whose neighbors are to be scanned.
+     * @return a cursor positioned before the first relationship.
+     */
+    IntEdgeCursor openEdgeCursor(int node) throws InvalidNodeAccessException, IOException;
+
+    /**
+     * Returns a random node from the graph.
+     *
+     * @return a random node id, or -1 if the graph is empty.
+     */
+    int getRandomNodeId() throws IOException;
+
+    /**
+     * Returns the target of a random edge from the specified node.
+     *
+     * @param node the node from which to select an edge.
+     * @return the target node id, or -1 if there are no edges.
+     */
+    int getRandomNeighbor(int node) throws InvalidNodeAccessException, IOException;
+
+    /**
+     * Clear all the data from the graph.
+     */
+    void clear() throws IOException;
+
+    /**
+     * Views an Integer graph as an IntGraph. Graphs that already implement IntGraph are returned
+     * as they are, any other graph is wrapped.
+     *
+     * @param graph the graph to view.
+     * @return the graph as an IntGraph.
+     */
+    static IntGraph of(IGraph<Integer> graph) {
+        if (graph instanceof IntGraph intGraph) return intGraph;
+        return new IntGraphAdapter(graph);
+    }
+
+    /**
+     * Views an IntGraph as an Integer graph. Graphs that already implement IGraph are returned
+     * as they are, any other graph is wrapped.
+     *
+     * @param graph the graph to view.
+     * @return the graph as an IGraph.
+     */
+    @SuppressWarnings("unchecked")
+    static IGraph<Integer> boxed(IntGraph graph) {
+        if (graph instanceof IGraph<?> boxed) return (IGraph<Integer>) boxed;
+        return new BoxedIntGraph(graph);
+    }
+}
@@ -0,0 +1,99 @@
+package Graphs;
+
+import Exceptions.InvalidNodeAccessException;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.PrimitiveIterator;
+
+/**
+ * Presents an {@code IGraph<Integer>} as an {@link IntGraph}, unboxing at the boundary.
+ */
+public class IntGraphAdapter implements IntGraph {
+    private final IGraph<Integer> graph;
+
+    public IntGraphAdapter(IGraph<Integer> graph) {
+        this.graph = graph;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt getNodes() throws IOException {
+        Iterator<Integer> nodes = graph.getNodes();
+        return new PrimitiveIterator.OfInt() {
+            @Override
+            public boolean hasNext() {
+                return nodes.hasNext();
+            }
+
+            @Override
+            public int nextInt() {
+                return nodes.next();
+            }
+        };
+    }
+
+    @Override
+    public void addNode(int node) throws IOException {
+        graph.addNode(node);
+    }
+
+    @Override
+    public void addRelationship(String label, int source, int target) throws InvalidNodeAccessException, IOException {
+        graph.addRelationship(label, source, target);
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(int node) throws InvalidNodeAccessException, IOException {
+        EdgeCursor<Integer> cursor = graph.openEdgeCursor(node);
+        if (cursor instanceof IntEdgeCursor intCursor) return intCursor;
+
+        return new IntEdgeCursor() {
+            @Override
+            public boolean next() throws IOException {
+                return cursor.next();
+            }
+
+            @Override
+            public int sourceId() {
+                return cursor.source();
+            }
+
+            @Override
+            public int targetId() {
+                return cursor.target();
+            }
+
+            @Override
+            public String label() {
+                return cursor.label();
+            }
+
+            @Override
+            public void reset(Integer node) throws InvalidNodeAccessException, IOException {
+                cursor.reset(node);
+            }
+        };
+    }
+
+    @Override
+    public int getRandomNodeId() throws IOException {
+        Integer node = graph.getRandomNode();
+        return node == null ? -1 : node;
+    }
+
+    @Override
+    public int getRandomNeighbor(int node) throws InvalidNodeAccessException, IOException {
+        Edge<Integer> edge = graph.getRandomRelationship(node);
+        return edge == null ? -1 : edge.getTarget();
+    }
+
+    @Override
+    public void clear() throws IOException {
+        graph.clear();
+    }
+
+    @Override
+    public void close() throws Exception {
+        graph.close();
+    }
+}
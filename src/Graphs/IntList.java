@@ -0,0 +1,20 @@
+package Graphs;
+
+import java.util.Arrays;
+
+/**
+ * A growable list of ints, for collecting node ids without boxing them.
+ */
+public class IntList {
+    private int[] values = new int[8];
+    private int size = 0;
+
+    public void add(int value) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size++] = value;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(values, size);
+    }
+}
@@ -2,6 +2,7 @@ package Graphs.Memory;
 
 import Exceptions.InvalidNodeAccessException;
 import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
 import java.util.*;
@@ -9,12 +10,15 @@ import java.util.*;
 public class AdjListGraph<T> implements IGraph<T> {
     private final List<T> nodes = new ArrayList<>();
     private final Map<T, List<Edge<T>>> adj = new HashMap<>();
+    // The same edges again, keyed by target.
+    private final Map<T, List<Edge<T>>> incoming = new HashMap<>();
     private static final Random rand = new Random(8675309);
 
     @Override
     public void addNode(T node) {
         nodes.add(node);
         adj.putIfAbsent(node, new ArrayList<>());
+        incoming.putIfAbsent(node, new ArrayList<>());
     }
 
     @Override
@@ -26,7 +30,9 @@ public class AdjListGraph<T> implements IGraph<T> {
             throw new InvalidNodeAccessException("The target node is not in the graph.");
         }
 
-        adj.get(source).add(new Edge<>(source, target, label));
+        Edge<T> edge = new Edge<>(source, target, label);
+        adj.get(source).add(edge);
+        incoming.get(target).add(edge);
     }
 
     @Override
@@ -34,6 +40,28 @@ public class AdjListGraph<T> implements IGraph<T> {
         return adj.get(node).iterator();
     }
 
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<T>> getIncomingRelationships(T node) {
+        return incoming.getOrDefault(node, Collections.emptyList()).iterator();
+    }
+
+    @Override
+    public int inDegree(T node) {
+        return incoming.getOrDefault(node, Collections.emptyList()).size();
+    }
+
+    @Override
+    public EdgeCursor<T> openEdgeCursor(T node) {
+        var cursor = new AdjListEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
     @Override
     public T getRandomNode() {
         if (nodes.isEmpty()) return null;
@@ -58,8 +86,47 @@ public class AdjListGraph<T> implements IGraph<T> {
     public void clear() {
         nodes.clear();
         adj.clear();
+        incoming.clear();
     }
 
     @Override
     public void close() {}
+
+    private class AdjListEdgeCursor implements EdgeCursor<T> {
+        private List<Edge<T>> edges = Collections.emptyList();
+        private int next = 0;
+        private Edge<T> current;
+
+        @Override
+        public boolean next() {
+            if (next >= edges.size()) {
+                current = null;
+                return false;
+            }
+            current = edges.get(next++);
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return current.getSource();
+        }
+
+        @Override
+        public T target() {
+            return current.getTarget();
+        }
+
+        @Override
+        public String label() {
+            return current.getLabel();
+        }
+
+        @Override
+        public void reset(T node) {
+            edges = adj.getOrDefault(node, Collections.emptyList());
+            next = 0;
+            current = null;
+        }
+    }
 }
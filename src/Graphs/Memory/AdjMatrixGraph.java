@@ -2,6 +2,7 @@ package Graphs.Memory;
 
 import Exceptions.InvalidNodeAccessException;
 import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
 import java.util.*;
@@ -62,6 +63,31 @@ public class AdjMatrixGraph<T> implements IGraph<T> {
         return neighbors.iterator();
     }
 
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<T>> getIncomingRelationships(T node) {
+        Integer tgtIdx = nodeIndex.get(node);
+        if (tgtIdx == null) return Collections.emptyIterator();
+
+        // The incoming relationships are the node's column.
+        var neighbors = new ArrayList<Edge<T>>();
+        for (var row : matrix) {
+            neighbors.addAll(row.get(tgtIdx));
+        }
+        return neighbors.iterator();
+    }
+
+    @Override
+    public EdgeCursor<T> openEdgeCursor(T node) {
+        var cursor = new AdjMatrixEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
     @Override
     public T getRandomNode() {
         if (nodes.isEmpty()) return null;
@@ -96,4 +122,52 @@ public class AdjMatrixGraph<T> implements IGraph<T> {
 
     @Override
     public void close() {}
+
+    private class AdjMatrixEdgeCursor implements EdgeCursor<T> {
+        private List<Set<Edge<T>>> row = Collections.emptyList();
+        private int nextCell = 0;
+        private Iterator<Edge<T>> cell = Collections.emptyIterator();
+        private Edge<T> current;
+
+        @Override
+        public boolean next() {
+            // Only non-empty cells need an iterator.
+            while (!cell.hasNext()) {
+                while (nextCell < row.size() && row.get(nextCell).isEmpty()) {
+                    nextCell++;
+                }
+                if (nextCell >= row.size()) {
+                    current = null;
+                    return false;
+                }
+                cell = row.get(nextCell++).iterator();
+            }
+            current = cell.next();
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return current.getSource();
+        }
+
+        @Override
+        public T target() {
+            return current.getTarget();
+        }
+
+        @Override
+        public String label() {
+            return current.getLabel();
+        }
+
+        @Override
+        public void reset(T node) {
+            Integer srcIdx = nodeIndex.get(node);
+            row = srcIdx == null ? Collections.emptyList() : matrix.get(srcIdx);
+            nextCell = 0;
+            cell = Collections.emptyIterator();
+            current = null;
+        }
+    }
 }
@@ -0,0 +1,397 @@
+package Graphs.Memory;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.IntGraph;
+
+import java.util.*;
+
+/**
+ * A Compressed Sparse Row graph. Relationships are staged in primitive arrays as they are added and
+ * frozen into an offsets/targets layout on the first read, so neighbor scans walk one contiguous
+ * block of ints and degree lookups and random relationships are O(1). A reverse layout of sources
+ * is frozen alongside it for the incoming relationships.
+ * <p>
+ * Adding relationships after a read is allowed, the staged relationships are folded into the
+ * layout on the next read. Node ids must be non-negative as they directly index the node table.
+ */
+public class CSRGraph implements IntGraph, IGraph<Integer> {
+    private static final int INITIAL_CAPACITY = 16;
+    // The longest array every JVM will allocate, node ids must stay below it.
+    private static final int MAX_ARRAY_LENGTH = Integer.MAX_VALUE - 8;
+    private static final Random rand = new Random(8675309);
+
+    // Node id -> dense node index (-1 when absent), and dense node index -> node id.
+    private int[] indexOf = new int[0];
+    private int[] nodeIds = new int[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+
+    // Relationships added since the last freeze.
+    private int[] stagedSources = new int[INITIAL_CAPACITY];
+    private int[] stagedTargets = new int[INITIAL_CAPACITY];
+    private int[] stagedLabels = new int[INITIAL_CAPACITY];
+    private int stagedCount = 0;
+
+    // The frozen layout, the relationships of node index i are [offsets[i], offsets[i + 1]).
+    private int[] offsets = new int[1];
+    private int[] targets = new int[0];
+    private int[] edgeLabels = new int[0];
+
+    // The reverse layout, the incoming relationships of node index i are [inOffsets[i], inOffsets[i + 1]).
+    private int[] inOffsets = new int[1];
+    private int[] sources = new int[0];
+    private int[] sourceLabels = new int[0];
+    private volatile boolean frozen = true;
+
+    private final LabelTable labels = new LabelTable();
+
+    @Override
+    public PrimitiveIterator.OfInt getNodes() {
+        return Arrays.stream(nodeIds, 0, nodeCount).iterator();
+    }
+
+    @Override
+    public void addNode(Integer node) {
+        addNode(node.intValue());
+    }
+
+    @Override
+    public void addNode(int node) {
+        if (node < 0) {
+            throw new IllegalArgumentException("CSR node ids must be non-negative: " + node);
+        }
+        if (node >= MAX_ARRAY_LENGTH) {
+            throw new IllegalArgumentException("CSR node ids must be below " + MAX_ARRAY_LENGTH + ": " + node);
+        }
+        if (indexOfNode(node) != -1) return;
+
+        if (node >= indexOf.length) {
+            int oldLength = indexOf.length;
+            indexOf = Arrays.copyOf(indexOf, grownLength(oldLength, node + 1L));
+            Arrays.fill(indexOf, oldLength, indexOf.length, -1);
+        }
+        if (nodeCount == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, grownLength(nodeCount, nodeCount + 1L));
+        }
+        indexOf[node] = nodeCount;
+        nodeIds[nodeCount++] = node;
+        frozen = false;
+    }
+
+    /**
+     * Returns the length to grow an array to, double the old length but at least the minimum and at
+     * most {@link #MAX_ARRAY_LENGTH}. The lengths are computed as longs so doubling cannot overflow.
+     *
+     * @throws IllegalStateException if the minimum is past the longest array.
+     */
+    private static int grownLength(int oldLength, long minLength) {
+        if (minLength > MAX_ARRAY_LENGTH) {
+            throw new IllegalStateException("A CSR graph holds at most " + MAX_ARRAY_LENGTH + " nodes and staged relationships.");
+        }
+        return (int) Math.min(Math.max(minLength, oldLength * 2L), MAX_ARRAY_LENGTH);
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException {
+        addRelationship(label, source.intValue(), target.intValue());
+    }
+
+    @Override
+    public void addRelationship(String label, int source, int target) throws InvalidNodeAccessException {
+        int sourceIdx = indexOfNode(source);
+        if (sourceIdx == -1) {
+            throw new InvalidNodeAccessException("The source node is not in the graph.");
+        }
+        if (indexOfNode(target) == -1) {
+            throw new InvalidNodeAccessException("The target node is not in the graph.");
+        }
+
+        if (stagedCount == stagedSources.length) {
+            int newLength = grownLength(stagedCount, stagedCount + 1L);
+            stagedSources = Arrays.copyOf(stagedSources, newLength);
+            stagedTargets = Arrays.copyOf(stagedTargets, newLength);
+            stagedLabels = Arrays.copyOf(stagedLabels, newLength);
+        }
+        stagedSources[stagedCount] = sourceIdx;
+        stagedTargets[stagedCount] = target;
+        stagedLabels[stagedCount] = labels.idOf(label);
+        stagedCount++;
+        frozen = false;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return Collections.emptyIterator();
+        ensureFrozen();
+
+        int end = offsets[idx + 1];
+        return new Iterator<>() {
+            private int next = offsets[idx];
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                return edgeAt(node, next++);
+            }
+        };
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return Collections.emptyIterator();
+        ensureFrozen();
+
+        int end = inOffsets[idx + 1];
+        return new Iterator<>() {
+            private int next = inOffsets[idx];
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int pos = next++;
+                return new Edge<>(sources[pos], node, labels.labelOf(sourceLabels[pos]));
+            }
+        };
+    }
+
+    @Override
+    public int inDegree(Integer node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return 0;
+        ensureFrozen();
+        return inOffsets[idx + 1] - inOffsets[idx];
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) {
+        return openEdgeCursor(node.intValue());
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(int node) {
+        var cursor = new CSREdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public Integer getRandomNode() {
+        if (nodeCount == 0) return null;
+        return getRandomNodeId();
+    }
+
+    @Override
+    public int getRandomNodeId() {
+        if (nodeCount == 0) return -1;
+        return nodeIds[rand.nextInt(nodeCount)];
+    }
+
+    @Override
+    public int getRandomNeighbor(int node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return -1;
+        ensureFrozen();
+
+        int start = offsets[idx];
+        int degree = offsets[idx + 1] - start;
+        if (degree == 0) return -1;
+        return targets[start + rand.nextInt(degree)];
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return null;
+        ensureFrozen();
+
+        int start = offsets[idx];
+        int degree = offsets[idx + 1] - start;
+        if (degree == 0) return null;
+        return edgeAt(node, start + rand.nextInt(degree));
+    }
+
+    /**
+     * Returns the number of outgoing relationships of the given node.
+     *
+     * @param node the node to look up.
+     * @return the out degree, or 0 if the node is not in the graph.
+     */
+    public int degree(Integer node) {
+        int idx = indexOfNode(node);
+        if (idx == -1) return 0;
+        ensureFrozen();
+        return offsets[idx + 1] - offsets[idx];
+    }
+
+    @Override
+    public void clear() {
+        indexOf = new int[0];
+        nodeIds = new int[INITIAL_CAPACITY];
+        nodeCount = 0;
+        stagedSources = new int[INITIAL_CAPACITY];
+        stagedTargets = new int[INITIAL_CAPACITY];
+        stagedLabels = new int[INITIAL_CAPACITY];
+        stagedCount = 0;
+        offsets = new int[1];
+        targets = new int[0];
+        edgeLabels = new int[0];
+        inOffsets = new int[1];
+        sources = new int[0];
+        sourceLabels = new int[0];
+        labels.clear();
+        frozen = true;
+    }
+
+    @Override
+    public void close() {}
+
+    private class CSREdgeCursor implements IntEdgeCursor {
+        private int node;
+        private int next = 0;
+        private int end = 0;
+        private int current = -1;
+
+        @Override
+        public boolean next() {
+            if (next >= end) return false;
+            current = next++;
+            return true;
+        }
+
+        @Override
+        public int sourceId() {
+            return node;
+        }
+
+        @Override
+        public int targetId() {
+            return targets[current];
+        }
+
+        @Override
+        public String label() {
+            return labels.labelOf(edgeLabels[current]);
+        }
+
+        @Override
+        public void reset(Integer node) {
+            this.node = node;
+            int idx = indexOfNode(node);
+            if (idx == -1) {
+                next = end = 0;
+                return;
+            }
+            ensureFrozen();
+            next = offsets[idx];
+            end = offsets[idx + 1];
+        }
+    }
+
+    private int indexOfNode(int node) {
+        if (node < 0 || node >= indexOf.length) return -1;
+        return indexOf[node];
+    }
+
+    private Edge<Integer> edgeAt(int source, int pos) {
+        return new Edge<>(source, targets[pos], labels.labelOf(edgeLabels[pos]));
+    }
+
+    private void ensureFrozen() {
+        if (!frozen) freeze();
+    }
+
+    /**
+     * Folds the staged relationships into the offsets/targets layout with a counting sort on the
+     * source index. Already frozen relationships keep their position ahead of the staged ones, so
+     * each node's relationships stay in insertion order.
+     */
+    private synchronized void freeze() {
+        if (frozen) return;
+
+        int oldNodeCount = offsets.length - 1;
+        int[] newOffsets = new int[nodeCount + 1];
+        for (int i = 0; i < oldNodeCount; i++) {
+            newOffsets[i + 1] = offsets[i + 1] - offsets[i];
+        }
+        for (int e = 0; e < stagedCount; e++) {
+            newOffsets[stagedSources[e] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            newOffsets[i + 1] += newOffsets[i];
+        }
+
+        int edgeCount = newOffsets[nodeCount];
+        int[] newTargets = new int[edgeCount];
+        int[] newLabels = new int[edgeCount];
+        int[] cursor = Arrays.copyOf(newOffsets, nodeCount);
+        for (int i = 0; i < oldNodeCount; i++) {
+            int len = offsets[i + 1] - offsets[i];
+            System.arraycopy(targets, offsets[i], newTargets, cursor[i], len);
+            System.arraycopy(edgeLabels, offsets[i], newLabels, cursor[i], len);
+            cursor[i] += len;
+        }
+        for (int e = 0; e < stagedCount; e++) {
+            int pos = cursor[stagedSources[e]]++;
+            newTargets[pos] = stagedTargets[e];
+            newLabels[pos] = stagedLabels[e];
+        }
+
+        offsets = newOffsets;
+        targets = newTargets;
+        edgeLabels = newLabels;
+        freezeReverse();
+        stagedSources = new int[INITIAL_CAPACITY];
+        stagedTargets = new int[INITIAL_CAPACITY];
+        stagedLabels = new int[INITIAL_CAPACITY];
+        stagedCount = 0;
+        frozen = true;
+    }
+
+    /**
+     * Rebuilds the reverse layout from the frozen one with a counting sort on the target index.
+     * Each node's incoming relationships are ordered by source index.
+     */
+    private void freezeReverse() {
+        int[] newInOffsets = new int[nodeCount + 1];
+        for (int target : targets) {
+            newInOffsets[indexOf[target] + 1]++;
+        }
+        for (int i = 0; i < nodeCount; i++) {
+            newInOffsets[i + 1] += newInOffsets[i];
+        }
+
+        int[] newSources = new int[targets.length];
+        int[] newSourceLabels = new int[targets.length];
+        int[] cursor = Arrays.copyOf(newInOffsets, nodeCount);
+        for (int i = 0; i < nodeCount; i++) {
+            for (int pos = offsets[i]; pos < offsets[i + 1]; pos++) {
+                int inPos = cursor[indexOf[targets[pos]]]++;
+                newSources[inPos] = nodeIds[i];
+                newSourceLabels[inPos] = edgeLabels[pos];
+            }
+        }
+
+        inOffsets = newInOffsets;
+        sources = newSources;
+        sourceLabels = newSourceLabels;
+    }
+}
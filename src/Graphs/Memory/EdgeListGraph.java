@@ -2,6 +2,7 @@ package Graphs.Memory;
 
 import Exceptions.InvalidNodeAccessException;
 import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
 import java.util.*;
@@ -39,10 +40,25 @@ public class EdgeListGraph<T> implements IGraph<T> {
     public Iterator<Edge<T>> getRelationships(T node) {
         return edges
                 .stream()
-                .filter(edge -> edge.getSource() == node)
+                .filter(edge -> edge.getSource().equals(node))
                 .iterator();
     }
 
+    @Override
+    public Iterator<Edge<T>> getIncomingRelationships(T node) {
+        return edges
+                .stream()
+                .filter(edge -> edge.getTarget().equals(node))
+                .iterator();
+    }
+
+    @Override
+    public EdgeCursor<T> openEdgeCursor(T node) {
+        var cursor = new EdgeListEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
     @Override
     public T getRandomNode() {
         if (nodes.isEmpty()) {
@@ -70,4 +86,45 @@ public class EdgeListGraph<T> implements IGraph<T> {
 
     @Override
     public void close() {}
+
+    private class EdgeListEdgeCursor implements EdgeCursor<T> {
+        private T node;
+        private int next = 0;
+        private Edge<T> current;
+
+        @Override
+        public boolean next() {
+            while (next < edges.size()) {
+                Edge<T> edge = edges.get(next++);
+                if (edge.getSource().equals(node)) {
+                    current = edge;
+                    return true;
+                }
+            }
+            current = null;
+            return false;
+        }
+
+        @Override
+        public T source() {
+            return current.getSource();
+        }
+
+        @Override
+        public T target() {
+            return current.getTarget();
+        }
+
+        @Override
+        public String label() {
+            return current.getLabel();
+        }
+
+        @Override
+        public void reset(T node) {
+            this.node = node;
+            next = 0;
+            current = null;
+        }
+    }
 }
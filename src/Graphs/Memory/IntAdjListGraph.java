@@ -0,0 +1,236 @@
+package Graphs.Memory;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.IntGraph;
+
+import java.util.*;
+
+/**
+ * An adjacency list graph over int node ids. Nodes are found through an {@link IntIntHashMap} and
+ * each node's neighbors are kept as growable int arrays of targets and label ids, so neither
+ * lookups nor inserts box a node or allocate an Edge.
+ */
+public class IntAdjListGraph implements IntGraph, IGraph<Integer> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Random rand = new Random(8675309);
+
+    private final IntIntHashMap indexOf = new IntIntHashMap(-1);
+    private int[] nodeIds = new int[INITIAL_CAPACITY];
+    private NeighborList[] adj = new NeighborList[INITIAL_CAPACITY];
+    // The reverse lists, holding the sources of each node's incoming relationships.
+    private NeighborList[] inAdj = new NeighborList[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+    private final LabelTable labels = new LabelTable();
+
+    private static class NeighborList {
+        int[] targets = new int[4];
+        int[] labelIds = new int[4];
+        int size = 0;
+
+        void add(int target, int labelId) {
+            if (size == targets.length) {
+                targets = Arrays.copyOf(targets, size * 2);
+                labelIds = Arrays.copyOf(labelIds, size * 2);
+            }
+            targets[size] = target;
+            labelIds[size] = labelId;
+            size++;
+        }
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt getNodes() {
+        return Arrays.stream(nodeIds, 0, nodeCount).iterator();
+    }
+
+    @Override
+    public void addNode(int node) {
+        if (indexOf.containsKey(node)) return;
+        if (nodeCount == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, nodeCount * 2);
+            adj = Arrays.copyOf(adj, nodeCount * 2);
+            inAdj = Arrays.copyOf(inAdj, nodeCount * 2);
+        }
+        indexOf.put(node, nodeCount);
+        nodeIds[nodeCount] = node;
+        adj[nodeCount] = new NeighborList();
+        inAdj[nodeCount] = new NeighborList();
+        nodeCount++;
+    }
+
+    @Override
+    public void addNode(Integer node) {
+        addNode(node.intValue());
+    }
+
+    @Override
+    public void addRelationship(String label, int source, int target) throws InvalidNodeAccessException {
+        int sourceIdx = indexOf.get(source);
+        if (sourceIdx == -1) {
+            throw new InvalidNodeAccessException("The source node is not in the graph.");
+        }
+        int targetIdx = indexOf.get(target);
+        if (targetIdx == -1) {
+            throw new InvalidNodeAccessException("The target node is not in the graph.");
+        }
+        int labelId = labels.idOf(label);
+        adj[sourceIdx].add(target, labelId);
+        inAdj[targetIdx].add(source, labelId);
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException {
+        addRelationship(label, source.intValue(), target.intValue());
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) {
+        int idx = indexOf.get(node);
+        if (idx == -1) return Collections.emptyIterator();
+
+        NeighborList neighbors = adj[idx];
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < neighbors.size;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int i = next++;
+                return new Edge<>(node, neighbors.targets[i], labels.labelOf(neighbors.labelIds[i]));
+            }
+        };
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) {
+        int idx = indexOf.get(node);
+        if (idx == -1) return Collections.emptyIterator();
+
+        NeighborList sources = inAdj[idx];
+        return new Iterator<>() {
+            private int next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < sources.size;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int i = next++;
+                return new Edge<>(sources.targets[i], node, labels.labelOf(sources.labelIds[i]));
+            }
+        };
+    }
+
+    @Override
+    public int inDegree(Integer node) {
+        int idx = indexOf.get(node);
+        return idx == -1 ? 0 : inAdj[idx].size;
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(int node) {
+        var cursor = new IntAdjListEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) {
+        return openEdgeCursor(node.intValue());
+    }
+
+    @Override
+    public int getRandomNodeId() {
+        if (nodeCount == 0) return -1;
+        return nodeIds[rand.nextInt(nodeCount)];
+    }
+
+    @Override
+    public Integer getRandomNode() {
+        if (nodeCount == 0) return null;
+        return getRandomNodeId();
+    }
+
+    @Override
+    public int getRandomNeighbor(int node) {
+        int idx = indexOf.get(node);
+        if (idx == -1 || adj[idx].size == 0) return -1;
+        return adj[idx].targets[rand.nextInt(adj[idx].size)];
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) {
+        int idx = indexOf.get(node);
+        if (idx == -1 || adj[idx].size == 0) return null;
+        int i = rand.nextInt(adj[idx].size);
+        return new Edge<>(node, adj[idx].targets[i], labels.labelOf(adj[idx].labelIds[i]));
+    }
+
+    @Override
+    public void clear() {
+        indexOf.clear();
+        nodeIds = new int[INITIAL_CAPACITY];
+        adj = new NeighborList[INITIAL_CAPACITY];
+        inAdj = new NeighborList[INITIAL_CAPACITY];
+        nodeCount = 0;
+        labels.clear();
+    }
+
+    @Override
+    public void close() {}
+
+    private class IntAdjListEdgeCursor implements IntEdgeCursor {
+        private static final NeighborList EMPTY = new NeighborList();
+
+        private int node;
+        private NeighborList neighbors = EMPTY;
+        private int next = 0;
+        private int current = -1;
+
+        @Override
+        public boolean next() {
+            if (next >= neighbors.size) return false;
+            current = next++;
+            return true;
+        }
+
+        @Override
+        public int sourceId() {
+            return node;
+        }
+
+        @Override
+        public int targetId() {
+            return neighbors.targets[current];
+        }
+
+        @Override
+        public String label() {
+            return labels.labelOf(neighbors.labelIds[current]);
+        }
+
+        @Override
+        public void reset(Integer node) {
+            this.node = node;
+            int idx = indexOf.get(node);
+            neighbors = idx == -1 ? EMPTY : adj[idx];
+            next = 0;
+        }
+    }
+}
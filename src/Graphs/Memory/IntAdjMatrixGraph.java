@@ -0,0 +1,228 @@
+package Graphs.Memory;
+
+import Exceptions.InvalidNodeAccessException;
+import Graphs.Edge;
+import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.IntGraph;
+
+import java.util.*;
+
+/**
+ * An adjacency matrix graph over int node ids. Node positions are found through an
+ * {@link IntIntHashMap} and each cell holds the label ids of its relationships (null when there
+ * are none) instead of a set of Edge objects.
+ */
+public class IntAdjMatrixGraph implements IntGraph, IGraph<Integer> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Random rand = new Random(8675309);
+
+    private final IntIntHashMap nodeIndex = new IntIntHashMap(-1);
+    private int[] nodeIds = new int[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+    private final List<List<int[]>> matrix = new ArrayList<>();
+    private final LabelTable labels = new LabelTable();
+
+    @Override
+    public PrimitiveIterator.OfInt getNodes() {
+        return Arrays.stream(nodeIds, 0, nodeCount).iterator();
+    }
+
+    @Override
+    public void addNode(int node) {
+        if (nodeIndex.containsKey(node)) return;
+        if (nodeCount == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, nodeCount * 2);
+        }
+        nodeIndex.put(node, nodeCount);
+        nodeIds[nodeCount++] = node;
+        // Expand every existing row with a new empty cell.
+        for (List<int[]> row : matrix) {
+            row.add(null);
+        }
+        // Create a new row for the new node.
+        matrix.add(new ArrayList<>(Collections.nCopies(nodeCount, null)));
+    }
+
+    @Override
+    public void addNode(Integer node) {
+        addNode(node.intValue());
+    }
+
+    @Override
+    public void addRelationship(String label, int source, int target) throws InvalidNodeAccessException {
+        int srcIdx = nodeIndex.get(source);
+        if (srcIdx == -1) {
+            throw new InvalidNodeAccessException("The source node is not in the graph.");
+        }
+        int tgtIdx = nodeIndex.get(target);
+        if (tgtIdx == -1) {
+            throw new InvalidNodeAccessException("The target node is not in the graph.");
+        }
+        List<int[]> row = matrix.get(srcIdx);
+        int[] cell = row.get(tgtIdx);
+        int[] newCell = cell == null ? new int[1] : Arrays.copyOf(cell, cell.length + 1);
+        newCell[newCell.length - 1] = labels.idOf(label);
+        row.set(tgtIdx, newCell);
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) throws InvalidNodeAccessException {
+        addRelationship(label, source.intValue(), target.intValue());
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) {
+        int srcIdx = nodeIndex.get(node);
+        if (srcIdx == -1) return Collections.emptyIterator();
+
+        var neighbors = new ArrayList<Edge<Integer>>();
+        List<int[]> row = matrix.get(srcIdx);
+        for (int j = 0; j < row.size(); j++) {
+            int[] cell = row.get(j);
+            if (cell == null) continue;
+            for (int labelId : cell) {
+                neighbors.add(new Edge<>(node, nodeIds[j], labels.labelOf(labelId)));
+            }
+        }
+        return neighbors.iterator();
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) {
+        int tgtIdx = nodeIndex.get(node);
+        if (tgtIdx == -1) return Collections.emptyIterator();
+
+        // The incoming relationships are the node's column.
+        var neighbors = new ArrayList<Edge<Integer>>();
+        for (int i = 0; i < nodeCount; i++) {
+            int[] cell = matrix.get(i).get(tgtIdx);
+            if (cell == null) continue;
+            for (int labelId : cell) {
+                neighbors.add(new Edge<>(nodeIds[i], node, labels.labelOf(labelId)));
+            }
+        }
+        return neighbors.iterator();
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(int node) {
+        var cursor = new IntAdjMatrixEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) {
+        return openEdgeCursor(node.intValue());
+    }
+
+    @Override
+    public int getRandomNodeId() {
+        if (nodeCount == 0) return -1;
+        return nodeIds[rand.nextInt(nodeCount)];
+    }
+
+    @Override
+    public Integer getRandomNode() {
+        if (nodeCount == 0) return null;
+        return getRandomNodeId();
+    }
+
+    @Override
+    public int getRandomNeighbor(int node) {
+        var cursor = new IntAdjMatrixEdgeCursor();
+        cursor.reset(node);
+        int count = 0;
+        int chosen = -1;
+        while (cursor.next()) {
+            count++;
+            if (rand.nextInt(count) == 0) {
+                chosen = cursor.targetId();
+            }
+        }
+        return chosen;
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) {
+        var cursor = new IntAdjMatrixEdgeCursor();
+        cursor.reset(node);
+        int count = 0;
+        Edge<Integer> chosenEdge = null;
+        while (cursor.next()) {
+            count++;
+            if (rand.nextInt(count) == 0) {
+                chosenEdge = new Edge<>(node, cursor.targetId(), cursor.label());
+            }
+        }
+        return chosenEdge;
+    }
+
+    @Override
+    public void clear() {
+        nodeIndex.clear();
+        nodeIds = new int[INITIAL_CAPACITY];
+        nodeCount = 0;
+        matrix.clear();
+        labels.clear();
+    }
+
+    @Override
+    public void close() {}
+
+    private class IntAdjMatrixEdgeCursor implements IntEdgeCursor {
+        private int node;
+        private List<int[]> row = Collections.emptyList();
+        private int column = -1;
+        private int[] cell;
+        private int nextInCell = 0;
+
+        @Override
+        public boolean next() {
+            if (cell != null && nextInCell < cell.length) {
+                nextInCell++;
+                return true;
+            }
+            while (++column < row.size()) {
+                cell = row.get(column);
+                if (cell != null) {
+                    nextInCell = 1;
+                    return true;
+                }
+            }
+            cell = null;
+            return false;
+        }
+
+        @Override
+        public int sourceId() {
+            return node;
+        }
+
+        @Override
+        public int targetId() {
+            return nodeIds[column];
+        }
+
+        @Override
+        public String label() {
+            return labels.labelOf(cell[nextInCell - 1]);
+        }
+
+        @Override
+        public void reset(Integer node) {
+            this.node = node;
+            int srcIdx = nodeIndex.get(node);
+            row = srcIdx == -1 ? Collections.emptyList() : matrix.get(srcIdx);
+            column = -1;
+            cell = null;
+            nextInCell = 0;
+        }
+    }
+}
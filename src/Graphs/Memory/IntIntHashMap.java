@@ -0,0 +1,107 @@
+package Graphs.Memory;
+
+import java.util.Arrays;
+
+/**
+ * An open addressing hash map from int keys to int values with linear probing, so lookups and
+ * inserts neither box the key nor allocate an entry. Keys cannot be removed, matching how the
+ * graphs only ever add nodes.
+ */
+public class IntIntHashMap {
+    private static final int EMPTY = Integer.MIN_VALUE;
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final int missingValue;
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int size = 0;
+
+    // Integer.MIN_VALUE marks an empty slot, so that key is kept on the side.
+    private boolean hasEmptyKey = false;
+    private int emptyKeyValue;
+
+    /**
+     * Creates an empty map.
+     *
+     * @param missingValue the value returned by {@link #get} for keys that are not in the map.
+     */
+    public IntIntHashMap(int missingValue) {
+        this.missingValue = missingValue;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    public int get(int key) {
+        if (key == EMPTY) return hasEmptyKey ? emptyKeyValue : missingValue;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return values[slot];
+            if (keys[slot] == EMPTY) return missingValue;
+        }
+    }
+
+    public boolean containsKey(int key) {
+        if (key == EMPTY) return hasEmptyKey;
+        for (int slot = slot(key); ; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) return true;
+            if (keys[slot] == EMPTY) return false;
+        }
+    }
+
+    public void put(int key, int value) {
+        if (key == EMPTY) {
+            if (!hasEmptyKey) size++;
+            hasEmptyKey = true;
+            emptyKeyValue = value;
+            return;
+        }
+        int slot = slot(key);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            rehash();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        allocate(INITIAL_CAPACITY);
+        size = 0;
+        hasEmptyKey = false;
+    }
+
+    private int slot(int key) {
+        return (key * 0x9E3779B9) >>> Integer.numberOfLeadingZeros(mask) & mask;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private void rehash() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        allocate(oldKeys.length * 2);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) continue;
+            int slot = slot(oldKeys[i]);
+            while (keys[slot] != EMPTY) {
+                slot = (slot + 1) & mask;
+            }
+            keys[slot] = oldKeys[i];
+            values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package Graphs.Memory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Interns relationship labels so primitive graphs can store a label as an int id.
+ */
+public class LabelTable {
+    private final List<String> labels = new ArrayList<>();
+    private final Map<String, Integer> labelIds = new HashMap<>();
+
+    /**
+     * Returns the id of the given label, assigning a new one the first time a label is seen.
+     *
+     * @param label the label to intern.
+     * @return the id of the label.
+     */
+    public int idOf(String label) {
+        Integer id = labelIds.get(label);
+        if (id == null) {
+            id = labels.size();
+            labels.add(label);
+            labelIds.put(label, id);
+        }
+        return id;
+    }
+
+    /**
+     * Returns the label with the given id.
+     *
+     * @param id the id of the label.
+     * @return the label.
+     */
+    public String labelOf(int id) {
+        return labels.get(id);
+    }
+
+    public void clear() {
+        labels.clear();
+        labelIds.clear();
+    }
+}
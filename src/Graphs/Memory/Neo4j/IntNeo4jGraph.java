@@ -0,0 +1,264 @@
+package Graphs.Memory.Neo4j;
+
+import Graphs.Edge;
+import Graphs.IGraph;
+import Graphs.IntEdgeCursor;
+import Graphs.IntGraph;
+import Graphs.Memory.IntIntHashMap;
+import Graphs.Memory.LabelTable;
+
+import java.util.*;
+
+/**
+ * A Neo4j-like graph over int node ids. Node and relationship records are kept as parallel int
+ * arrays, with each relationship linked into its source's outgoing chain and its target's
+ * incoming chain by record index, so the chains hold no objects and lookups never box.
+ */
+public class IntNeo4jGraph implements IntGraph, IGraph<Integer> {
+    private static final int INITIAL_CAPACITY = 16;
+    private static final Random rand = new Random(8675309);
+
+    // Node records, indexed by the node's position.
+    private final IntIntHashMap indexOf = new IntIntHashMap(-1);
+    private int[] nodeIds = new int[INITIAL_CAPACITY];
+    private int[] firstOutgoing = new int[INITIAL_CAPACITY];
+    private int[] firstIncoming = new int[INITIAL_CAPACITY];
+    private int nodeCount = 0;
+
+    // Relationship records, -1 terminates a chain.
+    private int[] edgeSource = new int[INITIAL_CAPACITY];
+    private int[] edgeTarget = new int[INITIAL_CAPACITY];
+    private int[] edgeLabel = new int[INITIAL_CAPACITY];
+    private int[] outNext = new int[INITIAL_CAPACITY];
+    private int[] inNext = new int[INITIAL_CAPACITY];
+    private int edgeCount = 0;
+
+    private final LabelTable labels = new LabelTable();
+
+    @Override
+    public PrimitiveIterator.OfInt getNodes() {
+        return Arrays.stream(nodeIds, 0, nodeCount).iterator();
+    }
+
+    @Override
+    public void addNode(int node) {
+        // Only add a new node if it doesn't already exist.
+        nodeIndex(node);
+    }
+
+    @Override
+    public void addNode(Integer node) {
+        addNode(node.intValue());
+    }
+
+    @Override
+    public void addRelationship(String label, int source, int target) {
+        // Ensure both source and target nodes exist.
+        int sourceIdx = nodeIndex(source);
+        int targetIdx = nodeIndex(target);
+
+        if (edgeCount == edgeSource.length) {
+            int newLength = edgeCount * 2;
+            edgeSource = Arrays.copyOf(edgeSource, newLength);
+            edgeTarget = Arrays.copyOf(edgeTarget, newLength);
+            edgeLabel = Arrays.copyOf(edgeLabel, newLength);
+            outNext = Arrays.copyOf(outNext, newLength);
+            inNext = Arrays.copyOf(inNext, newLength);
+        }
+        int edge = edgeCount++;
+        edgeSource[edge] = source;
+        edgeTarget[edge] = target;
+        edgeLabel[edge] = labels.idOf(label);
+
+        // Insert at the head of the source's outgoing chain and the target's incoming chain.
+        outNext[edge] = firstOutgoing[sourceIdx];
+        firstOutgoing[sourceIdx] = edge;
+        inNext[edge] = firstIncoming[targetIdx];
+        firstIncoming[targetIdx] = edge;
+    }
+
+    @Override
+    public void addRelationship(String label, Integer source, Integer target) {
+        addRelationship(label, source.intValue(), target.intValue());
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getRelationships(Integer node) {
+        int idx = indexOf.get(node);
+        if (idx == -1) return Collections.emptyIterator();
+
+        return new Iterator<>() {
+            private int next = firstOutgoing[idx];
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int edge = next;
+                next = outNext[edge];
+                return edgeAt(edge);
+            }
+        };
+    }
+
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<Integer>> getIncomingRelationships(Integer node) {
+        int idx = indexOf.get(node);
+        if (idx == -1) return Collections.emptyIterator();
+
+        return new Iterator<>() {
+            private int next = firstIncoming[idx];
+
+            @Override
+            public boolean hasNext() {
+                return next != -1;
+            }
+
+            @Override
+            public Edge<Integer> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                int edge = next;
+                next = inNext[edge];
+                return edgeAt(edge);
+            }
+        };
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(int node) {
+        var cursor = new IntNeo4jEdgeCursor();
+        cursor.reset(node);
+        return cursor;
+    }
+
+    @Override
+    public IntEdgeCursor openEdgeCursor(Integer node) {
+        return openEdgeCursor(node.intValue());
+    }
+
+    @Override
+    public int getRandomNodeId() {
+        if (nodeCount == 0) return -1;
+        return nodeIds[rand.nextInt(nodeCount)];
+    }
+
+    @Override
+    public Integer getRandomNode() {
+        if (nodeCount == 0) return null;
+        return getRandomNodeId();
+    }
+
+    @Override
+    public int getRandomNeighbor(int node) {
+        int edge = randomOutgoing(node);
+        return edge == -1 ? -1 : edgeTarget[edge];
+    }
+
+    @Override
+    public Edge<Integer> getRandomRelationship(Integer node) {
+        int edge = randomOutgoing(node);
+        return edge == -1 ? null : edgeAt(edge);
+    }
+
+    @Override
+    public void clear() {
+        indexOf.clear();
+        nodeIds = new int[INITIAL_CAPACITY];
+        firstOutgoing = new int[INITIAL_CAPACITY];
+        firstIncoming = new int[INITIAL_CAPACITY];
+        nodeCount = 0;
+        edgeSource = new int[INITIAL_CAPACITY];
+        edgeTarget = new int[INITIAL_CAPACITY];
+        edgeLabel = new int[INITIAL_CAPACITY];
+        outNext = new int[INITIAL_CAPACITY];
+        inNext = new int[INITIAL_CAPACITY];
+        edgeCount = 0;
+        labels.clear();
+    }
+
+    @Override
+    public void close() {}
+
+    private int nodeIndex(int node) {
+        int idx = indexOf.get(node);
+        if (idx != -1) return idx;
+
+        if (nodeCount == nodeIds.length) {
+            int newLength = nodeCount * 2;
+            nodeIds = Arrays.copyOf(nodeIds, newLength);
+            firstOutgoing = Arrays.copyOf(firstOutgoing, newLength);
+            firstIncoming = Arrays.copyOf(firstIncoming, newLength);
+        }
+        idx = nodeCount++;
+        indexOf.put(node, idx);
+        nodeIds[idx] = node;
+        firstOutgoing[idx] = -1;
+        firstIncoming[idx] = -1;
+        return idx;
+    }
+
+    private Edge<Integer> edgeAt(int edge) {
+        return new Edge<>(edgeSource[edge], edgeTarget[edge], labels.labelOf(edgeLabel[edge]));
+    }
+
+    /**
+     * Picks a relationship from the node's outgoing chain with reservoir sampling.
+     */
+    private int randomOutgoing(int node) {
+        int idx = indexOf.get(node);
+        if (idx == -1) return -1;
+
+        int count = 0;
+        int chosenEdge = -1;
+        for (int edge = firstOutgoing[idx]; edge != -1; edge = outNext[edge]) {
+            count++;
+            if (rand.nextInt(count) == 0) {
+                chosenEdge = edge;
+            }
+        }
+        return chosenEdge;
+    }
+
+    private class IntNeo4jEdgeCursor implements IntEdgeCursor {
+        private int nextEdge = -1;
+        private int current = -1;
+
+        @Override
+        public boolean next() {
+            if (nextEdge == -1) return false;
+            current = nextEdge;
+            nextEdge = outNext[current];
+            return true;
+        }
+
+        @Override
+        public int sourceId() {
+            return edgeSource[current];
+        }
+
+        @Override
+        public int targetId() {
+            return edgeTarget[current];
+        }
+
+        @Override
+        public String label() {
+            return labels.labelOf(edgeLabel[current]);
+        }
+
+        @Override
+        public void reset(Integer node) {
+            int idx = indexOf.get(node);
+            nextEdge = idx == -1 ? -1 : firstOutgoing[idx];
+        }
+    }
+}
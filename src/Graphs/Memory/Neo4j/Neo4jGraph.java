@@ -1,6 +1,7 @@
 package Graphs.Memory.Neo4j;
 
 import Graphs.Edge;
+import Graphs.EdgeCursor;
 import Graphs.IGraph;
 
 import java.util.*;
@@ -64,6 +65,31 @@ public class Neo4jGraph<T> implements IGraph<T> {
         return relationships.iterator();
     }
 
+    @Override
+    public boolean hasIncomingIndex() {
+        return true;
+    }
+
+    @Override
+    public Iterator<Edge<T>> getIncomingRelationships(T nodeValue) {
+        Neo4jNode<T> memNode = nodes.get(nodeValue);
+        if (memNode == null) {
+            return Collections.emptyIterator();
+        }
+        List<Edge<T>> relationships = new ArrayList<>();
+        for (EdgeNode<T> curr = memNode.getFirstIncoming(); curr != null; curr = curr.inNext) {
+            relationships.add(curr.edge);
+        }
+        return relationships.iterator();
+    }
+
+    @Override
+    public EdgeCursor<T> openEdgeCursor(T nodeValue) {
+        var cursor = new Neo4jEdgeCursor();
+        cursor.reset(nodeValue);
+        return cursor;
+    }
+
     @Override
     public T getRandomNode() {
         if (nodes.isEmpty()) return null;
@@ -98,4 +124,42 @@ public class Neo4jGraph<T> implements IGraph<T> {
 
     @Override
     public void close() {}
+
+    private class Neo4jEdgeCursor implements EdgeCursor<T> {
+        private EdgeNode<T> nextEdgeNode;
+        private Edge<T> current;
+
+        @Override
+        public boolean next() {
+            if (nextEdgeNode == null) {
+                current = null;
+                return false;
+            }
+            current = nextEdgeNode.edge;
+            nextEdgeNode = nextEdgeNode.outNext;
+            return true;
+        }
+
+        @Override
+        public T source() {
+            return current.getSource();
+        }
+
+        @Override
+        public T target() {
+            return current.getTarget();
+        }
+
+        @Override
+        public String label() {
+            return current.getLabel();
+        }
+
+        @Override
+        public void reset(T nodeValue) {
+            Neo4jNode<T> memNode = nodes.get(nodeValue);
+            nextEdgeNode = memNode == null ? null : memNode.getFirstOutgoing();
+            current = null;
+        }
+    }
 }
@@ -0,0 +1,91 @@
+import Algos.Louvain;
+import Exceptions.InvalidNodeAccessException;
+import GML.GNode;
+import GML.GraphMLExporter;
+import GML.ParallelTabImporter;
+import Graphs.IGraph;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class LouvainBenchmark {
+    private final IGraph<Integer> graph;
+    private final GraphType type;
+    private final String dataset;
+    // Relative to the working directory, the repository root.
+    private static final String BASE_PATH = "datasets" + File.separator;
+    private static final String GML_LOC = BASE_PATH + "com-youtube.ungraph.txt";
+    private static final String DBLP_GML_LOC = BASE_PATH + "com-dblp.ungraph.txt";
+    private static final String EU_GML_LOC = BASE_PATH + "email-Eu-core.txt";
+
+    public LouvainBenchmark(IGraph<Integer> graph, GraphType type) {
+        this(graph, type, DBLP_GML_LOC);
+    }
+
+    /**
+     * Runs on the given edge list, e.g. {@code GML_LOC} for com-youtube.
+     */
+    public LouvainBenchmark(IGraph<Integer> graph, GraphType type, String dataset) {
+        this.graph = graph;
+        this.type = type;
+        this.dataset = dataset;
+    }
+
+    interface SingleTest {
+        void test() throws IOException, InvalidNodeAccessException;
+    }
+
+    private long runTimedTest(SingleTest t) throws IOException, InvalidNodeAccessException {
+        long startTime = System.nanoTime();
+        t.test();
+        long endTime = System.nanoTime();
+        return endTime - startTime;
+    }
+
+    public long runBenchmark() throws IOException, InvalidNodeAccessException {
+        long elapsedTimeNs = runTimedTest(() -> ParallelTabImporter.readGraph(dataset, graph, false));
+
+//        System.out.println(outputString(
+//                "Read Data",
+//                elapsedTimeNs));
+
+        var louvain = new Louvain<>(graph, false);
+        louvain.setThreads(Runtime.getRuntime().availableProcessors());
+        AtomicReference<Louvain<Integer>.LouvainResult> result = new AtomicReference<>();
+
+        elapsedTimeNs = runTimedTest(() -> result.set(louvain.run()));
+
+//        System.out.println(outputString(
+//                "Run Louvain",
+//                elapsedTimeNs));
+
+        Map<Integer, Integer> assignment = result.get().assignment();
+
+        try (PrintWriter pw = new PrintWriter("louvain_partition_" + type.name() + ".csv")) {
+            pw.println("node,community");
+            for (Map.Entry<Integer, Integer> entry : assignment.entrySet()) {
+                pw.println(entry.getKey() + "," + entry.getValue());
+            }
+        }
+
+        GraphMLExporter.exportToGraphML(graph, assignment.entrySet(), "louvain_export_" + type.name() + ".graphml");
+
+        return elapsedTimeNs / (long) 1e9;
+    }
+
+    private String outputString(
+        String title,
+        long elapsedTimeNs
+    ) {
+        return "\t" +
+                title +
+                " - " +
+                elapsedTimeNs / (long) 1e6 +
+                " ms (" +
+                elapsedTimeNs / (long) 1e9 +
+                "s)";
+    }
+}
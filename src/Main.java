@@ -4,9 +4,11 @@ import java.util.List;
 
 public class Main {
     private static final int RUN_CNT = 5;
-    private static final String DIR_PATH = "C:\\Benchmark\\";
+    private static final String DIR_PATH = System.getProperty("java.io.tmpdir");
     private static final String NODES_NAME = "nodes.dat";
     private static final String EDGES_NAME = "edges.dat";
+    // Bytes of neighbor lists the disk graphs cache in memory, 0 to read the stores directly.
+    private static final long CACHE_BYTES = 0;
 
 
     public static void main(String[] args) throws IOException {
@@ -15,9 +17,11 @@ public class Main {
                 GraphType.ADJ_MATRIX,
                 GraphType.ADJ_LIST,
                 GraphType.EDGE_LIST,
+                GraphType.CSR,
                 GraphType.NEO4J_DISK,
                 GraphType.ADJ_LIST_DISK,
-                GraphType.EDGE_LIST_DISK
+                GraphType.EDGE_LIST_DISK,
+                GraphType.CSR_DISK
         )) {
             for (int i = 0; i < RUN_CNT; i++) {
                 System.out.println(ty.name() + " (" + i + "):");
@@ -34,10 +38,10 @@ public class Main {
     ) {
         var nodeOutputName = type.name() + "_" + nodesFileName;
         var edgeOutputName = type.name() + "_" + edgesFileName;
-        var nodeFile = new File(directoryPath + nodeOutputName);
-        var edgeFile = new File(directoryPath + edgeOutputName);
+        var nodeFile = new File(directoryPath, nodeOutputName);
+        var edgeFile = new File(directoryPath, edgeOutputName);
 
-        try (var graph = GraphFactory.createGraph(type, directoryPath, nodeOutputName, edgeOutputName)) {
+        try (var graph = GraphFactory.createCachingGraph(type, directoryPath, nodeOutputName, edgeOutputName, CACHE_BYTES)) {
             QueryBenchmark benchmark = new QueryBenchmark(graph, type);
 //            return benchmark.runBenchmark(!type.usesDisk);
             benchmark.runBenchmark(true);
@@ -48,4 +52,29 @@ public class Main {
 //        if (!nodeFile.delete()) System.out.println("\tFailed to delete " + nodeFile.getAbsolutePath());
 //        if (!edgeFile.delete()) System.out.println("\tFailed to delete " + edgeFile.getAbsolutePath());
     }
+
+    /**
+     * Loads the dataset into a graph of the given type and measures its query throughput at
+     * increasing numbers of concurrent clients.
+     */
+    public static void runThroughputBenchmark(
+        GraphType type,
+        String directoryPath,
+        String nodesFileName,
+        String edgesFileName,
+        String dataset,
+        boolean virtualThreads
+    ) {
+        var nodeOutputName = type.name() + "_" + nodesFileName;
+        var edgeOutputName = type.name() + "_" + edgesFileName;
+
+        try (var graph = GraphFactory.createCachingGraph(type, directoryPath, nodeOutputName, edgeOutputName, CACHE_BYTES)) {
+            var benchmark = new ThroughputBenchmark(graph, type, dataset);
+            benchmark.setVirtualThreads(virtualThreads);
+            benchmark.runBenchmark(true);
+        } catch (Exception e) {
+            System.out.flush();
+            System.out.println("\tTest failed due to: " + e.getMessage());
+        }
+    }
 }
@@ -1,8 +1,11 @@
+import Algos.PageRank;
+import Algos.Traversal;
 import Algos.Walktrap;
 import Exceptions.InvalidNodeAccessException;
 import GML.GNode;
 import GML.GraphMLExporter;
-import GML.TabImporter;
+import GML.ParallelTabImporter;
+import Graphs.Disk.CachingGraph;
 import Graphs.Edge;
 import Graphs.IGraph;
 
@@ -13,11 +16,12 @@ import java.util.concurrent.atomic.AtomicReference;
 public class QueryBenchmark {
     private final IGraph<Integer> graph;
     private final GraphType type;
-//    private static final String BASE_PATH = "C:\\Users\\clint\\OneDrive\\Documents\\Courses\\Capstone\\RelationStorageTestbed\\datasets\\";
-    private static final String BASE_PATH = "C:\\Users\\Clinten\\Documents\\Courses\\2245\\Capstone\\RelationStorageTestbed\\datasets\\";
+    // Relative to the working directory, the repository root.
+    private static final String BASE_PATH = "datasets" + File.separator;
     private static final String EU_GML_LOC = BASE_PATH + "email-Eu-core.txt";
     private static final String EU_OUT_DEG_LOC = BASE_PATH + "email-Eu-core.outdeg.txt";
     private static final String EU_OUT_DEG_TIMES_LOC = BASE_PATH + "email-Eu-core.outdeg.times.txt";
+    private static final String EU_IN_TIMES_LOC = BASE_PATH + "email-Eu-core.in.times.txt";
 //    private static final String EU_GML_LOC = BASE_PATH + "test-ds.txt";
 //    private static final String EU_OUT_DEG_LOC = BASE_PATH + "test-ds.outdeg.txt";
 //    private static final String EU_OUT_DEG_TIMES_LOC = BASE_PATH + "test-ds.outdeg.times.txt";
@@ -29,10 +33,16 @@ public class QueryBenchmark {
 
     public static final int R_PER_NODE = 50;
 
+    public static final int PPR_WALKS = 10_000;
+
+    public static final int R_TRAVERSAL_CNT = 100;
+
     private final List<Integer> sortedOutDegrees;
 
     private final HashMap<Integer, Long> sortedOutDegreesTimes = new HashMap<>();
 
+    private final HashMap<Integer, Long> incomingTimes = new HashMap<>();
+
     public QueryBenchmark(IGraph<Integer> graph, GraphType type) {
         this.graph = graph;
         this.type = type;
@@ -65,24 +75,46 @@ public class QueryBenchmark {
     }
 
     private long runTimedTest(SingleTest t, String testName) throws Exception {
+        long[] cacheCounts = cacheCounts();
         long elapsedTime = runTimedTest(t);
 
         System.out.println(outputString(
                 testName,
-                elapsedTime));
+                elapsedTime) + cacheString(cacheCounts));
         return elapsedTime;
     }
 
     private long runTimedTest(SingleTest t, String testName, int iterations) throws Exception {
+        long[] cacheCounts = cacheCounts();
         long elapsedTime = runTimedTest(t);
 
         System.out.println(outputString(
             testName,
             iterations,
-            elapsedTime));
+            elapsedTime) + cacheString(cacheCounts));
         return elapsedTime;
     }
 
+    /**
+     * Returns the cache's hit and miss counts so far, or null if the graph is not cached.
+     */
+    private long[] cacheCounts() {
+        if (graph instanceof CachingGraph cache) {
+            return new long[]{cache.getCacheHits(), cache.getCacheMisses()};
+        }
+        return null;
+    }
+
+    /**
+     * Describes the cache hits and misses since the given counts, or nothing if the graph is not
+     * cached.
+     */
+    private String cacheString(long[] before) {
+        long[] after = cacheCounts();
+        if (before == null || after == null) return "";
+        return ", cache hits " + (after[0] - before[0]) + ", misses " + (after[1] - before[1]);
+    }
+
     public long runBenchmark() throws Exception {
         return runBenchmark(true);
     }
@@ -91,7 +123,7 @@ public class QueryBenchmark {
         if (load) {
             graph.clear();
             runTimedTest(
-                () -> TabImporter.readGraph(EU_GML_LOC, graph, false),
+                () -> ParallelTabImporter.readGraph(EU_GML_LOC, graph, false),
                 "Import"
             );
         }
@@ -102,10 +134,58 @@ public class QueryBenchmark {
             }
         }, "Random Nodes", R_NODE_CNT);
 
+        runTimedTest(() -> {
+            for (int i = 0; i < R_NODE_CNT; i++) {
+                for (Iterator<Edge<Integer>> it = graph.getIncomingRelationships(graph.getRandomNode()); it.hasNext(); ) {
+                    it.next();
+                }
+            }
+        }, "Incoming Relationships", R_NODE_CNT);
+
+        runTimedTest(() -> {
+            for (int i = 0; i < R_NODE_CNT; i++) {
+                graph.inDegree(graph.getRandomNode());
+            }
+        }, "In Degree", R_NODE_CNT);
+
+        // Whole graph sweeps, as opposed to the single node queries.
+        var pageRank = new PageRank<>(graph);
+        pageRank.setThreads(Runtime.getRuntime().availableProcessors());
+        runTimedTest(pageRank::run, "PageRank");
+
+        var pprSource = graph.getRandomNode();
+        runTimedTest(() -> pageRank.personalizedPageRank(pprSource, PPR_WALKS), "Personalized PageRank", PPR_WALKS);
+
+        // Multi-hop queries from random sources.
+        var traversal = new Traversal(graph);
+        runTimedTest(() -> {
+            for (int i = 0; i < R_TRAVERSAL_CNT; i++) {
+                traversal.distances(graph.getRandomNode());
+            }
+        }, "BFS", R_TRAVERSAL_CNT);
+        runTimedTest(() -> {
+            for (int i = 0; i < R_TRAVERSAL_CNT; i++) {
+                traversal.kHop(graph.getRandomNode(), 2);
+            }
+        }, "2-Hop", R_TRAVERSAL_CNT);
+        runTimedTest(() -> {
+            for (int i = 0; i < R_TRAVERSAL_CNT; i++) {
+                traversal.kHop(graph.getRandomNode(), 3);
+            }
+        }, "3-Hop", R_TRAVERSAL_CNT);
+        runTimedTest(() -> {
+            for (int i = 0; i < R_TRAVERSAL_CNT; i++) {
+                traversal.reachable(graph.getRandomNode(), graph.getRandomNode());
+            }
+        }, "Reachability", R_TRAVERSAL_CNT);
+
         sortedOutDegreesTimes.clear();
         for (var node : sortedOutDegrees) {
+            // Time R_PER_NODE calls, so the per call average is not just timer noise.
             var totalTime = runTimedTest(() -> {
-                graph.getRandomRelationship(node);
+                for (int i = 0; i < R_PER_NODE; i++) {
+                    graph.getRandomRelationship(node);
+                }
 
 //                System.out.printf("%s: ", node.toString());
 //                for (Iterator<Edge<Integer>> it = graph.getRelationships(node); it.hasNext(); ) {
@@ -124,6 +204,26 @@ public class QueryBenchmark {
             }
         }
 
+        // The same nodes again, reading every incoming relationship R_PER_NODE times.
+        incomingTimes.clear();
+        for (var node : sortedOutDegrees) {
+            var totalTime = runTimedTest(() -> {
+                for (int i = 0; i < R_PER_NODE; i++) {
+                    for (Iterator<Edge<Integer>> it = graph.getIncomingRelationships(node); it.hasNext(); ) {
+                        it.next();
+                    }
+                }
+            });
+            incomingTimes.put(node, totalTime / R_PER_NODE);
+        }
+
+        try (PrintWriter writer = new PrintWriter(new FileWriter(EU_IN_TIMES_LOC, true))) {
+            writer.println(type.name + (type.usesDisk ? "_" : ""));
+            for (var node : sortedOutDegrees) {
+                writer.println(incomingTimes.get(node));
+            }
+        }
+
 //        var node = graph.getRandomNode();
 
 //        runTimedTest(() -> {
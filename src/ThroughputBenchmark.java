@@ -0,0 +1,252 @@
+import Exceptions.InvalidNodeAccessException;
+import GML.ParallelTabImporter;
+import Graphs.Disk.CachingGraph;
+import Graphs.Edge;
+import Graphs.IGraph;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Measures how many queries a graph answers per second with several clients asking at once. Each
+ * client is a thread issuing a mix of random node, full relationship list and random relationship
+ * queries against nodes picked uniformly at random, and times every query on its own.
+ * <p>
+ * Every concurrency level starts its clients together, runs a warmup round that is not recorded,
+ * and then has each client issue the same number of queries. Throughput is the total query count
+ * over the wall time of the measured round, and latencies are merged across the clients.
+ * <p>
+ * Clients only read, so the graph must allow concurrent reads once loaded. Clients can be platform
+ * threads, which caps them at what the machine can schedule, or virtual threads, which lets the
+ * concurrency levels go far past the core count.
+ * <p>
+ * If the graph is a {@link CachingGraph}, each level also reports the cache hits and misses of its
+ * measured round.
+ */
+public class ThroughputBenchmark {
+    public static final int[] DEFAULT_CLIENT_COUNTS = {1, 2, 4, 8, 16, 32, 64};
+    public static final int DEFAULT_OPS_PER_CLIENT = 10_000;
+    public static final int DEFAULT_WARMUP_OPS = 1_000;
+
+    private final IGraph<Integer> graph;
+    private final GraphType type;
+    private final String dataset;
+
+    private int[] clientCounts = DEFAULT_CLIENT_COUNTS;
+    private int opsPerClient = DEFAULT_OPS_PER_CLIENT;
+    private int warmupOps = DEFAULT_WARMUP_OPS;
+    private boolean virtualThreads = false;
+    // Relative weights of the random node, relationships and random relationship queries.
+    private int randomNodeWeight = 1;
+    private int relationshipsWeight = 2;
+    private int randomRelationshipWeight = 1;
+
+    private int[] nodes;
+
+    /**
+     * The results of one concurrency level.
+     */
+    public static class Result {
+        public final int clients;
+        public final long ops;
+        public final long elapsedNs;
+        public final LatencyHistogram latencies;
+        // Neighbor list reads served by and missed in the graph's cache, both 0 if it has none.
+        public final long cacheHits;
+        public final long cacheMisses;
+
+        Result(int clients, long ops, long elapsedNs, LatencyHistogram latencies, long cacheHits, long cacheMisses) {
+            this.clients = clients;
+            this.ops = ops;
+            this.elapsedNs = elapsedNs;
+            this.latencies = latencies;
+            this.cacheHits = cacheHits;
+            this.cacheMisses = cacheMisses;
+        }
+
+        public double opsPerSecond() {
+            return ops / (elapsedNs / 1e9);
+        }
+    }
+
+    /**
+     * @param graph   the graph to query.
+     * @param type    the type of the graph, for the output.
+     * @param dataset the edge list to load into the graph.
+     */
+    public ThroughputBenchmark(IGraph<Integer> graph, GraphType type, String dataset) {
+        this.graph = graph;
+        this.type = type;
+        this.dataset = dataset;
+    }
+
+    /**
+     * Sets the numbers of concurrent clients to measure, in order.
+     */
+    public void setClientCounts(int... clientCounts) {
+        this.clientCounts = clientCounts.clone();
+    }
+
+    /**
+     * Sets the number of measured queries and the number of warmup queries each client issues.
+     */
+    public void setOps(int opsPerClient, int warmupOps) {
+        this.opsPerClient = opsPerClient;
+        this.warmupOps = warmupOps;
+    }
+
+    /**
+     * Runs the clients on virtual threads instead of platform threads.
+     */
+    public void setVirtualThreads(boolean virtualThreads) {
+        this.virtualThreads = virtualThreads;
+    }
+
+    /**
+     * Sets the relative weights of the query mix. A weight of 0 leaves the query out.
+     *
+     * @param randomNode         weight of {@link IGraph#getRandomNode()}.
+     * @param relationships      weight of reading every relationship of a node.
+     * @param randomRelationship weight of {@link IGraph#getRandomRelationship}.
+     */
+    public void setMix(int randomNode, int relationships, int randomRelationship) {
+        if (randomNode < 0 || relationships < 0 || randomRelationship < 0
+                || randomNode + relationships + randomRelationship == 0) {
+            throw new IllegalArgumentException("The query mix needs a positive total weight.");
+        }
+        this.randomNodeWeight = randomNode;
+        this.relationshipsWeight = relationships;
+        this.randomRelationshipWeight = randomRelationship;
+    }
+
+    public List<Result> runBenchmark() throws Exception {
+        return runBenchmark(true);
+    }
+
+    /**
+     * Measures every concurrency level, printing a line for each.
+     *
+     * @param load whether to clear the graph and load the dataset first.
+     * @return the results, one per concurrency level.
+     */
+    public List<Result> runBenchmark(boolean load) throws Exception {
+        if (load) {
+            graph.clear();
+            ParallelTabImporter.readGraph(dataset, graph, false);
+        }
+        nodes = readNodes();
+        if (nodes.length == 0) {
+            throw new IOException("No nodes available in the graph.");
+        }
+
+        var results = new ArrayList<Result>();
+        for (int clients : clientCounts) {
+            run(clients, warmupOps);
+            var result = run(clients, opsPerClient);
+            results.add(result);
+            System.out.println(outputString(result));
+        }
+        return results;
+    }
+
+    private int[] readNodes() throws IOException {
+        var ids = new ArrayList<Integer>();
+        for (Iterator<Integer> it = graph.getNodes(); it.hasNext(); ) {
+            ids.add(it.next());
+        }
+        return ids.stream().mapToInt(Integer::intValue).distinct().toArray();
+    }
+
+    /**
+     * Starts the clients together and waits for all of them to issue their queries.
+     */
+    private Result run(int clients, int ops) throws Exception {
+        var histograms = new LatencyHistogram[clients];
+        var threads = new Thread[clients];
+        var ready = new CountDownLatch(clients);
+        var start = new CountDownLatch(1);
+        var failure = new AtomicReference<Exception>();
+
+        for (int c = 0; c < clients; c++) {
+            var histogram = histograms[c] = new LatencyHistogram();
+            Runnable client = () -> {
+                ready.countDown();
+                try {
+                    start.await();
+                    for (int i = 0; i < ops && failure.get() == null; i++) {
+                        long startTime = System.nanoTime();
+                        query();
+                        histogram.record(System.nanoTime() - startTime);
+                    }
+                } catch (Exception e) {
+                    failure.compareAndSet(null, e);
+                }
+            };
+            threads[c] = virtualThreads ? Thread.ofVirtual().unstarted(client) : Thread.ofPlatform().unstarted(client);
+            threads[c].start();
+        }
+
+        ready.await();
+        var cache = graph instanceof CachingGraph c ? c : null;
+        long hits = cache != null ? cache.getCacheHits() : 0;
+        long misses = cache != null ? cache.getCacheMisses() : 0;
+        long startTime = System.nanoTime();
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsedNs = System.nanoTime() - startTime;
+        if (cache != null) {
+            hits = cache.getCacheHits() - hits;
+            misses = cache.getCacheMisses() - misses;
+        }
+
+        if (failure.get() != null) throw failure.get();
+
+        var latencies = new LatencyHistogram();
+        for (LatencyHistogram histogram : histograms) {
+            latencies.merge(histogram);
+        }
+        return new Result(clients, latencies.getTotalCount(), elapsedNs, latencies, hits, misses);
+    }
+
+    /**
+     * Issues one query of the mix.
+     */
+    private void query() throws InvalidNodeAccessException, IOException {
+        var random = ThreadLocalRandom.current();
+        int pick = random.nextInt(randomNodeWeight + relationshipsWeight + randomRelationshipWeight);
+        if (pick < randomNodeWeight) {
+            graph.getRandomNode();
+            return;
+        }
+
+        int node = nodes[random.nextInt(nodes.length)];
+        if (pick < randomNodeWeight + relationshipsWeight) {
+            for (Iterator<Edge<Integer>> it = graph.getRelationships(node); it.hasNext(); ) {
+                it.next();
+            }
+        } else {
+            graph.getRandomRelationship(node);
+        }
+    }
+
+    private String outputString(Result result) {
+        var latencies = result.latencies;
+        String cache = graph instanceof CachingGraph
+                ? String.format(", cache hits %d, misses %d", result.cacheHits, result.cacheMisses)
+                : "";
+        return String.format("\tThroughput: %s%s, %d %s clients: %.0f ops/s, p50 %.1f us, p99 %.1f us, p999 %.1f us",
+                type.name,
+                type.usesDisk ? " (disk)" : "",
+                result.clients,
+                virtualThreads ? "virtual" : "platform",
+                result.opsPerSecond(),
+                latencies.getValueAtPercentile(50) / 1e3,
+                latencies.getValueAtPercentile(99) / 1e3,
+                latencies.getValueAtPercentile(99.9) / 1e3) + cache;
+    }
+}
@@ -2,29 +2,39 @@ import Algos.Walktrap;
 import Exceptions.InvalidNodeAccessException;
 import GML.GNode;
 import GML.GraphMLExporter;
-import GML.TabImporter;
+import GML.ParallelTabImporter;
 import Graphs.IGraph;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.PrintWriter;
-import java.util.HashMap;
-import java.util.List;
+import java.nio.file.Path;
 import java.util.Map;
-import java.util.Set;
 import java.util.concurrent.atomic.AtomicReference;
 
 public class WalktrapBenchmark {
+    private static final long WORKING_SET_BYTES = 512L << 20;
     private final IGraph<Integer> graph;
     private final GraphType type;
-//    private static final String BASE_PATH = "C:\\Users\\clint\\OneDrive\\Documents\\Courses\\Capstone\\RelationStorageTestbed\\datasets\\";
-    private static final String BASE_PATH = "C:\\Users\\Clinten\\Documents\\Courses\\2245\\Capstone\\RelationStorageTestbed\\datasets\\";
+    private final String dataset;
+    // Relative to the working directory, the repository root.
+    private static final String BASE_PATH = "datasets" + File.separator;
     private static final String GML_LOC = BASE_PATH + "com-youtube.ungraph.txt";
     private static final String DBLP_GML_LOC = BASE_PATH + "com-dblp.ungraph.txt";
     private static final String EU_GML_LOC = BASE_PATH + "email-Eu-core.txt";
 
     public WalktrapBenchmark(IGraph<Integer> graph, GraphType type) {
+        this(graph, type, EU_GML_LOC);
+    }
+
+    /**
+     * Runs on the given edge list, e.g. {@code GML_LOC} for com-youtube. On the disk-backed types
+     * the probability vectors are spilled to a scratch file in the temp directory.
+     */
+    public WalktrapBenchmark(IGraph<Integer> graph, GraphType type, String dataset) {
         this.graph = graph;
         this.type = type;
+        this.dataset = dataset;
     }
 
     interface SingleTest {
@@ -39,13 +49,17 @@ public class WalktrapBenchmark {
     }
 
     public long runBenchmark() throws IOException, InvalidNodeAccessException {
-        long elapsedTimeNs = runTimedTest(() -> TabImporter.readGraph(EU_GML_LOC, graph, false));
+        long elapsedTimeNs = runTimedTest(() -> ParallelTabImporter.readGraph(dataset, graph, false));
 
 //        System.out.println(outputString(
 //                "Read Data",
 //                elapsedTimeNs));
 
         var walktrap = new Walktrap<>(graph, 10, true, false);
+        walktrap.setThreads(Runtime.getRuntime().availableProcessors());
+        if (type.usesDisk) {
+            walktrap.setScratchDirectory(Path.of(System.getProperty("java.io.tmpdir")), WORKING_SET_BYTES);
+        }
         AtomicReference<Walktrap<Integer>.WalktrapResult> result = new AtomicReference<>();
 
         elapsedTimeNs = runTimedTest(() -> result.set(walktrap.run()));
@@ -54,24 +68,7 @@ public class WalktrapBenchmark {
 //                "Run Walktrap",
 //                elapsedTimeNs));
 
-        List<Double> mods = result.get().modularities;
-        int bestIndex = 0;
-        double bestMod = mods.getFirst();
-        for (int i = 1; i < mods.size(); i++) {
-            if (mods.get(i) > bestMod) {
-                bestMod = mods.get(i);
-                bestIndex = i;
-            }
-        }
-        Set<Integer> bestPartition = result.get().partitions.get(bestIndex);
-
-        Map<Integer, Integer> bestAssignment = new HashMap<>();
-        for (Integer commId : bestPartition) {
-            Set<Integer> vertices = result.get().communities.get(commId).vertices;
-            for (Integer v : vertices) {
-                bestAssignment.put(v, commId);
-            }
-        }
+        Map<Integer, Integer> bestAssignment = result.get().bestAssignment();
 
         try (PrintWriter pw = new PrintWriter("partition_" + type.name() + ".csv")) {
             pw.println("node,community");
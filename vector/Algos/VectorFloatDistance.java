@@ -0,0 +1,44 @@
+package Algos;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The float distance loop on the Vector API, at the widest lanes the machine has. The squares are
+ * summed with fused multiply-adds into float lanes, and every block of lanes is folded into a
+ * double, so the rounding error stays that of a short float sum.
+ * <p>
+ * Built and run next to {@code src}, with the incubator module added to both:
+ * <pre>
+ * javac --enable-preview --release 21 --add-modules jdk.incubator.vector -d out $(find src vector -name '*.java')
+ * java --enable-preview --add-modules jdk.incubator.vector -cp out ...
+ * </pre>
+ */
+class VectorFloatDistance implements FloatDistanceKernel {
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Vectors summed in float before the lanes are folded into the double total.
+    private static final int BLOCK = 256;
+
+    @Override
+    public double weightedDistance(float[] a, float[] b, float[] w) {
+        double sum = 0.0;
+        int j = 0;
+        int bound = SPECIES.loopBound(a.length);
+        while (j < bound) {
+            FloatVector acc = FloatVector.zero(SPECIES);
+            int end = Math.min(bound, j + BLOCK * SPECIES.length());
+            for (; j < end; j += SPECIES.length()) {
+                FloatVector diff = FloatVector.fromArray(SPECIES, w, j)
+                        .mul(FloatVector.fromArray(SPECIES, a, j).sub(FloatVector.fromArray(SPECIES, b, j)));
+                acc = diff.fma(diff, acc);
+            }
+            sum += acc.reduceLanes(VectorOperators.ADD);
+        }
+        for (; j < a.length; j++) {
+            float diff = w[j] * (a[j] - b[j]);
+            sum += diff * diff;
+        }
+        return sum;
+    }
+}